@@ -5,8 +5,11 @@ import com.graphhopper.jsprit.core.reporting.SolutionPrinter;
 import com.graphhopper.jsprit.core.util.Solutions;
 import compression.model.graph.*;
 import compression.model.jsprit.DecompressionMethod;
+import compression.model.jsprit.PortfolioRun;
+import compression.model.jsprit.PortfolioSolution;
 import compression.model.jsprit.ProblemType;
 import compression.model.jsprit.RunResult;
+import compression.model.jsprit.TerminationSettings;
 import compression.model.jsprit.VrpProblemSolution;
 import compression.model.vrp.helpers.LocationVertex;
 import compression.output.plot.ChartPlotter;
@@ -15,29 +18,34 @@ import compression.output.result.GeneralInfoWriter;
 import compression.output.result.IGeneralInfoWriter;
 import compression.output.result.ISolutionInfoWriter;
 import compression.output.result.SolutionInfoWriter;
-import compression.services.IProblemToGraphConverter;
 import compression.services.ProblemToGraphConverter;
-import compression.services.branching.ITreeBranchFinder;
 import compression.services.branching.TreeBranchFinder;
 import compression.services.compression.CompressionService;
 import compression.services.compression.ICompressionService;
+import compression.services.compression.cache.ICompressionCache;
+import compression.services.distance.DistanceMatrixFactory;
 import compression.services.distance.DistanceService;
+import compression.services.distance.IDistanceMatrixFactory;
 import compression.services.distance.IDistanceService;
+import compression.services.improvement.ISolutionImprover;
 import compression.services.jsprit.IJSpritService;
 import compression.services.jsprit.JSpritService;
-import compression.spanning.IMinimumSpanningArborescenceFinder;
 import compression.spanning.*;
 import compression.input.IProblemReader;
 import compression.input.VrpProblemReader;
-import compression.input.parsing.vrp.VrpProblemParser;
+import compression.input.cache.CachedVrpProblemReader;
+import compression.input.cache.VrpProblemBinarySerializer;
+import compression.input.parsing.vrp.IVrpProblemParser;
+import compression.input.parsing.vrp.StreamingVrpProblemParser;
+import compression.model.vrp.DistanceMatrix;
 import compression.model.vrp.VrpProblem;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
-import lombok.NoArgsConstructor;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.jfree.io.FileUtilities;
 
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -47,19 +55,90 @@ import java.util.Random;
 /**
  * Main class of the application. Handles program flow.
  */
-@NoArgsConstructor
 public class CompressionApplication {
 
-    private final IProblemReader<VrpProblem> problemReader = new VrpProblemReader<>(new VrpProblemParser());
-    private final IProblemToGraphConverter<LocationVertex> problemConverter = new ProblemToGraphConverter();
-    private final IMinimumSpanningArborescenceFinder<LocationVertex, Edge> minimalArborescenceFinder = new TarjanMinimumArborescenceFinder<>();
-    private final ITreeBranchFinder<LocationVertex> treeBranchFinder = new TreeBranchFinder<>();
+    private final IProblemReader<VrpProblem> problemReader;
     private final IDistanceService distanceService = new DistanceService();
-    private final ICompressionService compressionService = new CompressionService(problemConverter, minimalArborescenceFinder, treeBranchFinder);
-    private final IJSpritService service = new JSpritService(compressionService, distanceService);
+    private final ICompressionService compressionService;
+    private final IJSpritService service;
     private final IChartPlotter chartPlotter = new ChartPlotter();
     private final ISolutionInfoWriter solutionInfoWriter = new SolutionInfoWriter();
     private final IGeneralInfoWriter generalInfoWriter = new GeneralInfoWriter();
+    private Integer refinementIterations = null;
+
+    /**
+     * Initializes a new instance of the application that stores distance matrices on the heap.
+     */
+    public CompressionApplication(){
+        this(new DistanceMatrixFactory(), false);
+    }
+
+    /**
+     * Initializes a new instance of the application.
+     * @param distanceMatrixFactory Factory used to create all distance matrices.
+     * @param useProblemCache Whether parsed problems should be cached in binary files next to the source files.
+     */
+    public CompressionApplication(IDistanceMatrixFactory distanceMatrixFactory, boolean useProblemCache){
+        this(distanceMatrixFactory, new StreamingVrpProblemParser(distanceMatrixFactory), useProblemCache);
+    }
+
+    /**
+     * Initializes a new instance of the application.
+     * @param distanceMatrixFactory Factory used to create all distance matrices.
+     * @param parser Parser of problem files.
+     * @param useProblemCache Whether parsed problems should be cached in binary files next to the source files.
+     */
+    public CompressionApplication(IDistanceMatrixFactory distanceMatrixFactory, IVrpProblemParser parser, boolean useProblemCache){
+        this(distanceMatrixFactory, parser, new CompressionService(new ProblemToGraphConverter(distanceMatrixFactory),
+                new TarjanMinimumArborescenceFinder<>(), new TreeBranchFinder<>()), useProblemCache);
+    }
+
+    /**
+     * Initializes a new instance of the application.
+     * @param distanceMatrixFactory Factory used to create all distance matrices.
+     * @param parser Parser of problem files.
+     * @param compressionService Service used in compression phase.
+     * @param useProblemCache Whether parsed problems should be cached in binary files next to the source files.
+     */
+    public CompressionApplication(IDistanceMatrixFactory distanceMatrixFactory, IVrpProblemParser parser,
+                                  ICompressionService compressionService, boolean useProblemCache){
+        IProblemReader<VrpProblem> reader = new VrpProblemReader<>(parser);
+        problemReader = useProblemCache ? new CachedVrpProblemReader(reader, new VrpProblemBinarySerializer(distanceMatrixFactory)) : reader;
+        this.compressionService = compressionService;
+        service = new JSpritService(compressionService, distanceService, distanceMatrixFactory);
+    }
+
+    /**
+     * Sets termination policies for JSprit runs.
+     * @param terminationSettings Termination settings (null runs all iterations).
+     */
+    public void setTerminationSettings(TerminationSettings terminationSettings){
+        service.setTerminationSettings(terminationSettings);
+    }
+
+    /**
+     * Sets improver applied to decompressed solutions of compressed problems.
+     * @param solutionImprover Solution improver (null keeps decompressed solutions as they are).
+     */
+    public void setSolutionImprover(ISolutionImprover solutionImprover){
+        service.setSolutionImprover(solutionImprover);
+    }
+
+    /**
+     * Sets cache of compressions, repeated runs on the same problem and settings then skip compression.
+     * @param compressionCache Compression cache (null compresses every problem).
+     */
+    public void setCompressionCache(ICompressionCache compressionCache){
+        service.setCompressionCache(compressionCache);
+    }
+
+    /**
+     * Sets number of full problem iterations that refine decompressed solutions of compressed runs.
+     * @param refinementIterations Number of iterations (null does not refine decompressed solutions).
+     */
+    public void setRefinementIterations(Integer refinementIterations){
+        this.refinementIterations = refinementIterations;
+    }
 
     static final class FilePathUtils{
         public static String getFileNameForRun(String path, int runNo){
@@ -74,8 +153,30 @@ public class CompressionApplication {
 
     public void run(String inputFile, String outputFile, String resultFilePath, Boolean useCompression, String dataPath, String plotPath,
                     Integer iterations, String solutionRoutePath, DecompressionMethod decompressionMethod, Long seed, int numberOfRuns, String generalInfoPath){
+        run(inputFile, outputFile, resultFilePath, useCompression, dataPath, plotPath, iterations, solutionRoutePath, decompressionMethod, seed, numberOfRuns, generalInfoPath, null);
+    }
+
+    /**
+     * Runs the benchmark several times. When number of portfolio threads is given, all runs are solved at once as
+     * a portfolio on the same converted problem, otherwise they run one after another. Seeds of the runs and written
+     * files are the same in both modes.
+     */
+    public void run(String inputFile, String outputFile, String resultFilePath, Boolean useCompression, String dataPath, String plotPath,
+                    Integer iterations, String solutionRoutePath, DecompressionMethod decompressionMethod, Long seed, int numberOfRuns,
+                    String generalInfoPath, Integer portfolioThreads){
         List<RunResult> results = new ArrayList<>();
         Random rand = new Random(seed);
+        VrpProblem problem;
+        try {
+            problem = problemReader.readProblemInstanceFromFile(inputFile);
+        } catch (Exception ex){
+            ex.printStackTrace();
+            return;
+        }
+        if(portfolioThreads != null){
+            results = runPortfolio(problem, outputFile, resultFilePath, useCompression, dataPath, iterations, solutionRoutePath,
+                    decompressionMethod, rand, numberOfRuns, portfolioThreads);
+        }
         for(int i = 1; i <= numberOfRuns; i++) {
             //fix paths
             String  out = FilePathUtils.getFileNameForRun(outputFile, i);
@@ -83,20 +184,62 @@ public class CompressionApplication {
             String data = FilePathUtils.getFileNameForRun(dataPath, i);
             String solution = FilePathUtils.getFileNameForRun(solutionRoutePath, i);
             String plots = FilePathUtils.getDirectoryForPlots(plotPath, i);
-            RunResult runResult = runInternal(inputFile, out, result, useCompression, data, plots, iterations, solution, decompressionMethod, rand.nextLong());
+            if(portfolioThreads == null){
+                RunResult runResult = runInternal(problem, out, result, useCompression, data, plots, iterations, solution, decompressionMethod, rand.nextLong());
+                results.add(runResult);
+            }
             if(dataPath!= null){
                 System.out.println("Generating and saving plots");
                 chartPlotter.plotCostChart(data, Paths.get(plotPath, "cost"+i+".jpeg").toString());
                 chartPlotter.plotTimeChart(data, Paths.get(plotPath, "time"+i+".jpeg").toString());
             }
-            results.add(runResult);
         }
+        DistanceMatrix.release(problem.getDistanceMatrix());
         if(generalInfoPath != null){
             System.out.println("Generating general information about solutions");
             generalInfoWriter.writeGeneralSolution(generalInfoPath, results);
         }
     }
 
+    private List<RunResult> runPortfolio(VrpProblem problem, String outputFile, String resultFilePath, Boolean useCompression, String dataPath,
+                                         Integer iterations, String solutionRoutePath, DecompressionMethod decompressionMethod, Random rand,
+                                         int numberOfRuns, int portfolioThreads){
+        List<RunResult> results = new ArrayList<>();
+        PortfolioSolution portfolio = null;
+        try {
+            List<PortfolioRun> runs = new ArrayList<>();
+            for(int i = 1; i <= numberOfRuns; i++){
+                Long seed = rand.nextLong();
+                System.out.println("Using random seed: "+seed);
+                runs.add(new PortfolioRun(seed, FilePathUtils.getFileNameForRun(dataPath, i), FilePathUtils.getFileNameForRun(solutionRoutePath, i)));
+            }
+            service.setMaxNumberOfIterations(iterations);
+            service.setPortfolioThreads(portfolioThreads);
+            if (useCompression) {
+                System.out.println("Compressed problem, portfolio of "+numberOfRuns+" runs");
+                portfolio = service.compressAndSolvePortfolio(problem, runs, decompressionMethod);
+            } else {
+                System.out.println("Full problem, portfolio of "+numberOfRuns+" runs");
+                portfolio = service.solvePortfolio(problem, runs);
+            }
+            System.out.println("Finished");
+            for(int i = 1; i <= numberOfRuns; i++){
+                results.add(report(problem, portfolio.getSolutions().get(i-1), FilePathUtils.getFileNameForRun(outputFile, i),
+                        FilePathUtils.getFileNameForRun(resultFilePath, i), decompressionMethod));
+            }
+            System.out.println("Best portfolio solution: "+portfolio.getBestSolution().getCost());
+        } catch (Exception ex){
+            ex.printStackTrace();
+        } finally {
+            if(portfolio != null){
+                for(VrpProblemSolution solution : portfolio.getSolutions()){
+                    DistanceMatrix.release(solution.getTemporaryDistanceMatrix());
+                }
+            }
+        }
+        return results;
+    }
+
     public void run(String inputFile, String outputFile, String resultFilePath, Boolean useCompression, String dataPath, String plotPath,
                     Integer iterations, String solutionRoutePath, DecompressionMethod decompressionMethod, Long seed){
         runInternal(inputFile, outputFile, resultFilePath, useCompression, dataPath, plotPath, iterations, solutionRoutePath, decompressionMethod, seed);
@@ -109,13 +252,29 @@ public class CompressionApplication {
 
     public RunResult runInternal(String inputFile, String outputFile, String resultFilePath, Boolean useCompression, String dataPath, String plotPath,
                 Integer iterations, String solutionRoutePath, DecompressionMethod decompressionMethod, Long seed){
+        VrpProblem problem;
+        try {
+            problem = problemReader.readProblemInstanceFromFile(inputFile);
+        } catch (Exception ex){
+            ex.printStackTrace();
+            return null;
+        }
+        RunResult result = runInternal(problem, outputFile, resultFilePath, useCompression, dataPath, plotPath, iterations, solutionRoutePath, decompressionMethod, seed);
+        DistanceMatrix.release(problem.getDistanceMatrix());
+        return result;
+    }
+
+    public RunResult runInternal(VrpProblem problem, String outputFile, String resultFilePath, Boolean useCompression, String dataPath, String plotPath,
+                Integer iterations, String solutionRoutePath, DecompressionMethod decompressionMethod, Long seed){
+        VrpProblemSolution solution = null;
         try {
-            VrpProblem problem = problemReader.readProblemInstanceFromFile(inputFile);
-            VrpProblemSolution solution = null;
             service.setMaxNumberOfIterations(iterations);
             System.out.println("Using random seed: "+seed);
             service.setRandomSeed(seed);
-            if (useCompression) {
+            if (useCompression && refinementIterations != null) {
+                System.out.println("Compressed problem refined by "+refinementIterations+" full problem iterations");
+                solution = service.compressAndRefine(problem, dataPath, solutionRoutePath, refinementIterations);
+            } else if (useCompression) {
                 System.out.println("Compressed problem");
                 solution = service.compressAndSolve(problem, dataPath, solutionRoutePath, decompressionMethod);
             } else {
@@ -123,31 +282,45 @@ public class CompressionApplication {
                 solution = service.solve(problem, dataPath, solutionRoutePath);
             }
             System.out.println("Finished");
-            try (PrintWriter printWriter = new PrintWriter(outputFile)) {
-                System.out.println(solution.getCost());
-                if(decompressionMethod == DecompressionMethod.GREEDY){
-                    System.out.println("Greedy decompression: "+solution.getCost()+" simple decompression: "+solution.getBestSolution().getCost());
-                }
-                SolutionPrinter.print(printWriter, solution.getProblem(), solution.getBestSolution(), SolutionPrinter.Print.VERBOSE);
-                printWriter.flush();
-            }
-            if(resultFilePath != null){
-                solutionInfoWriter.writeSolution(resultFilePath, solution.getSolutionInfo());
-            }
-            return new RunResult(problem.getProblemName(),
-                    problem.getBestKnownSolution(),
-                    solution.getSolutionInfo().getOriginalSize(),
-                    solution.getSolutionInfo().getCompressedSize(),
-                    solution.getSolutionInfo().getUsedVehicles(),
-                    solution.getSolutionInfo().getProblemType(),
-                    solution.getSolutionInfo().getSolutionTime(),
-                    solution.getSolutionInfo().getCompressionTime(),
-                    decompressionMethod,
-                    solution.getBestSolution().getCost(),
-                    decompressionMethod == DecompressionMethod.GREEDY ? solution.getCost() : null);
+            return report(problem, solution, outputFile, resultFilePath, decompressionMethod);
         } catch (Exception ex){
             ex.printStackTrace();
             return null;
+        } finally {
+            if(solution != null)
+                DistanceMatrix.release(solution.getTemporaryDistanceMatrix());
+        }
+    }
+
+    private RunResult report(VrpProblem problem, VrpProblemSolution solution, String outputFile, String resultFilePath,
+                             DecompressionMethod decompressionMethod) throws IOException {
+        try (PrintWriter printWriter = new PrintWriter(outputFile)) {
+            System.out.println(solution.getCost());
+            System.out.println("Iterations: "+solution.getSolutionInfo().getIterations()+" termination: "+solution.getSolutionInfo().getTerminationReason());
+            if(solution.getSolutionInfo().getImprovement() != null){
+                System.out.println("Improvement: "+solution.getSolutionInfo().getImprovement()+" in "+solution.getSolutionInfo().getImprovementTime()+" s");
+            }
+            if(decompressionMethod == DecompressionMethod.GREEDY){
+                System.out.println("Greedy decompression: "+solution.getCost()+" simple decompression: "+solution.getBestSolution().getCost());
+            } else if(decompressionMethod == DecompressionMethod.OPTIMAL){
+                System.out.println("Optimal decompression: "+solution.getCost()+" simple decompression: "+solution.getBestSolution().getCost());
+            }
+            SolutionPrinter.print(printWriter, solution.getProblem(), solution.getBestSolution(), SolutionPrinter.Print.VERBOSE);
+            printWriter.flush();
+        }
+        if(resultFilePath != null){
+            solutionInfoWriter.writeSolution(resultFilePath, solution.getSolutionInfo());
         }
+        return new RunResult(problem.getProblemName(),
+                problem.getBestKnownSolution(),
+                solution.getSolutionInfo().getOriginalSize(),
+                solution.getSolutionInfo().getCompressedSize(),
+                solution.getSolutionInfo().getUsedVehicles(),
+                solution.getSolutionInfo().getProblemType(),
+                solution.getSolutionInfo().getSolutionTime(),
+                solution.getSolutionInfo().getCompressionTime(),
+                decompressionMethod,
+                solution.getBestSolution().getCost(),
+                decompressionMethod != DecompressionMethod.SIMPLE ? solution.getCost() : null);
     }
 }
@@ -1,11 +1,61 @@
 package compression;
 
+import compression.input.VrpProblemReader;
+import compression.input.parsing.vrp.IVrpProblemParser;
+import compression.input.parsing.vrp.ParallelVrpProblemParser;
+import compression.input.parsing.vrp.StreamingVrpProblemParser;
+import compression.model.graph.Edge;
+import compression.model.vrp.DistanceMatrix;
+import compression.model.vrp.VrpProblem;
+import compression.model.vrp.helpers.LocationVertex;
 import compression.model.jsprit.DecompressionMethod;
+import compression.model.jsprit.TerminationSettings;
+import compression.services.ProblemToGraphConverter;
+import compression.services.branching.CompactTreeBranchFinder;
+import compression.services.branching.GreedyBranchSplitter;
+import compression.services.branching.IBranchSplitter;
+import compression.services.branching.OptimalBranchSplitter;
+import compression.services.branching.PathTreeBranchFinder;
+import compression.services.branching.TreeBranchFinder;
+import compression.services.compression.BaseCompressionService;
+import compression.services.compression.CandidateCompressionService;
+import compression.services.compression.CompactCompressionService;
+import compression.services.compression.CompressionService;
+import compression.services.compression.HierarchicalCompressionService;
+import compression.services.compression.ICompressionService;
+import compression.services.compression.IncrementalCompressionService;
+import compression.services.compression.IncrementalCompressionVerifier;
+import compression.services.compression.cache.CompressedProblemBinarySerializer;
+import compression.services.compression.cache.CompressionCache;
+import compression.services.compression.cache.CompressionFingerprint;
+import compression.services.distance.DistanceMatrixFactory;
+import compression.services.distance.EuclideanDistanceMatrixFactory;
+import compression.services.distance.IDistanceMatrixFactory;
+import compression.services.distance.MappedDistanceMatrixFactory;
+import compression.services.improvement.CompositeSolutionImprover;
+import compression.services.improvement.ISolutionImprover;
+import compression.services.improvement.InterRouteImprover;
+import compression.services.improvement.IntraRouteImprover;
+import compression.services.spatial.GridSpatialIndexFactory;
+import compression.services.spatial.ISpatialIndexFactory;
+import compression.services.spatial.KdTreeSpatialIndexFactory;
+import compression.spanning.ArrayTarjanMinimumArborescenceFinder;
+import compression.spanning.DenseEdmondsMinimumArborescenceFinder;
+import compression.spanning.EdmondsMinimumSpanningArborescenceFinder;
+import compression.spanning.ICertifyingMinimumSpanningArborescenceFinder;
+import compression.spanning.ICompactMinimumSpanningArborescenceFinder;
+import compression.spanning.IMinimumSpanningArborescenceFinder;
+import compression.spanning.TarjanMinimumArborescenceFinder;
 import org.apache.commons.cli.*;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Application entry point class. Reads parameters.
@@ -13,7 +63,6 @@ import java.util.Properties;
 public class Program {
 
     public static void main(String[] args){
-        CompressionApplication app = new CompressionApplication();
         System.out.println("Start");
         Options options = new Options();
         Option input = new Option("i", "input", true, "input file path");
@@ -40,18 +89,87 @@ public class Program {
         Option solutionRoute = new Option("s", "solutionRoute", true, "path to file with solution route");
         solutionRoute.setRequired(false);
         options.addOption(solutionRoute);
-        Option decompressionMethod = new Option("dc", "decompression", true, "decompression method: simple (default) or greedy");
+        Option decompressionMethod = new Option("dc", "decompression", true, "decompression method: simple (default), greedy or optimal");
         decompressionMethod.setRequired(false);
         options.addOption(decompressionMethod);
         Option numberOfRuns = new Option("n", "numberofruns", true, "number of runs for the given benchmark");
         numberOfRuns.setRequired(false);
         options.addOption(numberOfRuns);
+        Option portfolioOption = new Option("pt", "portfoliothreads", true, "solve all runs at once as a portfolio on the same converted problem; value is a number of threads (0 uses all cores)");
+        portfolioOption.setRequired(false);
+        options.addOption(portfolioOption);
+        Option noImprovementOption = new Option("ni", "noimprovement", true, "stop JSprit when the best solution has not improved for the given number of iterations");
+        noImprovementOption.setRequired(false);
+        options.addOption(noImprovementOption);
+        Option minImprovementOption = new Option("mi", "minimprovement", true, "stop JSprit when the best solution improved by less than the given fraction over the improvement window");
+        minImprovementOption.setRequired(false);
+        options.addOption(minImprovementOption);
+        Option improvementWindowOption = new Option("iw", "improvementwindow", true, "number of iterations over which minimprovement is measured (default 100)");
+        improvementWindowOption.setRequired(false);
+        options.addOption(improvementWindowOption);
+        Option timeLimitOption = new Option("tl", "timelimit", true, "wall-clock budget of a JSprit run in seconds");
+        timeLimitOption.setRequired(false);
+        options.addOption(timeLimitOption);
+        Option targetGapOption = new Option("tg", "targetgap", true, "stop JSprit when the best solution is within the given relative gap to the best known solution");
+        targetGapOption.setRequired(false);
+        options.addOption(targetGapOption);
+        Option refineOption = new Option("rf", "refine", true, "number of full problem iterations that start from the greedily decompressed solution (requires compression)");
+        refineOption.setRequired(false);
+        options.addOption(refineOption);
+        Option improveOption = new Option("im", "improve", true, "improve every decompressed route by 2-opt and Or-opt moves; value is a time budget in seconds");
+        improveOption.setRequired(false);
+        options.addOption(improveOption);
+        Option interRouteOption = new Option("ir", "interroute", true, "move clients of decompressed routes between routes by relocate, swap and 2-opt* moves; value is a time budget in seconds");
+        interRouteOption.setRequired(false);
+        options.addOption(interRouteOption);
         Option generalInfoOption = new Option("g", "generalinfo", true, "path to file in which general information about solutions will be stored");
         generalInfoOption.setRequired(false);
         options.addOption(generalInfoOption);
         Option randomSeedOption = new Option("rand", "randomSeed", true, "random seed");
         randomSeedOption.setRequired(false);
         options.addOption(randomSeedOption);
+        Option mappedMatrixOption = new Option("mm", "mappedmatrix", true, "directory for memory-mapped (off-heap) distance matrices");
+        mappedMatrixOption.setRequired(false);
+        options.addOption(mappedMatrixOption);
+        Option mappedMatrixThresholdOption = new Option("mmt", "mappedmatrixthreshold", true, "minimal number of vertices for which memory-mapped distance matrix is used (default 1000)");
+        mappedMatrixThresholdOption.setRequired(false);
+        options.addOption(mappedMatrixThresholdOption);
+        Option lazyEuclideanOption = new Option("le", "lazyeuclidean", false, "compute Euclidean distances on demand instead of storing them");
+        lazyEuclideanOption.setRequired(false);
+        options.addOption(lazyEuclideanOption);
+        Option binaryCacheOption = new Option("bc", "binarycache", false, "cache parsed problem in a binary file next to the input file");
+        binaryCacheOption.setRequired(false);
+        options.addOption(binaryCacheOption);
+        Option parallelParsingOption = new Option("pp", "parallelparsing", true, "parse rows of full distance matrix in parallel; value is a number of threads (0 uses all cores)");
+        parallelParsingOption.setRequired(false);
+        options.addOption(parallelParsingOption);
+        Option arborescenceOption = new Option("af", "arborescencefinder", true, "minimum spanning arborescence algorithm: tarjan (default), arraytarjan, dense or edmonds");
+        arborescenceOption.setRequired(false);
+        options.addOption(arborescenceOption);
+        Option compactGraphOption = new Option("cg", "compactgraph", false, "compress on compact graph without jgrapht structures (requires arraytarjan or dense arborescence finder, dense is used by default)");
+        compactGraphOption.setRequired(false);
+        options.addOption(compactGraphOption);
+        Option neighboursOption = new Option("knn", "neighbours", true, "compress on candidate graph with given number of cheapest incoming edges per vertex, the arborescence is verified and stays exact (uses arraytarjan arborescence finder)");
+        neighboursOption.setRequired(false);
+        options.addOption(neighboursOption);
+        Option spatialIndexOption = new Option("si", "spatialindex", true, "spatial index used to find nearest clients: kdtree (default) or grid");
+        spatialIndexOption.setRequired(false);
+        options.addOption(spatialIndexOption);
+        Option branchSplitterOption = new Option("bs", "branchsplitter", true, "strategy used to split branches by vehicle capacity: greedy (default) or optimal");
+        branchSplitterOption.setRequired(false);
+        options.addOption(branchSplitterOption);
+        Option parallelCompressionOption = new Option("pc", "parallelcompression", true, "split and aggregate tree branches in parallel; value is a number of threads (0 uses all cores)");
+        parallelCompressionOption.setRequired(false);
+        options.addOption(parallelCompressionOption);
+        Option compressionRatioOption = new Option("cr", "compressionratio", true, "compress in several levels until the number of aggregated services is at most the given ratio of the number of clients (0-1]");
+        compressionRatioOption.setRequired(false);
+        options.addOption(compressionRatioOption);
+        Option compressionCacheOption = new Option("cc", "compressioncache", true, "cache compression results in memory and in binary files in given directory, keyed by fingerprint of distances, demands, capacities and compression settings");
+        compressionCacheOption.setRequired(false);
+        options.addOption(compressionCacheOption);
+        Option verifyIncrementalOption = new Option("vi", "verifyincremental", true, "instead of solving, verify incremental compression of the input problem on given number of random client changes");
+        verifyIncrementalOption.setRequired(false);
+        options.addOption(verifyIncrementalOption);
         CommandLineParser parser = new DefaultParser();
         HelpFormatter formatter = new HelpFormatter();
         CommandLine cmd;
@@ -95,6 +213,8 @@ public class Program {
             String dc = cmd.getOptionValue("dc");
             if(dc.equals("greedy")) {
                 decompression = DecompressionMethod.GREEDY;
+            } else if(dc.equals("optimal")) {
+                decompression = DecompressionMethod.OPTIMAL;
             }
         }
         if(cmd.hasOption("n")){
@@ -109,6 +229,114 @@ public class Program {
             }
         }
         Long seed = 4711L;
+        Integer noImprovementValue = null;
+        if(cmd.hasOption("ni")){
+            String ni = cmd.getOptionValue("ni");
+            try{
+                noImprovementValue = Integer.parseInt(ni);
+                if(noImprovementValue < 1)
+                    throw new Exception();
+            } catch (Exception ex){
+                System.out.println("Invalid noimprovement parameter");
+                noImprovementValue = null;
+            }
+        }
+        Double minImprovementValue = null;
+        if(cmd.hasOption("mi")){
+            String mi = cmd.getOptionValue("mi");
+            try{
+                minImprovementValue = Double.parseDouble(mi);
+                if(minImprovementValue < 0.0)
+                    throw new Exception();
+            } catch (Exception ex){
+                System.out.println("Invalid minimprovement parameter");
+                minImprovementValue = null;
+            }
+        }
+        Integer improvementWindowValue = 100;
+        if(cmd.hasOption("iw")){
+            String iw = cmd.getOptionValue("iw");
+            try{
+                improvementWindowValue = Integer.parseInt(iw);
+                if(improvementWindowValue < 1)
+                    throw new Exception();
+            } catch (Exception ex){
+                System.out.println("Invalid improvementwindow parameter");
+                improvementWindowValue = 100;
+            }
+        }
+        Double timeLimitValue = null;
+        if(cmd.hasOption("tl")){
+            String tl = cmd.getOptionValue("tl");
+            try{
+                timeLimitValue = Double.parseDouble(tl);
+                if(timeLimitValue <= 0.0)
+                    throw new Exception();
+            } catch (Exception ex){
+                System.out.println("Invalid timelimit parameter");
+                timeLimitValue = null;
+            }
+        }
+        Double targetGapValue = null;
+        if(cmd.hasOption("tg")){
+            String tg = cmd.getOptionValue("tg");
+            try{
+                targetGapValue = Double.parseDouble(tg);
+                if(targetGapValue < 0.0)
+                    throw new Exception();
+            } catch (Exception ex){
+                System.out.println("Invalid targetgap parameter");
+                targetGapValue = null;
+            }
+        }
+        Integer refineValue = null;
+        if(cmd.hasOption("rf")){
+            String rf = cmd.getOptionValue("rf");
+            try{
+                refineValue = Integer.parseInt(rf);
+                if(refineValue <= 0)
+                    throw new Exception();
+            } catch (Exception ex){
+                System.out.println("Invalid refine parameter");
+                refineValue = null;
+            }
+        }
+        Double improveValue = null;
+        if(cmd.hasOption("im")){
+            String im = cmd.getOptionValue("im");
+            try{
+                improveValue = Double.parseDouble(im);
+                if(improveValue <= 0.0)
+                    throw new Exception();
+            } catch (Exception ex){
+                System.out.println("Invalid improve parameter");
+                improveValue = null;
+            }
+        }
+        Double interRouteValue = null;
+        if(cmd.hasOption("ir")){
+            String ir = cmd.getOptionValue("ir");
+            try{
+                interRouteValue = Double.parseDouble(ir);
+                if(interRouteValue <= 0.0)
+                    throw new Exception();
+            } catch (Exception ex){
+                System.out.println("Invalid interroute parameter");
+                interRouteValue = null;
+            }
+        }
+        Integer portfolioThreads = null;
+        if(cmd.hasOption("pt")){
+            String threadsStr = cmd.getOptionValue("pt");
+            try{
+                portfolioThreads = Integer.parseInt(threadsStr);
+                if(portfolioThreads < 0)
+                    throw new Exception();
+            } catch (Exception ex){
+                System.out.println("Invalid portfoliothreads parameter");
+                portfolioThreads = 0;
+            }
+        }
         if(cmd.hasOption("rand")){
             String seedStr = cmd.getOptionValue("rand");
             try{
@@ -124,10 +352,190 @@ public class Program {
         if(cmd.hasOption("g")){
             generalInfoPath = cmd.getOptionValue("g");
         }
+        IDistanceMatrixFactory distanceMatrixFactory = new DistanceMatrixFactory();
+        if(cmd.hasOption("mm")){
+            Integer threshold = 1000;
+            if(cmd.hasOption("mmt")){
+                String thresholdStr = cmd.getOptionValue("mmt");
+                try{
+                    threshold = Integer.parseInt(thresholdStr);
+                    if(threshold < 0)
+                        throw new Exception();
+                } catch (Exception ex){
+                    System.out.println("Invalid mappedmatrixthreshold parameter");
+                    threshold = 1000;
+                }
+            }
+            distanceMatrixFactory = new MappedDistanceMatrixFactory(Paths.get(cmd.getOptionValue("mm")), threshold);
+        }
+        if(cmd.hasOption("le")){
+            distanceMatrixFactory = new EuclideanDistanceMatrixFactory(distanceMatrixFactory);
+        }
+        IVrpProblemParser problemParser = new StreamingVrpProblemParser(distanceMatrixFactory);
+        if(cmd.hasOption("pp")){
+            Integer threads = 0;
+            String threadsStr = cmd.getOptionValue("pp");
+            try{
+                threads = Integer.parseInt(threadsStr);
+                if(threads < 0)
+                    throw new Exception();
+            } catch (Exception ex){
+                System.out.println("Invalid parallelparsing parameter");
+                threads = 0;
+            }
+            ForkJoinPool pool = threads == 0 ? ForkJoinPool.commonPool() : new ForkJoinPool(threads);
+            problemParser = new ParallelVrpProblemParser(distanceMatrixFactory, pool);
+        }
+        IMinimumSpanningArborescenceFinder<LocationVertex, Edge> arborescenceFinder = new TarjanMinimumArborescenceFinder<>();
+        if(cmd.hasOption("af")){
+            String af = cmd.getOptionValue("af");
+            if(af.equals("arraytarjan")) {
+                arborescenceFinder = new ArrayTarjanMinimumArborescenceFinder<>();
+            } else if(af.equals("dense")) {
+                arborescenceFinder = new DenseEdmondsMinimumArborescenceFinder<>();
+            } else if(af.equals("edmonds")) {
+                arborescenceFinder = new EdmondsMinimumSpanningArborescenceFinder<>();
+            } else if(!af.equals("tarjan")) {
+                System.out.println("Invalid arborescencefinder parameter");
+            }
+        }
+        ISpatialIndexFactory spatialIndexFactory = new KdTreeSpatialIndexFactory();
+        if(cmd.hasOption("si")){
+            String si = cmd.getOptionValue("si");
+            if(si.equals("grid")) {
+                spatialIndexFactory = new GridSpatialIndexFactory();
+            } else if(!si.equals("kdtree")) {
+                System.out.println("Invalid spatialindex parameter");
+            }
+        }
+        IBranchSplitter branchSplitter = new GreedyBranchSplitter();
+        if(cmd.hasOption("bs")){
+            String bs = cmd.getOptionValue("bs");
+            if(bs.equals("optimal")) {
+                branchSplitter = new OptimalBranchSplitter();
+            } else if(!bs.equals("greedy")) {
+                System.out.println("Invalid branchsplitter parameter");
+            }
+        }
+        Integer neighbours = 10;
+        if(cmd.hasOption("knn")){
+            String neighboursStr = cmd.getOptionValue("knn");
+            try{
+                neighbours = Integer.parseInt(neighboursStr);
+                if(neighbours < 1)
+                    throw new Exception();
+            } catch (Exception ex){
+                System.out.println("Invalid neighbours parameter");
+                neighbours = 10;
+            }
+        }
+        if(cmd.hasOption("vi")){
+            Integer deltas = 10;
+            String deltasStr = cmd.getOptionValue("vi");
+            try{
+                deltas = Integer.parseInt(deltasStr);
+                if(deltas < 1)
+                    throw new Exception();
+            } catch (Exception ex){
+                System.out.println("Invalid verifyincremental parameter");
+                deltas = 10;
+            }
+            IncrementalCompressionService incrementalCompressionService = new IncrementalCompressionService(distanceMatrixFactory,
+                    new ArrayTarjanMinimumArborescenceFinder<>(), new CompactTreeBranchFinder(), spatialIndexFactory, neighbours);
+            incrementalCompressionService.setBranchSplitter(branchSplitter);
+            VrpProblem problem = new VrpProblemReader<VrpProblem>(problemParser).readProblemInstanceFromFile(inputFilePath);
+            int repaired = new IncrementalCompressionVerifier(incrementalCompressionService, distanceMatrixFactory)
+                    .verify(problem, deltas, new Random(seed));
+            System.out.println("Verified "+deltas+" incremental updates, "+repaired+" of them repaired");
+            DistanceMatrix.release(problem.getDistanceMatrix());
+            return;
+        }
+        ICompressionService compressionService;
+        if(cmd.hasOption("knn")){
+            if(cmd.hasOption("af") && !(arborescenceFinder instanceof ICertifyingMinimumSpanningArborescenceFinder))
+                System.out.println("Arborescence finder does not support candidate graph, arraytarjan finder is used");
+            compressionService = new CandidateCompressionService(distanceMatrixFactory,
+                    new ArrayTarjanMinimumArborescenceFinder<>(), new CompactTreeBranchFinder(), spatialIndexFactory, neighbours);
+        } else if(cmd.hasOption("cg")){
+            if(!(arborescenceFinder instanceof ICompactMinimumSpanningArborescenceFinder)){
+                if(cmd.hasOption("af"))
+                    System.out.println("Arborescence finder does not support compact graph, dense finder is used");
+                arborescenceFinder = new DenseEdmondsMinimumArborescenceFinder<>();
+            }
+            compressionService = new CompactCompressionService(distanceMatrixFactory,
+                    (ICompactMinimumSpanningArborescenceFinder) arborescenceFinder, new CompactTreeBranchFinder());
+        } else {
+            compressionService = new CompressionService(new ProblemToGraphConverter(distanceMatrixFactory),
+                    arborescenceFinder, new TreeBranchFinder<>());
+        }
+        ((BaseCompressionService) compressionService).setBranchSplitter(branchSplitter);
+        ForkJoinPool compressionPool = null;
+        if(cmd.hasOption("pc")){
+            Integer threads = 0;
+            String threadsStr = cmd.getOptionValue("pc");
+            try{
+                threads = Integer.parseInt(threadsStr);
+                if(threads < 0)
+                    throw new Exception();
+            } catch (Exception ex){
+                System.out.println("Invalid parallelcompression parameter");
+                threads = 0;
+            }
+            compressionPool = threads == 0 ? ForkJoinPool.commonPool() : new ForkJoinPool(threads);
+            ((BaseCompressionService) compressionService).setPool(compressionPool);
+        }
+        if(cmd.hasOption("cr")){
+            String ratioStr = cmd.getOptionValue("cr");
+            try{
+                Double ratio = Double.parseDouble(ratioStr);
+                if(!(ratio > 0.0 && ratio <= 1.0))
+                    throw new Exception();
+                ICompactMinimumSpanningArborescenceFinder levelFinder = arborescenceFinder instanceof ICompactMinimumSpanningArborescenceFinder
+                        ? (ICompactMinimumSpanningArborescenceFinder) arborescenceFinder : new DenseEdmondsMinimumArborescenceFinder<>();
+                CompactCompressionService levelCompressionService = new CompactCompressionService(distanceMatrixFactory,
+                        levelFinder, new PathTreeBranchFinder());
+                levelCompressionService.setBranchSplitter(branchSplitter);
+                levelCompressionService.setPool(compressionPool);
+                compressionService = new HierarchicalCompressionService(compressionService, levelCompressionService,
+                        distanceMatrixFactory, ratio);
+            } catch (Exception ex){
+                System.out.println("Invalid compressionratio parameter");
+            }
+        }
+        CompressionApplication app = new CompressionApplication(distanceMatrixFactory, problemParser, compressionService, cmd.hasOption("bc"));
+        app.setTerminationSettings(new TerminationSettings(noImprovementValue, improvementWindowValue, minImprovementValue,
+                timeLimitValue, targetGapValue));
+        app.setRefinementIterations(refineValue);
+        CompressionCache compressionCache = null;
+        if(cmd.hasOption("cc")){
+            try{
+                StringBuilder compressionSettings = new StringBuilder(compressionService.getClass().getName());
+                for(String name : new String[]{"af", "cg", "knn", "si", "bs", "cr"}){
+                    compressionSettings.append(';').append(name).append('=').append(cmd.hasOption(name) ? cmd.getOptionValue(name, "") : "-");
+                }
+                compressionCache = new CompressionCache(new CompressionFingerprint(compressionSettings.toString()),
+                        CompressionCache.DEFAULT_CAPACITY, Paths.get(cmd.getOptionValue("cc")),
+                        new CompressedProblemBinarySerializer(distanceMatrixFactory));
+                app.setCompressionCache(compressionCache);
+            } catch (Exception ex){
+                System.out.println("Invalid compressioncache parameter");
+            }
+        }
+        List<ISolutionImprover> improvers = new ArrayList<>();
+        if(interRouteValue != null)
+            improvers.add(new InterRouteImprover(ForkJoinPool.commonPool(), spatialIndexFactory, interRouteValue));
+        if(improveValue != null)
+            improvers.add(new IntraRouteImprover(ForkJoinPool.commonPool(), improveValue));
+        if(improvers.size() == 1)
+            app.setSolutionImprover(improvers.get(0));
+        else if(improvers.size() > 1)
+            app.setSolutionImprover(new CompositeSolutionImprover(improvers));
         if(numberOfRunsValue > 1){
-            app.run(inputFilePath, outputFilePath, resultFilePath, useCompressionValue, dataPath, plotPath, iterNum, solutionRoutePath, decompression, seed, numberOfRunsValue, generalInfoPath);
+            app.run(inputFilePath, outputFilePath, resultFilePath, useCompressionValue, dataPath, plotPath, iterNum, solutionRoutePath, decompression, seed, numberOfRunsValue, generalInfoPath, portfolioThreads);
         } else{
             app.run(inputFilePath, outputFilePath, resultFilePath, useCompressionValue, dataPath, plotPath, iterNum, solutionRoutePath, decompression, seed);
         }
+        if(compressionCache != null)
+            compressionCache.close();
     }
 }
@@ -0,0 +1,99 @@
+package compression.benchmark;
+
+import compression.input.parsing.vrp.IVrpProblemParser;
+import compression.input.parsing.vrp.ParallelVrpProblemParser;
+import compression.input.parsing.vrp.StreamingVrpProblemParser;
+import compression.input.parsing.vrp.VrpProblemParser;
+import compression.model.vrp.Client;
+import compression.model.vrp.DistanceMatrix;
+import compression.model.vrp.VrpProblem;
+import compression.services.distance.DistanceMatrixFactory;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Iterator;
+
+/**
+ * Measures throughput of line-based, streaming and parallel VRP problem parsers and checks that all of them produce
+ * the same problem. Usage: ParserBenchmark [-n repetitions] file...
+ */
+public class ParserBenchmark {
+    private static final int WARMUP = 3;
+
+    public static void main(String[] args) throws IOException {
+        int repetitions = 10;
+        int first = 0;
+        if(args.length > 1 && args[0].equals("-n")){
+            repetitions = Integer.parseInt(args[1]);
+            first = 2;
+        }
+        if(first >= args.length){
+            System.out.println("Usage: ParserBenchmark [-n repetitions] file...");
+            return;
+        }
+        IVrpProblemParser lineParser = new VrpProblemParser();
+        IVrpProblemParser streamingParser = new StreamingVrpProblemParser();
+        IVrpProblemParser parallelParser = new ParallelVrpProblemParser(new DistanceMatrixFactory());
+        for(int i=first; i<args.length; i++){
+            String path = args[i];
+            VrpProblem expected = parse(lineParser, path);
+            String equal = equal(expected, parse(streamingParser, path)) && equal(expected, parse(parallelParser, path))
+                    ? "equal" : "DIFFERENT";
+            double size = Files.size(Paths.get(path)) / 1e6;
+            double lineTime = measure(lineParser, path, repetitions);
+            double streamingTime = measure(streamingParser, path, repetitions);
+            double parallelTime = measure(parallelParser, path, repetitions);
+            System.out.println(String.format("%s: %.1f MB, line %.2f ms (%.1f MB/s), streaming %.2f ms (%.1f MB/s), parallel %.2f ms (%.1f MB/s), %s",
+                    path, size, lineTime, size / lineTime * 1e3, streamingTime, size / streamingTime * 1e3,
+                    parallelTime, size / parallelTime * 1e3, equal));
+        }
+    }
+
+    private static VrpProblem parse(IVrpProblemParser parser, String path) throws IOException {
+        try(InputStream stream = new FileInputStream(path)){
+            return parser.parse(stream);
+        }
+    }
+
+    private static double measure(IVrpProblemParser parser, String path, int repetitions) throws IOException {
+        for(int i=0; i<WARMUP; i++){
+            parse(parser, path);
+        }
+        long start = System.nanoTime();
+        for(int i=0; i<repetitions; i++){
+            parse(parser, path);
+        }
+        return (System.nanoTime() - start) / 1e6 / repetitions;
+    }
+
+    private static boolean equal(VrpProblem a, VrpProblem b){
+        if(a.getDimensions() != b.getDimensions() || a.getProblemMetric() != b.getProblemMetric()
+                || a.getBestKnownSolution() != b.getBestKnownSolution()
+                || !a.getDepot().getLocation().getLatitude().equals(b.getDepot().getLocation().getLatitude())
+                || !a.getDepot().getLocation().getLongitude().equals(b.getDepot().getLocation().getLongitude())
+                || a.getClients().size() != b.getClients().size())
+            return false;
+        Iterator<Client> clientsB = b.getClients().iterator();
+        for(Client ca : a.getClients()){
+            Client cb = clientsB.next();
+            if(!ca.getId().equals(cb.getId()) || !ca.getAmount().equals(cb.getAmount())
+                    || !ca.getLocation().getLatitude().equals(cb.getLocation().getLatitude())
+                    || !ca.getLocation().getLongitude().equals(cb.getLocation().getLongitude()))
+                return false;
+        }
+        DistanceMatrix ma = a.getDistanceMatrix();
+        DistanceMatrix mb = b.getDistanceMatrix();
+        if(ma == null || mb == null)
+            return ma == mb;
+        for(int i=0; i<ma.getDimensions(); i++){
+            for(int j=0; j<ma.getDimensions(); j++){
+                if(Double.doubleToLongBits(ma.getDistance(i, j)) != Double.doubleToLongBits(mb.getDistance(i, j)))
+                    return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,120 @@
+package compression.input;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Input stream that reads (and decodes) the source stream on a separate thread. Decoded chunks are passed through a
+ * bounded queue, so reading the file, decoding and parsing overlap.
+ */
+public class BackgroundDecodingInputStream extends InputStream {
+    private static final byte[] END = new byte[0];
+
+    private final InputStream source;
+    private final BlockingQueue<byte[]> chunks;
+    private final Thread decoder;
+    private volatile IOException failure;
+    private byte[] chunk = new byte[0];
+    private int position;
+    private boolean finished;
+
+    /**
+     * Initializes a new instance of stream and starts decoding thread.
+     * @param source Source (decoding) stream.
+     * @param chunkSize Size of chunk passed between threads.
+     * @param queueCapacity Maximal number of decoded chunks waiting for the reader.
+     */
+    public BackgroundDecodingInputStream(InputStream source, int chunkSize, int queueCapacity){
+        this.source = source;
+        this.chunks = new ArrayBlockingQueue<>(queueCapacity);
+        this.decoder = new Thread(() -> decode(chunkSize), "input-decoder");
+        this.decoder.setDaemon(true);
+        this.decoder.start();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if(!ensureChunk())
+            return -1;
+        return chunk[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if(length == 0)
+            return 0;
+        if(!ensureChunk())
+            return -1;
+        int count = Math.min(length, chunk.length - position);
+        System.arraycopy(chunk, position, buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    /**
+     * Stops decoding thread and closes the source stream.
+     * @throws IOException When closing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        decoder.interrupt();
+        try {
+            decoder.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        source.close();
+    }
+
+    private boolean ensureChunk() throws IOException {
+        while(position == chunk.length){
+            if(finished)
+                return false;
+            try {
+                chunk = chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for decoded data");
+            }
+            position = 0;
+            if(chunk == END){
+                finished = true;
+                if(failure != null)
+                    throw failure;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void decode(int chunkSize){
+        try {
+            byte[] buffer = new byte[chunkSize];
+            int count = 0;
+            int read;
+            while((read = source.read(buffer, count, chunkSize - count)) != -1){
+                count += read;
+                if(count == chunkSize){
+                    chunks.put(buffer);
+                    buffer = new byte[chunkSize];
+                    count = 0;
+                }
+            }
+            if(count > 0)
+                chunks.put(Arrays.copyOf(buffer, count));
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            return;
+        }
+        try {
+            chunks.put(END);
+        } catch (InterruptedException ignored) {
+        }
+    }
+}
@@ -4,16 +4,26 @@ import compression.model.vrp.VrpProblem;
 import compression.input.parsing.IParser;
 import lombok.RequiredArgsConstructor;
 
+import java.io.BufferedInputStream;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 /**
- * Implementation of problem parser.
+ * Implementation of problem parser. Files compressed with gzip or zlib (deflate) are detected by their header and
+ * decoded on a separate thread while they are parsed.
  * @param <TVrpProblem> Type of Vrp problem model.
  */
 @RequiredArgsConstructor
 public class VrpProblemReader<TVrpProblem> implements IProblemReader<TVrpProblem>{
 
+    private static final int DECODED_CHUNK_SIZE = 1 << 16;
+    private static final int DECODED_QUEUE_CAPACITY = 16;
+
     private final IParser<TVrpProblem> parser;
 
     /**
@@ -23,7 +33,8 @@ public class VrpProblemReader<TVrpProblem> implements IProblemReader<TVrpProblem
      */
     @Override
     public TVrpProblem readProblemInstanceFromResources(String resourceName) {
-        try(InputStream stream = VrpProblem.class.getResourceAsStream(resourceName)){
+        try(InputStream resource = VrpProblem.class.getResourceAsStream(resourceName);
+            InputStream stream = decode(new BufferedInputStream(resource))){
             return parser.parse(stream);
         }catch (Exception ex) {
             throw new LoadFileException(ex.getMessage(), ex);
@@ -37,10 +48,40 @@ public class VrpProblemReader<TVrpProblem> implements IProblemReader<TVrpProblem
      */
     @Override
     public TVrpProblem readProblemInstanceFromFile(String path){
-        try(InputStream stream = new FileInputStream(path)) {
+        try(FileInputStream file = new FileInputStream(path); InputStream stream = decode(file)) {
             return parser.parse(stream);
         } catch (Exception ex) {
             throw new LoadFileException(ex.getMessage(), ex);
         }
     }
+
+    private InputStream decode(FileInputStream stream) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(2);
+        FileChannel channel = stream.getChannel();
+        while(header.hasRemaining() && channel.read(header) != -1);
+        channel.position(0);
+        if(header.hasRemaining())
+            return stream;
+        return decode(stream, header.get(0) & 0xFF, header.get(1) & 0xFF);
+    }
+
+    private InputStream decode(BufferedInputStream stream) throws IOException {
+        stream.mark(2);
+        int first = stream.read();
+        int second = stream.read();
+        stream.reset();
+        return decode(stream, first, second);
+    }
+
+    private InputStream decode(InputStream stream, int first, int second) throws IOException {
+        InputStream decoded;
+        if(first == 0x1f && second == 0x8b){
+            decoded = new GZIPInputStream(stream, DECODED_CHUNK_SIZE);
+        } else if(first == 0x78 && ((first << 8) | second) % 31 == 0){
+            decoded = new InflaterInputStream(new BufferedInputStream(stream, DECODED_CHUNK_SIZE));
+        } else {
+            return stream;
+        }
+        return new BackgroundDecodingInputStream(decoded, DECODED_CHUNK_SIZE, DECODED_QUEUE_CAPACITY);
+    }
 }
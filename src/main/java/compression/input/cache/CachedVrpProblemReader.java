@@ -0,0 +1,88 @@
+package compression.input.cache;
+
+import compression.input.IProblemReader;
+import compression.model.vrp.VrpProblem;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.CRC32;
+
+/**
+ * Problem reader that keeps a binary copy of every parsed problem next to the source file. The binary copy is used
+ * instead of parsing as long as the checksum of the source file has not changed.
+ */
+@RequiredArgsConstructor
+public class CachedVrpProblemReader implements IProblemReader<VrpProblem> {
+    /**
+     * Extension appended to the source file path to get binary copy path.
+     */
+    public static final String CACHE_EXTENSION = ".cache";
+    private static final int CHECKSUM_BUFFER_SIZE = 1 << 16;
+
+    private final IProblemReader<VrpProblem> reader;
+    private final VrpProblemBinarySerializer serializer;
+
+    /**
+     * Reads VRP problem from resource file. Resources are not cached.
+     * @param resourceName Name of resource.
+     * @return VRP problem.
+     */
+    @Override
+    public VrpProblem readProblemInstanceFromResources(String resourceName) {
+        return reader.readProblemInstanceFromResources(resourceName);
+    }
+
+    /**
+     * Reads VRP problem instance from a file. Uses the binary copy if it is up to date, otherwise parses the file and
+     * writes a new binary copy. When the checksum of the source file cannot be computed, the file is parsed without
+     * the binary copy.
+     * @param path File path.
+     * @return VRP problem.
+     */
+    @Override
+    public VrpProblem readProblemInstanceFromFile(String path) {
+        Path source = Paths.get(path);
+        Path cache = Paths.get(path + CACHE_EXTENSION);
+        long checksum;
+        try {
+            checksum = checksum(source);
+        } catch (Exception ex) {
+            System.out.println("Unable to compute checksum of source file, parsing without cache: "+ex);
+            return reader.readProblemInstanceFromFile(path);
+        }
+        try {
+            if(Files.exists(cache)){
+                Long cachedChecksum = serializer.readSourceChecksum(cache);
+                if(cachedChecksum != null && cachedChecksum == checksum)
+                    return serializer.read(cache);
+            }
+        } catch (Exception ex) {
+            System.out.println("Unable to read cached problem, parsing source file: "+ex);
+        }
+        VrpProblem problem = reader.readProblemInstanceFromFile(path);
+        try {
+            serializer.write(problem, cache, checksum);
+        } catch (IOException ex) {
+            System.out.println("Unable to write cached problem: "+ex);
+        }
+        return problem;
+    }
+
+    private long checksum(Path path) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[CHECKSUM_BUFFER_SIZE];
+        long size = 0;
+        try(InputStream stream = Files.newInputStream(path)){
+            int read;
+            while((read = stream.read(buffer)) != -1){
+                crc.update(buffer, 0, read);
+                size += read;
+            }
+        }
+        return crc.getValue() ^ (size << 32);
+    }
+}
@@ -0,0 +1,175 @@
+package compression.input.cache;
+
+import compression.model.vrp.*;
+import compression.services.distance.IDistanceMatrixFactory;
+import lombok.RequiredArgsConstructor;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes and reads compact binary form of parsed VRP problem. The file consists of a header (with checksum of the
+ * source file), problem data, clients with demands and raw block of distances.
+ */
+@RequiredArgsConstructor
+public class VrpProblemBinarySerializer {
+    private static final int MAGIC = 0x56525042; //VRPB
+    private static final int VERSION = 1;
+    private static final byte NO_MATRIX = 0;
+    private static final byte FULL_MATRIX = 1;
+    private static final byte SYMMETRICAL_MATRIX = 2;
+
+    private final IDistanceMatrixFactory distanceMatrixFactory;
+
+    /**
+     * Writes the problem to a binary file.
+     * @param problem VRP problem.
+     * @param path Binary file path.
+     * @param sourceChecksum Checksum of the source file.
+     * @throws IOException When writing fails.
+     */
+    public void write(VrpProblem problem, Path path, long sourceChecksum) throws IOException {
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path.toFile())))){
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(sourceChecksum);
+            writeString(out, problem.getProblemName());
+            out.writeDouble(problem.getBestKnownSolution());
+            out.writeInt(problem.getDimensions());
+            out.writeInt(problem.getProblemMetric().ordinal());
+            out.writeInt(problem.getVehicles().size());
+            for(Vehicle v : problem.getVehicles()){
+                out.writeLong(v.getId());
+                out.writeInt(v.getCapacity());
+            }
+            out.writeLong(problem.getDepot().getId());
+            writeLocation(out, problem.getDepot().getLocation());
+            out.writeInt(problem.getClients().size());
+            for(Client c : problem.getClients()){
+                out.writeLong(c.getId());
+                out.writeDouble(c.getAmount());
+                out.writeDouble(c.getTime());
+                writeLocation(out, c.getLocation());
+            }
+            writeMatrix(out, problem.getDistanceMatrix());
+        }
+    }
+
+    /**
+     * Reads the checksum of the source file stored in binary file header.
+     * @param path Binary file path.
+     * @return Checksum of the source file or null when the file is not a valid binary problem file.
+     * @throws IOException When reading fails.
+     */
+    public Long readSourceChecksum(Path path) throws IOException {
+        try(DataInputStream in = new DataInputStream(new FileInputStream(path.toFile()))){
+            if(in.readInt() != MAGIC || in.readInt() != VERSION)
+                return null;
+            return in.readLong();
+        } catch (EOFException e){
+            return null;
+        }
+    }
+
+    /**
+     * Reads the problem from a binary file. The file is mapped into memory and read in bulk.
+     * @param path Binary file path.
+     * @return VRP problem.
+     * @throws IOException When reading fails.
+     */
+    public VrpProblem read(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if(buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+                throw new IOException("Invalid binary problem file "+path);
+            buffer.getLong();
+            String name = readString(buffer);
+            double bestKnown = buffer.getDouble();
+            int dimensions = buffer.getInt();
+            VrpProblemMetric metric = VrpProblemMetric.values()[buffer.getInt()];
+            int vehicleCount = buffer.getInt();
+            List<Vehicle> vehicles = new ArrayList<>(vehicleCount);
+            for(int i=0; i<vehicleCount; i++){
+                vehicles.add(new Vehicle(buffer.getLong(), buffer.getInt()));
+            }
+            Depot depot = new Depot(buffer.getLong(), readLocation(buffer));
+            int clientCount = buffer.getInt();
+            List<Client> clients = new ArrayList<>(clientCount);
+            for(int i=0; i<clientCount; i++){
+                clients.add(new Client(buffer.getLong(), buffer.getDouble(), buffer.getDouble(), readLocation(buffer)));
+            }
+            DistanceMatrix matrix = readMatrix(buffer);
+            return new VrpProblem(name, bestKnown, dimensions, metric, clients, vehicles, depot, matrix);
+        }
+    }
+
+    private void writeMatrix(DataOutputStream out, DistanceMatrix matrix) throws IOException {
+        if(matrix == null){
+            out.writeByte(NO_MATRIX);
+            return;
+        }
+        boolean symmetrical = matrix instanceof SymmetricalDistanceMatrix || matrix instanceof MappedSymmetricalDistanceMatrix;
+        int dimensions = matrix.getDimensions();
+        out.writeByte(symmetrical ? SYMMETRICAL_MATRIX : FULL_MATRIX);
+        out.writeInt(dimensions);
+        ByteBuffer row = ByteBuffer.allocate(dimensions*8).order(ByteOrder.nativeOrder());
+        for(int i=0; i<dimensions; i++){
+            row.clear();
+            int length = symmetrical ? i+1 : dimensions;
+            for(int j=0; j<length; j++){
+                row.putDouble(matrix.getDistance(i, j));
+            }
+            out.write(row.array(), 0, row.position());
+        }
+    }
+
+    private DistanceMatrix readMatrix(ByteBuffer buffer){
+        byte type = buffer.get();
+        if(type == NO_MATRIX)
+            return null;
+        boolean symmetrical = type == SYMMETRICAL_MATRIX;
+        int dimensions = buffer.getInt();
+        DistanceMatrix matrix = symmetrical ? distanceMatrixFactory.createSymmetrical(dimensions) : distanceMatrixFactory.create(dimensions);
+        DoubleBuffer values = buffer.slice().order(ByteOrder.nativeOrder()).asDoubleBuffer();
+        for(int i=0; i<dimensions; i++){
+            int length = symmetrical ? i+1 : dimensions;
+            for(int j=0; j<length; j++){
+                matrix.setDistance(i, j, values.get());
+            }
+        }
+        return matrix;
+    }
+
+    private void writeLocation(DataOutputStream out, Location location) throws IOException {
+        out.writeDouble(location.getLatitude());
+        out.writeDouble(location.getLongitude());
+    }
+
+    private Location readLocation(ByteBuffer buffer){
+        return new Location(buffer.getDouble(), buffer.getDouble());
+    }
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(value == null ? -1 : bytes.length);
+        out.write(bytes);
+    }
+
+    private String readString(ByteBuffer buffer){
+        int length = buffer.getInt();
+        if(length < 0)
+            return null;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,212 @@
+package compression.input.parsing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Byte-level scanner that reads numbers directly from a byte buffer, without creating a String for each token. The
+ * buffer is either refilled from a channel or holds the whole content (e.g. a mapped file or its part).
+ */
+public class ByteBufferScanner {
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final int MAX_TOKEN_LENGTH = 64;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final char[] token = new char[MAX_TOKEN_LENGTH];
+
+    /**
+     * Initializes a new instance of scanner that reads data from a channel.
+     * @param channel Input channel.
+     * @param bufferSize Size of the internal buffer.
+     */
+    public ByteBufferScanner(ReadableByteChannel channel, int bufferSize){
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        this.buffer.flip();
+    }
+
+    /**
+     * Initializes a new instance of scanner that reads data from the remaining bytes of the buffer.
+     * @param buffer Buffer with data.
+     */
+    public ByteBufferScanner(ByteBuffer buffer){
+        this.channel = null;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Gets the current position in the buffer.
+     * @return Position in the buffer.
+     */
+    public int position(){
+        return buffer.position();
+    }
+
+    /**
+     * Moves the scanner to the given position in the buffer. Buffered data is kept, so the position should be taken
+     * from position() and only used when the buffer holds the whole content.
+     * @param position New position in the buffer.
+     */
+    public void position(int position){
+        buffer.position(position);
+    }
+
+    /**
+     * Skips whitespace characters.
+     * @return False when the end of data was reached.
+     * @throws IOException When reading fails.
+     */
+    public boolean skipWhitespace() throws IOException {
+        int c;
+        while((c = peek()) != -1){
+            if(c != ' ' && c != '\t' && c != '\r' && c != '\n')
+                return true;
+            buffer.position(buffer.position()+1);
+        }
+        return false;
+    }
+
+    /**
+     * Reads the rest of the current line.
+     * @return Line without line terminator or null when the end of data was reached.
+     * @throws IOException When reading fails.
+     */
+    public String readLine() throws IOException {
+        if(peek() == -1)
+            return null;
+        StringBuilder builder = new StringBuilder();
+        int c;
+        while((c = peek()) != -1){
+            buffer.position(buffer.position()+1);
+            if(c == '\n')
+                break;
+            if(c != '\r')
+                builder.append((char)c);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Reads next integer number.
+     * @return Parsed number.
+     * @throws IOException When reading fails.
+     */
+    public int nextInt() throws IOException {
+        long value = nextLong();
+        if(value > Integer.MAX_VALUE || value < Integer.MIN_VALUE)
+            throw new ParsingException("Integer value out of range: "+value);
+        return (int)value;
+    }
+
+    /**
+     * Reads next long number.
+     * @return Parsed number.
+     * @throws IOException When reading fails.
+     */
+    public long nextLong() throws IOException {
+        if(!skipWhitespace())
+            throw new ParsingException("Unexpected end of data");
+        boolean negative = false;
+        int c = peek();
+        if(c == '-' || c == '+'){
+            negative = c == '-';
+            buffer.position(buffer.position()+1);
+        }
+        long value = 0;
+        int digits = 0;
+        while((c = peek()) >= '0' && c <= '9'){
+            value = value*10 + (c - '0');
+            digits++;
+            buffer.position(buffer.position()+1);
+        }
+        if(digits == 0 || digits > 18 || !isDelimiter(c))
+            throw new ParsingException("Invalid integer value");
+        return negative ? -value : value;
+    }
+
+    /**
+     * Reads next decimal number. The result is the same as the result of Double.parseDouble for the token.
+     * @return Parsed number.
+     * @throws IOException When reading fails.
+     */
+    public double nextDouble() throws IOException {
+        if(!skipWhitespace())
+            throw new ParsingException("Unexpected end of data");
+        int length = 0;
+        boolean negative = false;
+        long mantissa = 0;
+        int significant = 0;
+        int scale = 0;
+        boolean dot = false;
+        boolean exact = true;
+        int c = peek();
+        if(c == '-' || c == '+'){
+            negative = c == '-';
+            length = append(c, length);
+        }
+        while(!isDelimiter(c = peek())){
+            if(c >= '0' && c <= '9'){
+                if(significant < 18){
+                    mantissa = mantissa*10 + (c - '0');
+                    if(mantissa != 0)
+                        significant++;
+                    if(dot)
+                        scale++;
+                } else {
+                    exact = false;
+                }
+            } else if(c == '.' && !dot){
+                dot = true;
+            } else {
+                exact = false;
+            }
+            length = append(c, length);
+        }
+        if(length == 0 || length > MAX_TOKEN_LENGTH)
+            throw new ParsingException("Invalid decimal value");
+        if(exact && mantissa < MAX_EXACT_MANTISSA && scale < POWERS_OF_TEN.length){
+            double value = scale == 0 ? (double)mantissa : mantissa / POWERS_OF_TEN[scale];
+            return negative ? -value : value;
+        }
+        try {
+            return Double.parseDouble(new String(token, 0, length));
+        } catch (NumberFormatException e){
+            throw new ParsingException("Invalid decimal value", e);
+        }
+    }
+
+    private int append(int c, int length){
+        if(length < MAX_TOKEN_LENGTH)
+            token[length] = (char)c;
+        buffer.position(buffer.position()+1);
+        return length+1;
+    }
+
+    private static boolean isDelimiter(int c){
+        return c == -1 || c == ' ' || c == '\t' || c == '\r' || c == '\n';
+    }
+
+    private int peek() throws IOException {
+        if(!buffer.hasRemaining() && !fill())
+            return -1;
+        return buffer.get(buffer.position()) & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        if(channel == null)
+            return false;
+        buffer.compact();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+        buffer.flip();
+        return read > 0;
+    }
+}
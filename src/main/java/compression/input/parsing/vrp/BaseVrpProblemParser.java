@@ -0,0 +1,259 @@
+package compression.input.parsing.vrp;
+
+import compression.input.parsing.ParsingException;
+import compression.model.vrp.*;
+import compression.services.distance.IDistanceMatrixFactory;
+
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Serves common methods for parsing VRP problem instance. Header lines are handled here, data sections are read by
+ * a section reader given by the implementation.
+ */
+public abstract class BaseVrpProblemParser implements IVrpProblemParser {
+
+    /**
+     * Reads header lines and data sections of VRP problem instance.
+     */
+    protected interface ISectionReader {
+        /**
+         * Reads next line.
+         * @return Line or null when there are no more lines.
+         * @throws IOException When reading fails.
+         */
+        String readLine() throws IOException;
+
+        /**
+         * Reads EDGE_WEIGHT_SECTION in FULL_MATRIX format.
+         * @param dimensions Number of vertices.
+         * @return Distance matrix.
+         * @throws IOException When reading fails.
+         */
+        DistanceMatrix readFullMatrix(int dimensions) throws IOException;
+
+        /**
+         * Reads EDGE_WEIGHT_SECTION in LOWER_ROW format.
+         * @param dimensions Number of vertices.
+         * @return Symmetrical distance matrix.
+         * @throws IOException When reading fails.
+         */
+        DistanceMatrix readLowerRowMatrix(int dimensions) throws IOException;
+
+        /**
+         * Reads NODE_COORD_SECTION.
+         * @param dimensions Number of vertices.
+         * @return Locations of vertices.
+         * @throws IOException When reading fails.
+         */
+        Location[] readLocations(int dimensions) throws IOException;
+
+        /**
+         * Reads DEMAND_SECTION.
+         * @param dimensions Number of vertices.
+         * @return Demands of vertices.
+         * @throws IOException When reading fails.
+         */
+        double[] readDemands(int dimensions) throws IOException;
+
+        /**
+         * Reads DEPOT_SECTION.
+         * @return Ids of depots.
+         * @throws IOException When reading fails.
+         */
+        List<Integer> readDepots() throws IOException;
+    }
+
+    /**
+     * Format of EDGE_WEIGHT_SECTION.
+     */
+    protected enum EdgeWeightFormat{
+        UNKNOWN,
+        LOWER_ROW,
+        FULL_MATRIX
+    }
+
+    /**
+     * Factory used to create parsed distance matrices.
+     */
+    protected final IDistanceMatrixFactory distanceMatrixFactory;
+
+    /**
+     * Initializes a new instance of BaseVrpProblemParser.
+     * @param distanceMatrixFactory Factory used to create parsed distance matrices.
+     */
+    protected BaseVrpProblemParser(IDistanceMatrixFactory distanceMatrixFactory){
+        this.distanceMatrixFactory = distanceMatrixFactory;
+    }
+
+    /**
+     * Parses VRP problem instance using the given section reader.
+     * @param reader Section reader.
+     * @return VRP problem instance.
+     * @throws IOException When reading fails.
+     */
+    protected VrpProblem parseSections(ISectionReader reader) throws IOException {
+        String line;
+        String name = null;
+        Double bestSolution = 0.0;
+        Integer capacity = 0;
+        Integer dimensions = 0;
+        DistanceMatrix distanceMatrix = null;
+        VrpProblemMetric metric = VrpProblemMetric.Unknown;
+        EdgeWeightFormat format = EdgeWeightFormat.UNKNOWN;
+        Location[] locations = null;
+        double[] demands = null;
+        List<Integer> depotIds = null;
+        while((line = reader.readLine()) != null){
+            if(line.startsWith("NAME")){
+                name = parseName(line);
+            }
+            else if(line.startsWith("COMMENT")){
+                bestSolution = parseBestKnownSolution(line);
+            }
+            else if(line.startsWith("DIMENSION")){
+                dimensions = parseDimensions(line);
+            }
+            else if(line.startsWith("CAPACITY")){
+                capacity = parseCapacity(line);
+            }
+            else if(line.startsWith("EDGE_WEIGHT_FORMAT")){
+                format = parseEdgeWeightFormat(line);
+            }
+            else if(line.startsWith("EDGE_WEIGHT_TYPE")){
+                metric = parseMetrics(line);
+            }
+            else if(line.startsWith("EDGE_WEIGHT_SECTION")){
+                if(metric != VrpProblemMetric.Explicit && metric != VrpProblemMetric.Map)
+                    throw new ParsingException("EDGE_WEIGHT_SECTION is supported only when EDGE_WEIGHT_TYPE is set to EXPLICIT");
+                else{
+                    if(format == EdgeWeightFormat.UNKNOWN) {
+                        throw new ParsingException("Unknown edge weight format");
+                    } else if(format == EdgeWeightFormat.FULL_MATRIX){
+                        distanceMatrix = reader.readFullMatrix(dimensions);
+                    } else if(format == EdgeWeightFormat.LOWER_ROW){
+                        distanceMatrix = reader.readLowerRowMatrix(dimensions);
+                    }
+                    if(locations != null){
+                        metric = VrpProblemMetric.Map;
+                    }
+                }
+            }
+            else if(line.startsWith("NODE_COORD_SECTION")){
+                if(dimensions == 0)
+                    throw new ParsingException("Invalid dimensions");
+                if(metric == VrpProblemMetric.Explicit)
+                    metric = VrpProblemMetric.Map;
+                locations = reader.readLocations(dimensions);
+            }
+            else if(line.startsWith("DEMAND_SECTION")){
+                if(dimensions == 0)
+                    throw new ParsingException("Invalid dimensions");
+                demands = reader.readDemands(dimensions);
+            }
+            else if(line.startsWith("DEPOT_SECTION")){
+                depotIds = reader.readDepots();
+            }
+            else if(line.equals("EOF")){
+                break;
+            }
+        }
+        List<Vehicle> vehicles = convertVehicle(capacity);
+        if(depotIds.size() != 1){
+            throw new ParsingException("Only one depot is supported");
+        }
+        Depot depot = null;
+        List<Client> clients = new LinkedList<>();
+        if(metric == VrpProblemMetric.Explicit){
+            if(locations==null){
+                depot = new Depot(1L, new Location(1.0,1.0));
+                Long clId = 2L;
+                for(int i = 1; i< dimensions; i++){
+                    clients.add(new Client(clId, demands[i], 0.0, new Location(clId.doubleValue(), clId.doubleValue())));
+                    clId++;
+                }
+            }
+            else{
+                depot = new Depot(1L, locations[0]);
+                Long clId = 2L;
+                for(int i = 1; i< dimensions; i++){
+                    clients.add(new Client(clId, demands[i], 0.0, locations[i]));
+                    clId++;
+                }
+            }
+        } else {
+            depot = convertDepot(depotIds.get(0), locations);
+            clients = convertClients(depotIds.get(0), demands, locations);
+        }
+        return new VrpProblem(name, bestSolution, dimensions, metric, clients, vehicles, depot, distanceMatrix);
+    }
+
+    private String parseName(String line){
+        return line.split("\\s+:\\s+")[1].trim();
+    }
+
+    private Double parseBestKnownSolution(String line){
+        String[] split = line.split("\\s*:\\s*");
+        String bestKnown = split[split.length-1].trim().replace(")", "");
+        try{
+            return Double.parseDouble(bestKnown);
+        } catch(Exception ex) {
+            return 0.0;
+        }
+    }
+
+    private Integer parseCapacity(String line){
+        return Integer.parseInt(line.split("\\s+:\\s+")[1].trim());
+    }
+
+    private Integer parseDimensions(String line){
+        return Integer.parseInt(line.split("\\s+:\\s+")[1].trim());
+    }
+
+    private VrpProblemMetric parseMetrics(String line){
+        String metric = line.split("\\s+:\\s+")[1].trim();
+        if(metric.startsWith("EXPLICIT")){
+            return VrpProblemMetric.Explicit;
+        }
+        if(metric.startsWith("EUC_2D")){
+            return VrpProblemMetric.Euclidean;
+        }
+        throw new ParsingException("Not supported problem metrics");
+    }
+
+    private EdgeWeightFormat parseEdgeWeightFormat(String line){
+        String format = line.split("\\s*:\\s*")[1].trim();
+        if(format.compareTo("FULL_MATRIX")==0)
+            return EdgeWeightFormat.FULL_MATRIX;
+        else if(format.compareTo("LOWER_ROW")==0)
+            return EdgeWeightFormat.LOWER_ROW;
+        return EdgeWeightFormat.UNKNOWN;
+    }
+
+    private List<Vehicle> convertVehicle(Integer capacity){
+        Vehicle v = new Vehicle(1L, capacity);
+        List<Vehicle> list = new LinkedList<>();
+        list.add(v);
+        return list;
+    }
+
+    private Depot convertDepot(Integer depotLocationId, Location[] locations){
+        return new Depot(1L, locations[depotLocationId-1]);
+    }
+
+    private List<Client> convertClients(Integer depotLocationId, double[] demands, Location[] locations){
+        List<Client> clients = new LinkedList<>();
+        Long id = 2L;
+        for(int i=0; i<demands.length; i++){
+            if(i == depotLocationId-1){
+                if(demands[i]>0)
+                    throw new ParsingException("Cannot set demand to depot");
+                continue;
+            }
+            clients.add(new Client(id, demands[i], 0.0, locations[i]));
+            id++;
+        }
+        return clients;
+    }
+}
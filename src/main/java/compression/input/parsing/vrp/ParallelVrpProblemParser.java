@@ -0,0 +1,162 @@
+package compression.input.parsing.vrp;
+
+import compression.input.parsing.ByteBufferScanner;
+import compression.input.parsing.ParsingException;
+import compression.model.vrp.DistanceMatrix;
+import compression.model.vrp.VrpProblem;
+import compression.services.distance.IDistanceMatrixFactory;
+import lombok.RequiredArgsConstructor;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Implementation of parser that maps the problem file into memory and parses rows of FULL_MATRIX edge weight section
+ * in parallel. Other sections, streams that are not files and files larger than 2 GB are parsed sequentially.
+ */
+public class ParallelVrpProblemParser extends StreamingVrpProblemParser implements IVrpProblemParser {
+    private static final int MIN_PARALLEL_DIMENSIONS = 256;
+    private static final int VALUES_PER_TASK = 1 << 16;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Initializes a new instance of ParallelVrpProblemParser that uses the common pool.
+     * @param distanceMatrixFactory Factory used to create parsed distance matrices.
+     */
+    public ParallelVrpProblemParser(IDistanceMatrixFactory distanceMatrixFactory){
+        this(distanceMatrixFactory, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Initializes a new instance of ParallelVrpProblemParser.
+     * @param distanceMatrixFactory Factory used to create parsed distance matrices.
+     * @param pool Pool on which rows of distance matrix are parsed.
+     */
+    public ParallelVrpProblemParser(IDistanceMatrixFactory distanceMatrixFactory, ForkJoinPool pool){
+        super(distanceMatrixFactory);
+        this.pool = pool;
+    }
+
+    /**
+     * Parses VRP problem instance.
+     * @param stream Input stream.
+     * @return VRP problem instance.
+     */
+    @Override
+    public VrpProblem parse(InputStream stream) {
+        if(!(stream instanceof FileInputStream))
+            return super.parse(stream);
+        try(FileChannel channel = ((FileInputStream) stream).getChannel()){
+            if(channel.size() > Integer.MAX_VALUE)
+                return super.parse(stream);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return parseSections(new MappedSectionReader(buffer));
+        } catch (IOException e) {
+            throw new ParsingException(e.getMessage(), e);
+        }
+    }
+
+    private class MappedSectionReader extends ScannerSectionReader {
+        private final ByteBuffer buffer;
+
+        MappedSectionReader(ByteBuffer buffer){
+            super(new ByteBufferScanner(buffer.duplicate()));
+            this.buffer = buffer;
+        }
+
+        /**
+         * Reads FULL_MATRIX section with one row per line. Row boundaries are found first and then the rows are
+         * parsed on the pool. When the section does not have one row per line, it is read sequentially.
+         * @param dimensions Number of vertices.
+         * @return Distance matrix.
+         * @throws IOException When reading fails.
+         */
+        @Override
+        public DistanceMatrix readFullMatrix(int dimensions) throws IOException {
+            if(dimensions < MIN_PARALLEL_DIMENSIONS)
+                return super.readFullMatrix(dimensions);
+            int start = scanner.position();
+            int[] rowStarts = findRowStarts(start, dimensions);
+            if(rowStarts != null){
+                DistanceMatrix distanceMatrix = distanceMatrixFactory.create(dimensions);
+                int rowsPerTask = Math.max(1, VALUES_PER_TASK / dimensions);
+                try {
+                    pool.invoke(new ParseRowsTask(distanceMatrix, rowStarts, 0, dimensions, rowsPerTask));
+                    scanner.position(rowStarts[dimensions]);
+                    return distanceMatrix;
+                } catch (ParsingException | UncheckedIOException ex) {
+                    DistanceMatrix.release(distanceMatrix);
+                    scanner.position(start);
+                }
+            }
+            return super.readFullMatrix(dimensions);
+        }
+
+        private int[] findRowStarts(int start, int rows){
+            int[] rowStarts = new int[rows+1];
+            int limit = buffer.limit();
+            int position = start;
+            for(int row=0; row<=rows; row++){
+                while(position < limit && isWhitespace(buffer.get(position)))
+                    position++;
+                if(row == rows){
+                    rowStarts[row] = position;
+                    break;
+                }
+                if(position == limit)
+                    return null;
+                rowStarts[row] = position;
+                while(position < limit && buffer.get(position) != '\n')
+                    position++;
+            }
+            return rowStarts;
+        }
+
+        private boolean isWhitespace(byte c){
+            return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+        }
+
+        @RequiredArgsConstructor
+        private class ParseRowsTask extends RecursiveAction {
+            private final DistanceMatrix distanceMatrix;
+            private final int[] rowStarts;
+            private final int from;
+            private final int to;
+            private final int rowsPerTask;
+
+            @Override
+            protected void compute() {
+                if(to - from > rowsPerTask){
+                    int middle = (from + to) >>> 1;
+                    invokeAll(new ParseRowsTask(distanceMatrix, rowStarts, from, middle, rowsPerTask),
+                            new ParseRowsTask(distanceMatrix, rowStarts, middle, to, rowsPerTask));
+                    return;
+                }
+                int dimensions = distanceMatrix.getDimensions();
+                ByteBuffer rows = buffer.duplicate();
+                rows.limit(rowStarts[to]).position(rowStarts[from]);
+                ByteBufferScanner rowScanner = new ByteBufferScanner(rows);
+                try {
+                    for(int i=from; i<to; i++){
+                        rows.limit(rowStarts[i+1]);
+                        for(int j=0; j<dimensions; j++){
+                            distanceMatrix.setDistance(i, j, rowScanner.nextDouble());
+                        }
+                        if(rowScanner.skipWhitespace())
+                            throw new ParsingException("Invalid distance matrix row "+(i+1));
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+}
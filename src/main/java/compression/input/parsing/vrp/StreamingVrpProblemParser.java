@@ -0,0 +1,131 @@
+package compression.input.parsing.vrp;
+
+import compression.input.parsing.ByteBufferScanner;
+import compression.input.parsing.ParsingException;
+import compression.model.vrp.DistanceMatrix;
+import compression.model.vrp.Location;
+import compression.model.vrp.VrpProblem;
+import compression.services.distance.DistanceMatrixFactory;
+import compression.services.distance.IDistanceMatrixFactory;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation of parser that parses VRP problem instance. Data sections are scanned byte by byte and numbers are
+ * stored directly into distance matrix and primitive arrays, without creating a String for every value.
+ */
+public class StreamingVrpProblemParser extends BaseVrpProblemParser implements IVrpProblemParser {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Initializes a new instance of StreamingVrpProblemParser that stores distance matrices on the heap.
+     */
+    public StreamingVrpProblemParser(){
+        this(new DistanceMatrixFactory());
+    }
+
+    /**
+     * Initializes a new instance of StreamingVrpProblemParser.
+     * @param distanceMatrixFactory Factory used to create parsed distance matrices.
+     */
+    public StreamingVrpProblemParser(IDistanceMatrixFactory distanceMatrixFactory){
+        super(distanceMatrixFactory);
+    }
+
+    /**
+     * Parses VRP problem instance.
+     * @param stream Input stream.
+     * @return VRP problem instance.
+     */
+    @Override
+    public VrpProblem parse(InputStream stream) {
+        try(ReadableByteChannel channel = Channels.newChannel(stream)){
+            return parseSections(new ScannerSectionReader(new ByteBufferScanner(channel, BUFFER_SIZE)));
+        } catch (IOException e) {
+            throw new ParsingException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Section reader that reads data sections with a byte scanner.
+     */
+    @RequiredArgsConstructor
+    protected class ScannerSectionReader implements ISectionReader {
+        /**
+         * Scanner positioned at the current line.
+         */
+        protected final ByteBufferScanner scanner;
+
+        @Override
+        public String readLine() throws IOException {
+            return scanner.readLine();
+        }
+
+        @Override
+        public DistanceMatrix readFullMatrix(int dimensions) throws IOException {
+            DistanceMatrix distanceMatrix = distanceMatrixFactory.create(dimensions);
+            for(int i=0; i<dimensions; i++){
+                for(int j=0; j<dimensions; j++){
+                    distanceMatrix.setDistance(i, j, scanner.nextDouble());
+                }
+            }
+            return distanceMatrix;
+        }
+
+        @Override
+        public DistanceMatrix readLowerRowMatrix(int dimensions) throws IOException {
+            DistanceMatrix distanceMatrix = distanceMatrixFactory.createSymmetrical(dimensions);
+            for(int from=0; from<dimensions; from++){
+                for(int to=from+1; to<dimensions; to++){
+                    distanceMatrix.setDistance(from, to, scanner.nextDouble());
+                }
+            }
+            return distanceMatrix;
+        }
+
+        @Override
+        public Location[] readLocations(int dimensions) throws IOException {
+            Location[] locations = new Location[dimensions];
+            for(int i=1; i<=dimensions; i++){
+                int id = scanner.nextInt();
+                double latitude = scanner.nextDouble();
+                double longitude = scanner.nextDouble();
+                if(id != i)
+                    throw new ParsingException("Invalid location id");
+                locations[i-1] = new Location(latitude, longitude);
+            }
+            return locations;
+        }
+
+        @Override
+        public double[] readDemands(int dimensions) throws IOException {
+            double[] demands = new double[dimensions];
+            for(int i=1; i<=dimensions; i++){
+                int id = scanner.nextInt();
+                double demand = scanner.nextDouble();
+                if(id != i)
+                    throw new ParsingException("Invalid demand id");
+                demands[i-1] = demand;
+            }
+            return demands;
+        }
+
+        @Override
+        public List<Integer> readDepots() throws IOException {
+            List<Integer> depotIds = new ArrayList<>();
+            while(scanner.skipWhitespace()){
+                int id = scanner.nextInt();
+                if(id < 0)
+                    break;
+                depotIds.add(id);
+            }
+            return depotIds;
+        }
+    }
+}
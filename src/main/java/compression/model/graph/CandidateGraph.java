@@ -0,0 +1,93 @@
+package compression.model.graph;
+
+import java.util.Arrays;
+
+/**
+ * Sparse directed graph that holds only a subset of edges of a complete graph. For every vertex it remembers a bound
+ * below which all of its incoming edges are already present, so the missing edges can be accounted for without
+ * enumerating them.
+ */
+public class CandidateGraph implements ICompactGraph {
+    private final int vertices;
+    private final double[] bounds;
+    private int edges;
+    private int[] sources;
+    private int[] targets;
+    private double[] weights;
+
+    /**
+     * Initializes a new instance of CandidateGraph without edges.
+     * @param vertices Number of vertices.
+     * @param expectedEdges Expected number of edges.
+     */
+    public CandidateGraph(int vertices, int expectedEdges){
+        int capacity = Math.max(expectedEdges, 16);
+        this.vertices = vertices;
+        this.bounds = new double[vertices];
+        this.sources = new int[capacity];
+        this.targets = new int[capacity];
+        this.weights = new double[capacity];
+    }
+
+    /**
+     * Adds an edge to the graph.
+     * @param source Source vertex.
+     * @param target Target vertex.
+     * @param weight Weight of the edge.
+     */
+    public void addEdge(int source, int target, double weight){
+        if(edges == sources.length){
+            int capacity = sources.length + (sources.length >> 1);
+            sources = Arrays.copyOf(sources, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+        }
+        sources[edges] = source;
+        targets[edges] = target;
+        weights[edges] = weight;
+        edges++;
+    }
+
+    /**
+     * Gets the bound on weights of missing edges entering the vertex. Every edge lighter than the bound is present.
+     * @param target Target vertex.
+     * @return Minimal possible weight of a missing incoming edge (infinity if all incoming edges are present).
+     */
+    public double getMissingWeightBound(int target){
+        return bounds[target];
+    }
+
+    /**
+     * Sets the bound on weights of missing edges entering the vertex.
+     * @param target Target vertex.
+     * @param bound Minimal possible weight of a missing incoming edge (infinity if all incoming edges are present).
+     */
+    public void setMissingWeightBound(int target, double bound){
+        bounds[target] = bound;
+    }
+
+    @Override
+    public int getVertexCount() {
+        return vertices;
+    }
+
+    @Override
+    public int getEdgeCount() {
+        return edges;
+    }
+
+    @Override
+    public int getEdgeSource(int edge) {
+        return sources[edge];
+    }
+
+    @Override
+    public int getEdgeTarget(int edge) {
+        return targets[edge];
+    }
+
+    @Override
+    public double getEdgeWeight(int edge) {
+        return weights[edge];
+    }
+}
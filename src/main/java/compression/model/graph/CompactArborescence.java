@@ -0,0 +1,18 @@
+package compression.model.graph;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Represents minimum spanning arborescence of a compact graph together with an optimality certificate. The potential
+ * of a vertex is the sum of dual values of all contracted vertex sets that contain it and not the root. Any edge
+ * (u, v) with weight at least the potential of v has non-negative reduced cost, so adding such edges to the graph
+ * can not improve the arborescence. In-edges are given by index (-1 for the root).
+ */
+@AllArgsConstructor
+public class CompactArborescence {
+    @Getter
+    private final int[] inEdges;
+    @Getter
+    private final double[] potentials;
+}
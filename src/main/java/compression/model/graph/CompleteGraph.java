@@ -0,0 +1,53 @@
+package compression.model.graph;
+
+import compression.model.vrp.DistanceMatrix;
+import lombok.Getter;
+
+/**
+ * Complete directed graph given implicitly by a distance matrix. Edge u*(n-1)+k goes from u to the k-th vertex
+ * other than u, so edges are ordered by source and then by target.
+ */
+public class CompleteGraph implements ICompactGraph {
+    @Getter
+    private final DistanceMatrix distanceMatrix;
+    private final int vertices;
+
+    /**
+     * Initializes a new instance of CompleteGraph.
+     * @param distanceMatrix Distance matrix that gives edge weights.
+     */
+    public CompleteGraph(DistanceMatrix distanceMatrix){
+        this.distanceMatrix = distanceMatrix;
+        this.vertices = distanceMatrix.getDimensions();
+    }
+
+    @Override
+    public int getVertexCount() {
+        return vertices;
+    }
+
+    @Override
+    public int getEdgeCount() {
+        long edges = (long)vertices*(vertices-1);
+        if(edges > Integer.MAX_VALUE)
+            throw new IllegalStateException("Too many edges in complete graph");
+        return (int)edges;
+    }
+
+    @Override
+    public int getEdgeSource(int edge) {
+        return edge / (vertices-1);
+    }
+
+    @Override
+    public int getEdgeTarget(int edge) {
+        int source = edge / (vertices-1);
+        int k = edge - source*(vertices-1);
+        return k < source ? k : k+1;
+    }
+
+    @Override
+    public double getEdgeWeight(int edge) {
+        return distanceMatrix.getDistance(getEdgeSource(edge), getEdgeTarget(edge));
+    }
+}
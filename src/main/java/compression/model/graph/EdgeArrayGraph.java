@@ -0,0 +1,52 @@
+package compression.model.graph;
+
+/**
+ * Directed graph that stores its edges in parallel primitive arrays.
+ */
+public class EdgeArrayGraph implements ICompactGraph {
+    private final int vertices;
+    private final int[] sources;
+    private final int[] targets;
+    private final double[] weights;
+
+    /**
+     * Initializes a new instance of EdgeArrayGraph. Arrays are not copied.
+     * @param vertices Number of vertices.
+     * @param sources Source vertex of every edge.
+     * @param targets Target vertex of every edge.
+     * @param weights Weight of every edge.
+     */
+    public EdgeArrayGraph(int vertices, int[] sources, int[] targets, double[] weights){
+        if(sources.length != targets.length || sources.length != weights.length)
+            throw new IllegalArgumentException("Edge arrays must have the same length");
+        this.vertices = vertices;
+        this.sources = sources;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    @Override
+    public int getVertexCount() {
+        return vertices;
+    }
+
+    @Override
+    public int getEdgeCount() {
+        return sources.length;
+    }
+
+    @Override
+    public int getEdgeSource(int edge) {
+        return sources[edge];
+    }
+
+    @Override
+    public int getEdgeTarget(int edge) {
+        return targets[edge];
+    }
+
+    @Override
+    public double getEdgeWeight(int edge) {
+        return weights[edge];
+    }
+}
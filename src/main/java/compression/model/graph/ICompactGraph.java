@@ -0,0 +1,40 @@
+package compression.model.graph;
+
+/**
+ * Represents a directed weighted graph with vertices 0..n-1 and edges 0..m-1 that are identified by their indices
+ * only, so no objects are created per vertex or edge.
+ */
+public interface ICompactGraph {
+    /**
+     * Gets the number of vertices.
+     * @return Number of vertices.
+     */
+    int getVertexCount();
+
+    /**
+     * Gets the number of edges.
+     * @return Number of edges.
+     */
+    int getEdgeCount();
+
+    /**
+     * Gets the source vertex of the edge.
+     * @param edge Edge index.
+     * @return Source vertex index.
+     */
+    int getEdgeSource(int edge);
+
+    /**
+     * Gets the target vertex of the edge.
+     * @param edge Edge index.
+     * @return Target vertex index.
+     */
+    int getEdgeTarget(int edge);
+
+    /**
+     * Gets the weight of the edge.
+     * @param edge Edge index.
+     * @return Edge weight.
+     */
+    double getEdgeWeight(int edge);
+}
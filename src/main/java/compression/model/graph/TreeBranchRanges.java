@@ -0,0 +1,44 @@
+package compression.model.graph;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Represents branches of a spanning arborescence as index ranges into one shared buffer of vertex indices. Branch i
+ * consists of vertices at positions getStart(i) (inclusive) to getEnd(i) (exclusive).
+ */
+@AllArgsConstructor
+public class TreeBranchRanges {
+    @Getter
+    private final int[] vertices;
+    private final int[] offsets;
+    @Getter
+    private final int branchCount;
+
+    /**
+     * Gets the position of the first vertex of the branch.
+     * @param branch Index of the branch.
+     * @return Position in the vertex buffer.
+     */
+    public int getStart(int branch){
+        return offsets[branch];
+    }
+
+    /**
+     * Gets the position after the last vertex of the branch.
+     * @param branch Index of the branch.
+     * @return Position in the vertex buffer.
+     */
+    public int getEnd(int branch){
+        return offsets[branch+1];
+    }
+
+    /**
+     * Gets the number of vertices of the branch.
+     * @param branch Index of the branch.
+     * @return Number of vertices.
+     */
+    public int getLength(int branch){
+        return offsets[branch+1] - offsets[branch];
+    }
+}
@@ -11,5 +11,9 @@ public enum DecompressionMethod {
     /**
      * Represents greedy decompression.
      */
-    GREEDY
+    GREEDY,
+    /**
+     * Represents decompression with optimal orientation of aggregated services of every route.
+     */
+    OPTIMAL
 }
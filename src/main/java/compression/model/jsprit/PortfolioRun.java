@@ -0,0 +1,17 @@
+package compression.model.jsprit;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Represents a single independently seeded JSprit run of a portfolio.
+ */
+@AllArgsConstructor
+public class PortfolioRun {
+    @Getter
+    private Long seed;
+    @Getter
+    private String dataPath;
+    @Getter
+    private String solutionRoutePath;
+}
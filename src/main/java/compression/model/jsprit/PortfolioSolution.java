@@ -0,0 +1,17 @@
+package compression.model.jsprit;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Represents solutions of all runs of a portfolio together with the best of them.
+ */
+@AllArgsConstructor
+public class PortfolioSolution {
+    @Getter
+    private VrpProblemSolution bestSolution;
+    @Getter
+    private List<VrpProblemSolution> solutions;
+}
@@ -26,5 +26,13 @@ public class SolutionInfo {
     private Integer usedVehicles;
     @Getter
     private Integer compressedSize;
+    @Getter
+    private Integer iterations;
+    @Getter
+    private String terminationReason;
+    @Getter
+    private Double improvement;
+    @Getter
+    private Double improvementTime;
 
 }
@@ -0,0 +1,45 @@
+package compression.model.jsprit;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Stores settings of termination policies for JSprit runs. A policy is disabled when its value is null.
+ */
+@AllArgsConstructor
+public class TerminationSettings {
+    /**
+     * Number of iterations without improvement of the best solution after which the run stops.
+     */
+    @Getter
+    private Integer noImprovementIterations;
+    /**
+     * Number of iterations over which relative improvement of the best solution is measured.
+     */
+    @Getter
+    private Integer improvementWindow;
+    /**
+     * Minimal relative improvement of the best solution over the improvement window.
+     */
+    @Getter
+    private Double minRelativeImprovement;
+    /**
+     * Wall-clock budget of the run in seconds.
+     */
+    @Getter
+    private Double timeLimit;
+    /**
+     * Relative gap to the best known solution at which the run stops.
+     */
+    @Getter
+    private Double targetGap;
+
+    /**
+     * Creates a copy of these settings with another time budget.
+     * @param timeLimit Wall-clock budget of the run in seconds (null disables the policy).
+     * @return Termination settings.
+     */
+    public TerminationSettings withTimeLimit(Double timeLimit){
+        return new TerminationSettings(noImprovementIterations, improvementWindow, minRelativeImprovement, timeLimit, targetGap);
+    }
+}
@@ -3,6 +3,7 @@ package compression.model.jsprit;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
 import com.graphhopper.jsprit.core.reporting.SolutionPrinter;
+import compression.model.vrp.DistanceMatrix;
 import compression.model.vrp.helpers.AggregatedService;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -23,4 +24,21 @@ public class VrpProblemSolution {
     private Double cost;
     @Getter
     private SolutionInfo solutionInfo;
+    /**
+     * Distance matrix created only for the solved problem (null when there is none). It should be closed when the
+     * solution is no longer used.
+     */
+    @Getter
+    private DistanceMatrix temporaryDistanceMatrix;
+
+    /**
+     * Initializes a new instance of VrpProblemSolution without temporary distance matrix.
+     * @param problem Solved JSprit problem.
+     * @param bestSolution Best JSprit solution.
+     * @param cost Cost of the solution of the original problem.
+     * @param solutionInfo Solution information.
+     */
+    public VrpProblemSolution(VehicleRoutingProblem problem, VehicleRoutingProblemSolution bestSolution, Double cost, SolutionInfo solutionInfo){
+        this(problem, bestSolution, cost, solutionInfo, null);
+    }
 }
@@ -0,0 +1,60 @@
+package compression.model.structures;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Defines queries over a static set of points 0..n-1 in the plane. The first coordinate is latitude and the second
+ * one is longitude, distances are Euclidean.
+ */
+public interface ISpatialIndex {
+    /**
+     * Gets the number of points.
+     * @return Number of points.
+     */
+    int size();
+
+    /**
+     * Gets the first coordinate of the point.
+     * @param point Point.
+     * @return First coordinate.
+     */
+    double getX(int point);
+
+    /**
+     * Gets the second coordinate of the point.
+     * @param point Point.
+     * @return Second coordinate.
+     */
+    double getY(int point);
+
+    /**
+     * Finds the nearest points to the given position.
+     * @param x First coordinate of the position.
+     * @param y Second coordinate of the position.
+     * @param k Maximal number of points to find.
+     * @param exclude Point that should be skipped (-1 to skip none).
+     * @param result Array for found points, it must have at least k elements.
+     * @param distances Array for squared distances of found points, it must have at least k elements.
+     * @return Number of found points. Points are sorted by distance.
+     */
+    int nearest(double x, double y, int k, int exclude, int[] result, double[] distances);
+
+    /**
+     * Visits all points within the given distance from the position.
+     * @param x First coordinate of the position.
+     * @param y Second coordinate of the position.
+     * @param radius Maximal distance (inclusive).
+     * @param consumer Consumer of found points.
+     */
+    void forEachWithin(double x, double y, double radius, IntConsumer consumer);
+
+    /**
+     * Visits all points inside the given rectangle.
+     * @param minX Minimal first coordinate (inclusive).
+     * @param minY Minimal second coordinate (inclusive).
+     * @param maxX Maximal first coordinate (inclusive).
+     * @param maxY Maximal second coordinate (inclusive).
+     * @param consumer Consumer of found points.
+     */
+    void forEachInside(double minX, double minY, double maxX, double maxY, IntConsumer consumer);
+}
@@ -0,0 +1,127 @@
+package compression.model.structures;
+
+import java.util.Arrays;
+
+/**
+ * Represents a forest of mergeable pairing heaps over int elements 0..capacity-1 with double keys. All state is kept
+ * in primitive arrays, so no objects are created per element. A heap is identified by its root element (or EMPTY).
+ * Adding a constant to all keys of a heap is done lazily in constant time.
+ */
+public final class IntPairingHeap {
+    /**
+     * Identifier of empty heap.
+     */
+    public static final int EMPTY = -1;
+
+    private final double[] keys;
+    private final double[] lazy;
+    private final int[] child;
+    private final int[] sibling;
+    private final int[] pairs;
+
+    /**
+     * Initializes a new instance of heap forest.
+     * @param capacity Number of elements.
+     */
+    public IntPairingHeap(int capacity){
+        keys = new double[capacity];
+        lazy = new double[capacity];
+        child = new int[capacity];
+        sibling = new int[capacity];
+        pairs = new int[capacity];
+        Arrays.fill(child, EMPTY);
+        Arrays.fill(sibling, EMPTY);
+    }
+
+    /**
+     * Creates a single-element heap.
+     * @param element Element.
+     * @param key Key of the element.
+     * @return Root of the created heap.
+     */
+    public int singleton(int element, double key){
+        keys[element] = key;
+        lazy[element] = 0.0;
+        child[element] = EMPTY;
+        sibling[element] = EMPTY;
+        return element;
+    }
+
+    /**
+     * Gets the key of the root element.
+     * @param root Root of the heap.
+     * @return Minimal key in the heap.
+     */
+    public double minKey(int root){
+        return keys[root];
+    }
+
+    /**
+     * Adds a constant to all keys of the heap.
+     * @param root Root of the heap.
+     * @param delta Value to add.
+     */
+    public void add(int root, double delta){
+        if(root == EMPTY)
+            return;
+        keys[root] += delta;
+        lazy[root] += delta;
+    }
+
+    /**
+     * Merges two heaps. Both heaps are consumed.
+     * @param first Root of the first heap.
+     * @param second Root of the second heap.
+     * @return Root of the merged heap.
+     */
+    public int meld(int first, int second){
+        if(first == EMPTY)
+            return second;
+        if(second == EMPTY)
+            return first;
+        if(keys[second] < keys[first]){
+            int t = first;
+            first = second;
+            second = t;
+        }
+        keys[second] -= lazy[first];
+        lazy[second] -= lazy[first];
+        sibling[second] = child[first];
+        child[first] = second;
+        return first;
+    }
+
+    /**
+     * Removes the root element from the heap.
+     * @param root Root of the heap.
+     * @return Root of the remaining heap.
+     */
+    public int deleteMin(int root){
+        int count = 0;
+        int c = child[root];
+        double delta = lazy[root];
+        while(c != EMPTY){
+            int next = sibling[c];
+            sibling[c] = EMPTY;
+            keys[c] += delta;
+            lazy[c] += delta;
+            pairs[count++] = c;
+            c = next;
+        }
+        child[root] = EMPTY;
+        lazy[root] = 0.0;
+        if(count == 0)
+            return EMPTY;
+        int paired = 0;
+        for(int i=0; i+1<count; i+=2){
+            pairs[paired++] = meld(pairs[i], pairs[i+1]);
+        }
+        if((count & 1) == 1)
+            pairs[paired++] = pairs[count-1];
+        int result = pairs[paired-1];
+        for(int i=paired-2; i>=0; i--){
+            result = meld(pairs[i], result);
+        }
+        return result;
+    }
+}
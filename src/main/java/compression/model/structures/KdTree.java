@@ -0,0 +1,191 @@
+package compression.model.structures;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Represents a static two-dimensional k-d tree over points 0..n-1. The tree is implicit: points are reordered in packed
+ * coordinate arrays so that every range [lo, hi) is a subtree whose median (lo+hi)/2 splits the rest by one coordinate.
+ * Building takes O(n log n) time and no objects are created per point.
+ */
+public final class KdTree implements ISpatialIndex {
+    private final double[] originalXs;
+    private final double[] originalYs;
+    private final int[] points;
+    private final double[] xs;
+    private final double[] ys;
+    private final boolean[] splitByX;
+
+    /**
+     * Initializes a new instance of k-d tree. Arrays are not modified.
+     * @param xs First coordinates of points.
+     * @param ys Second coordinates of points.
+     */
+    public KdTree(double[] xs, double[] ys){
+        if(xs.length != ys.length)
+            throw new IllegalArgumentException("Coordinate arrays must have the same length");
+        int n = xs.length;
+        this.originalXs = xs;
+        this.originalYs = ys;
+        this.points = new int[n];
+        this.xs = xs.clone();
+        this.ys = ys.clone();
+        this.splitByX = new boolean[n];
+        for(int i=0; i<n; i++){
+            points[i] = i;
+        }
+        build(0, n);
+    }
+
+    @Override
+    public int size(){
+        return points.length;
+    }
+
+    @Override
+    public double getX(int point){
+        return originalXs[point];
+    }
+
+    @Override
+    public double getY(int point){
+        return originalYs[point];
+    }
+
+    @Override
+    public int nearest(double x, double y, int k, int exclude, int[] result, double[] distances){
+        if(k <= 0)
+            return 0;
+        NearestPoints nearest = new NearestPoints(k, exclude, result, distances);
+        nearest(x, y, 0, points.length, nearest);
+        return nearest.sort();
+    }
+
+    @Override
+    public void forEachWithin(double x, double y, double radius, IntConsumer consumer){
+        forEachWithin(x, y, radius*radius, 0, points.length, consumer);
+    }
+
+    @Override
+    public void forEachInside(double minX, double minY, double maxX, double maxY, IntConsumer consumer){
+        forEachInside(minX, minY, maxX, maxY, 0, points.length, consumer);
+    }
+
+    private void nearest(double x, double y, int lo, int hi, NearestPoints nearest){
+        while(lo < hi){
+            int mid = (lo+hi) >>> 1;
+            double dx = xs[mid] - x;
+            double dy = ys[mid] - y;
+            nearest.offer(points[mid], dx*dx + dy*dy);
+            double diff = splitByX[mid] ? -dx : -dy;
+            if(diff < 0){
+                nearest(x, y, lo, mid, nearest);
+                if(diff*diff >= nearest.worst())
+                    return;
+                lo = mid+1;
+            } else {
+                nearest(x, y, mid+1, hi, nearest);
+                if(diff*diff >= nearest.worst())
+                    return;
+                hi = mid;
+            }
+        }
+    }
+
+    private void forEachWithin(double x, double y, double radius2, int lo, int hi, IntConsumer consumer){
+        while(lo < hi){
+            int mid = (lo+hi) >>> 1;
+            double dx = xs[mid] - x;
+            double dy = ys[mid] - y;
+            if(dx*dx + dy*dy <= radius2)
+                consumer.accept(points[mid]);
+            double diff = splitByX[mid] ? -dx : -dy;
+            if(diff < 0){
+                if(diff*diff <= radius2)
+                    forEachWithin(x, y, radius2, mid+1, hi, consumer);
+                hi = mid;
+            } else {
+                if(diff*diff <= radius2)
+                    forEachWithin(x, y, radius2, lo, mid, consumer);
+                lo = mid+1;
+            }
+        }
+    }
+
+    private void forEachInside(double minX, double minY, double maxX, double maxY, int lo, int hi, IntConsumer consumer){
+        while(lo < hi){
+            int mid = (lo+hi) >>> 1;
+            double px = xs[mid];
+            double py = ys[mid];
+            if(px >= minX && px <= maxX && py >= minY && py <= maxY)
+                consumer.accept(points[mid]);
+            double split = splitByX[mid] ? px : py;
+            boolean left = (splitByX[mid] ? minX : minY) <= split;
+            boolean right = (splitByX[mid] ? maxX : maxY) >= split;
+            if(left && right)
+                forEachInside(minX, minY, maxX, maxY, mid+1, hi, consumer);
+            if(left)
+                hi = mid;
+            else
+                lo = mid+1;
+        }
+    }
+
+    private void build(int lo, int hi){
+        while(hi - lo > 1){
+            double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+            for(int i=lo; i<hi; i++){
+                minX = Math.min(minX, xs[i]);
+                maxX = Math.max(maxX, xs[i]);
+                minY = Math.min(minY, ys[i]);
+                maxY = Math.max(maxY, ys[i]);
+            }
+            boolean byX = maxX - minX >= maxY - minY;
+            int mid = (lo+hi) >>> 1;
+            select(lo, hi, mid, byX ? xs : ys);
+            splitByX[mid] = byX;
+            if(mid - lo < hi - mid - 1){
+                build(lo, mid);
+                lo = mid+1;
+            } else {
+                build(mid+1, hi);
+                hi = mid;
+            }
+        }
+    }
+
+    private void select(int lo, int hi, int k, double[] keys){
+        while(hi - lo > 1){
+            double a = keys[lo], b = keys[(lo+hi) >>> 1], c = keys[hi-1];
+            double pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+            int lt = lo, i = lo, gt = hi;
+            while(i < gt){
+                double v = keys[i];
+                if(v < pivot)
+                    swap(lt++, i++);
+                else if(v > pivot)
+                    swap(i, --gt);
+                else
+                    i++;
+            }
+            if(k < lt)
+                hi = lt;
+            else if(k >= gt)
+                lo = gt;
+            else
+                return;
+        }
+    }
+
+    private void swap(int i, int j){
+        int p = points[i];
+        points[i] = points[j];
+        points[j] = p;
+        double t = xs[i];
+        xs[i] = xs[j];
+        xs[j] = t;
+        t = ys[i];
+        ys[i] = ys[j];
+        ys[j] = t;
+    }
+}
@@ -0,0 +1,84 @@
+package compression.model.structures;
+
+/**
+ * Collects the nearest points of a query in a bounded max-heap over caller-provided arrays.
+ */
+final class NearestPoints {
+    private final int k;
+    private final int exclude;
+    private final int[] heap;
+    private final double[] keys;
+    private int count;
+
+    NearestPoints(int k, int exclude, int[] heap, double[] keys){
+        this.k = k;
+        this.exclude = exclude;
+        this.heap = heap;
+        this.keys = keys;
+    }
+
+    /**
+     * Gets the squared distance that a point has to beat to be collected.
+     */
+    double worst(){
+        return count < k ? Double.POSITIVE_INFINITY : keys[0];
+    }
+
+    void offer(int point, double key){
+        if(point == exclude)
+            return;
+        if(count < k){
+            int i = count++;
+            heap[i] = point;
+            keys[i] = key;
+            while(i > 0){
+                int parent = (i-1) >>> 1;
+                if(keys[parent] >= keys[i])
+                    break;
+                swap(i, parent);
+                i = parent;
+            }
+        } else if(key < keys[0]){
+            heap[0] = point;
+            keys[0] = key;
+            siftDown(0, count);
+        }
+    }
+
+    /**
+     * Sorts collected points by distance.
+     * @return Number of collected points.
+     */
+    int sort(){
+        for(int end=count-1; end>0; end--){
+            swap(0, end);
+            siftDown(0, end);
+        }
+        return count;
+    }
+
+    private void siftDown(int i, int size){
+        while(true){
+            int largest = i;
+            int left = 2*i+1;
+            int right = left+1;
+            if(left < size && keys[left] > keys[largest])
+                largest = left;
+            if(right < size && keys[right] > keys[largest])
+                largest = right;
+            if(largest == i)
+                return;
+            swap(i, largest);
+            i = largest;
+        }
+    }
+
+    private void swap(int i, int j){
+        int p = heap[i];
+        heap[i] = heap[j];
+        heap[j] = p;
+        double t = keys[i];
+        keys[i] = keys[j];
+        keys[j] = t;
+    }
+}
@@ -0,0 +1,183 @@
+package compression.model.structures;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Represents a static uniform grid over points 0..n-1. Points are bucketed into square cells (about two points per
+ * cell) and stored cell by cell in packed coordinate arrays, so a query only scans cells that overlap its area.
+ * Building takes O(n) time. Works best for evenly spread points, clustered points are better served by KdTree.
+ */
+public final class UniformGrid implements ISpatialIndex {
+    private static final int POINTS_PER_CELL = 2;
+
+    private final double[] originalXs;
+    private final double[] originalYs;
+    private final int[] points;
+    private final double[] xs;
+    private final double[] ys;
+    private final int[] cellStart;
+    private final double minX;
+    private final double minY;
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+
+    /**
+     * Initializes a new instance of uniform grid. Arrays are not modified.
+     * @param xs First coordinates of points.
+     * @param ys Second coordinates of points.
+     */
+    public UniformGrid(double[] xs, double[] ys){
+        if(xs.length != ys.length)
+            throw new IllegalArgumentException("Coordinate arrays must have the same length");
+        int n = xs.length;
+        this.originalXs = xs;
+        this.originalYs = ys;
+        double lowX = Double.POSITIVE_INFINITY, highX = Double.NEGATIVE_INFINITY;
+        double lowY = Double.POSITIVE_INFINITY, highY = Double.NEGATIVE_INFINITY;
+        for(int i=0; i<n; i++){
+            lowX = Math.min(lowX, xs[i]);
+            highX = Math.max(highX, xs[i]);
+            lowY = Math.min(lowY, ys[i]);
+            highY = Math.max(highY, ys[i]);
+        }
+        if(n == 0){
+            lowX = highX = lowY = highY = 0.0;
+        }
+        double width = highX - lowX;
+        double height = highY - lowY;
+        int targetCells = Math.max(1, n / POINTS_PER_CELL);
+        double size = Math.sqrt(width*height / targetCells);
+        if(!(size > 0.0))
+            size = Math.max(width, height) / targetCells;
+        if(!(size > 0.0))
+            size = 1.0;
+        this.minX = lowX;
+        this.minY = lowY;
+        this.columns = (int)Math.min(Math.floor(width / size) + 1, 2*targetCells);
+        this.rows = (int)Math.min(Math.floor(height / size) + 1, Math.max(1, 2*targetCells / columns));
+        this.cellSize = Math.max(size, Math.max(width / columns, height / rows));
+        this.cellStart = new int[columns*rows+1];
+        this.points = new int[n];
+        this.xs = new double[n];
+        this.ys = new double[n];
+        int[] cells = new int[n];
+        for(int i=0; i<n; i++){
+            cells[i] = cell(column(xs[i]), row(ys[i]));
+            cellStart[cells[i]+1]++;
+        }
+        for(int c=0; c<columns*rows; c++){
+            cellStart[c+1] += cellStart[c];
+        }
+        int[] next = new int[columns*rows];
+        System.arraycopy(cellStart, 0, next, 0, next.length);
+        for(int i=0; i<n; i++){
+            int position = next[cells[i]]++;
+            points[position] = i;
+            this.xs[position] = xs[i];
+            this.ys[position] = ys[i];
+        }
+    }
+
+    @Override
+    public int size(){
+        return points.length;
+    }
+
+    @Override
+    public double getX(int point){
+        return originalXs[point];
+    }
+
+    @Override
+    public double getY(int point){
+        return originalYs[point];
+    }
+
+    @Override
+    public int nearest(double x, double y, int k, int exclude, int[] result, double[] distances){
+        if(k <= 0 || points.length == 0)
+            return 0;
+        NearestPoints nearest = new NearestPoints(k, exclude, result, distances);
+        int column = column(x);
+        int row = row(y);
+        int maxRing = Math.max(Math.max(column, columns-1-column), Math.max(row, rows-1-row));
+        for(int ring=0; ring<=maxRing; ring++){
+            int left = column-ring, right = column+ring, bottom = row-ring, top = row+ring;
+            for(int c=Math.max(left, 0); c<=Math.min(right, columns-1); c++){
+                if(bottom >= 0)
+                    offerCell(cell(c, bottom), x, y, nearest);
+                if(top < rows && ring > 0)
+                    offerCell(cell(c, top), x, y, nearest);
+            }
+            for(int r=Math.max(bottom+1, 0); r<=Math.min(top-1, rows-1); r++){
+                if(left >= 0)
+                    offerCell(cell(left, r), x, y, nearest);
+                if(right < columns && ring > 0)
+                    offerCell(cell(right, r), x, y, nearest);
+            }
+            double reach = Math.min(Math.min(x - (minX + left*cellSize), minX + (right+1)*cellSize - x),
+                    Math.min(y - (minY + bottom*cellSize), minY + (top+1)*cellSize - y));
+            if(reach > 0 && reach*reach >= nearest.worst())
+                break;
+        }
+        return nearest.sort();
+    }
+
+    @Override
+    public void forEachWithin(double x, double y, double radius, IntConsumer consumer){
+        double radius2 = radius*radius;
+        int fromColumn = column(x - radius), toColumn = column(x + radius);
+        int fromRow = row(y - radius), toRow = row(y + radius);
+        for(int r=fromRow; r<=toRow; r++){
+            for(int c=fromColumn; c<=toColumn; c++){
+                int cell = cell(c, r);
+                for(int i=cellStart[cell]; i<cellStart[cell+1]; i++){
+                    double dx = xs[i] - x;
+                    double dy = ys[i] - y;
+                    if(dx*dx + dy*dy <= radius2)
+                        consumer.accept(points[i]);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void forEachInside(double minX, double minY, double maxX, double maxY, IntConsumer consumer){
+        if(minX > maxX || minY > maxY)
+            return;
+        int fromColumn = column(minX), toColumn = column(maxX);
+        int fromRow = row(minY), toRow = row(maxY);
+        for(int r=fromRow; r<=toRow; r++){
+            for(int c=fromColumn; c<=toColumn; c++){
+                int cell = cell(c, r);
+                for(int i=cellStart[cell]; i<cellStart[cell+1]; i++){
+                    if(xs[i] >= minX && xs[i] <= maxX && ys[i] >= minY && ys[i] <= maxY)
+                        consumer.accept(points[i]);
+                }
+            }
+        }
+    }
+
+    private void offerCell(int cell, double x, double y, NearestPoints nearest){
+        for(int i=cellStart[cell]; i<cellStart[cell+1]; i++){
+            double dx = xs[i] - x;
+            double dy = ys[i] - y;
+            nearest.offer(points[i], dx*dx + dy*dy);
+        }
+    }
+
+    private int column(double x){
+        double c = Math.floor((x - minX) / cellSize);
+        return c < 0 ? 0 : c >= columns ? columns-1 : (int)c;
+    }
+
+    private int row(double y){
+        double r = Math.floor((y - minY) / cellSize);
+        return r < 0 ? 0 : r >= rows ? rows-1 : (int)r;
+    }
+
+    private int cell(int column, int row){
+        return row*columns + column;
+    }
+}
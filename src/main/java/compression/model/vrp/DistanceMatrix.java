@@ -2,24 +2,68 @@ package compression.model.vrp;
 
 import lombok.Getter;
 
+import java.io.Closeable;
+import java.io.IOException;
+
 /**
  * Represents a matrix with distances between all vertices.
  */
 public class DistanceMatrix {
+    /**
+     * Maximal number of values that can be stored in a Java array.
+     */
+    protected static final long MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
     @Getter
-    private final Integer dimensions;
+    private final int dimensions;
     /**
-     * Distance internal array.
+     * Distance internal array. Distances are stored row by row.
      */
-    protected final Double[][] distances;
+    protected final double[] distances;
 
     /**
      * Initializes a new instance of empty distance matrix.
      * @param dimensions Number of vertices.
      */
     public DistanceMatrix(Integer dimensions){
+        this(dimensions, allocate((long)dimensions*dimensions));
+    }
+
+    /**
+     * Initializes a new instance of distance matrix with given internal array.
+     * @param dimensions Number of vertices.
+     * @param distances Distance internal array.
+     */
+    protected DistanceMatrix(Integer dimensions, double[] distances){
         this.dimensions = dimensions;
-        distances = new Double[dimensions][dimensions];
+        this.distances = distances;
+    }
+
+    /**
+     * Closes the given matrix if it holds resources other than heap memory (e.g. a memory-mapped file).
+     * @param matrix Distance matrix, may be null.
+     */
+    public static void release(DistanceMatrix matrix){
+        if(matrix instanceof Closeable){
+            try {
+                ((Closeable) matrix).close();
+            } catch (IOException e) {
+                System.out.println("Unable to release distance matrix: "+e);
+            }
+        }
+    }
+
+    /**
+     * Allocates the internal array for the given number of values.
+     * @param size Number of values.
+     * @return Distance internal array.
+     * @throws DistanceMatrixException When the values do not fit into a Java array.
+     */
+    protected static double[] allocate(long size){
+        if(size > MAX_ARRAY_SIZE)
+            throw new DistanceMatrixException("Distance matrix with "+size+" values does not fit into an array, "+
+                    "use memory-mapped distance matrices instead (MappedDistanceMatrixFactory)");
+        return new double[(int)size];
     }
 
     /**
@@ -29,7 +73,17 @@ public class DistanceMatrix {
      * @return A weight of edge connecting two given vertices.
      */
     public Double getDistance(Long fromId, Long toId) {
-        return distances[fromId.intValue()-1][toId.intValue()-1];
+        return getDistance(fromId.intValue()-1, toId.intValue()-1);
+    }
+
+    /**
+     * Gets the distance between two vertices.
+     * @param from Index of start vertex.
+     * @param to Index of end vertex.
+     * @return A weight of edge connecting two given vertices.
+     */
+    public double getDistance(int from, int to) {
+        return distances[from*dimensions+to];
     }
 
     /**
@@ -39,7 +93,7 @@ public class DistanceMatrix {
      * @param dist Given distance.
      */
     public void setDistance(Long fromId, Long toId, Double dist){
-        distances[fromId.intValue()-1][toId.intValue()-1] = dist;
+        setDistance(fromId.intValue()-1, toId.intValue()-1, dist.doubleValue());
     }
 
     /**
@@ -48,7 +102,7 @@ public class DistanceMatrix {
      * @param to Index of end vertex.
      * @param dist Given distance.
      */
-    public void setDistance(Integer from, Integer to, Double dist){
-        distances[from][to] = dist;
+    public void setDistance(int from, int to, double dist){
+        distances[from*dimensions+to] = dist;
     }
 }
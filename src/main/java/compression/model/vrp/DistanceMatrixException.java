@@ -0,0 +1,23 @@
+package compression.model.vrp;
+
+/**
+ * Thrown when distance matrix storage cannot be created or accessed.
+ */
+public class DistanceMatrixException extends RuntimeException {
+    /**
+     * Initializes a new instance of DistanceMatrixException.
+     * @param message Exception message.
+     */
+    public DistanceMatrixException(String message){
+        super(message);
+    }
+
+    /**
+     * Initializes a new instance of DistanceMatrixException.
+     * @param message Exception message.
+     * @param innerException Reason for this exception.
+     */
+    public DistanceMatrixException(String message, Exception innerException){
+        super(message, innerException);
+    }
+}
@@ -0,0 +1,109 @@
+package compression.model.vrp;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A distance matrix that computes Euclidean distances on demand from vertex coordinates, so it needs O(n) memory.
+ * Distances that are set explicitly are kept in a sparse map and take precedence over computed ones.
+ */
+public class EuclideanDistanceMatrix extends DistanceMatrix {
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final Map<Long, Double> overriddenDistances = new HashMap<>();
+
+    /**
+     * Initializes a new instance of Euclidean distance matrix.
+     * @param latitudes Latitudes of vertices (indexed by vertex index).
+     * @param longitudes Longitudes of vertices (indexed by vertex index).
+     */
+    public EuclideanDistanceMatrix(double[] latitudes, double[] longitudes){
+        super(latitudes.length, null);
+        if(latitudes.length != longitudes.length)
+            throw new IllegalArgumentException("Coordinate arrays must have the same length");
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+    }
+
+    /**
+     * Checks whether all distances of the given matrix are Euclidean distances of vertex coordinates, i.e. it is
+     * a Euclidean distance matrix without overridden distances.
+     * @param matrix Distance matrix.
+     * @return True if the matrix computes all distances from coordinates.
+     */
+    public static boolean isEuclidean(DistanceMatrix matrix){
+        return matrix instanceof EuclideanDistanceMatrix && ((EuclideanDistanceMatrix) matrix).overriddenDistances.isEmpty();
+    }
+
+    /**
+     * Creates a Euclidean distance matrix for locations of depot and clients of the given problem.
+     * @param problem VRP problem.
+     * @return Euclidean distance matrix.
+     */
+    public static EuclideanDistanceMatrix fromProblem(VrpProblem problem){
+        int dimensions = problem.getDimensions();
+        double[] latitudes = new double[dimensions];
+        double[] longitudes = new double[dimensions];
+        Depot depot = problem.getDepot();
+        latitudes[depot.getId().intValue()-1] = depot.getLocation().getLatitude();
+        longitudes[depot.getId().intValue()-1] = depot.getLocation().getLongitude();
+        for(Client c : problem.getClients()){
+            latitudes[c.getId().intValue()-1] = c.getLocation().getLatitude();
+            longitudes[c.getId().intValue()-1] = c.getLocation().getLongitude();
+        }
+        return new EuclideanDistanceMatrix(latitudes, longitudes);
+    }
+
+    /**
+     * Gets the distance between two vertices.
+     * @param from Index of start vertex.
+     * @param to Index of end vertex.
+     * @return A weight of edge connecting two given vertices.
+     */
+    @Override
+    public double getDistance(int from, int to) {
+        if(!overriddenDistances.isEmpty()){
+            Double distance = overriddenDistances.get(key(from, to));
+            if(distance != null)
+                return distance;
+        }
+        return compute(from, to);
+    }
+
+    /**
+     * Sets the distance between given vertices. The distance overrides the one computed from coordinates.
+     * @param from Index of start vertex.
+     * @param to Index of end vertex.
+     * @param dist Given distance.
+     */
+    @Override
+    public void setDistance(int from, int to, double dist){
+        overriddenDistances.put(key(from, to), dist);
+    }
+
+    /**
+     * Copies all distances to the given matrix.
+     * @param matrix Target matrix.
+     * @return Target matrix.
+     */
+    public DistanceMatrix copyTo(DistanceMatrix matrix){
+        int dimensions = getDimensions();
+        for(int i=0; i<dimensions; i++){
+            for(int j=0; j<dimensions; j++){
+                matrix.setDistance(i, j, getDistance(i, j));
+            }
+        }
+        return matrix;
+    }
+
+    private long key(int from, int to){
+        return (long)from*getDimensions()+to;
+    }
+
+    private double compute(int from, int to){
+        double latDiff = latitudes[from] - latitudes[to];
+        double longDiff = longitudes[from] - longitudes[to];
+        return Math.sqrt(latDiff*latDiff + longDiff*longDiff);
+    }
+}
@@ -0,0 +1,151 @@
+package compression.model.vrp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A distance matrix that keeps distances off-heap in a memory-mapped file. The file is mapped in several segments,
+ * so matrices larger than 2 GB are supported.
+ */
+public class MappedDistanceMatrix extends DistanceMatrix implements Closeable {
+    private static final int SEGMENT_SHIFT = 27;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    private final Path file;
+    private final boolean temporary;
+    private MappedByteBuffer[] segments;
+
+    /**
+     * Initializes a new instance of mapped distance matrix backed by the given file.
+     * @param dimensions Number of vertices.
+     * @param file Backing file. It is created or resized if needed.
+     * @param temporary Whether the backing file should be removed when the matrix is closed.
+     */
+    public MappedDistanceMatrix(Integer dimensions, Path file, boolean temporary){
+        super(dimensions, null);
+        this.file = file;
+        this.temporary = temporary;
+        this.segments = map(file, getSize(dimensions));
+    }
+
+    /**
+     * Initializes a new instance of mapped distance matrix backed by a temporary file in the given directory.
+     * @param dimensions Number of vertices.
+     * @param directory Directory for the backing file.
+     * @return Mapped distance matrix.
+     */
+    public static MappedDistanceMatrix createTemporary(Integer dimensions, Path directory){
+        return new MappedDistanceMatrix(dimensions, createTemporaryFile(directory), true);
+    }
+
+    /**
+     * Gets the backing file of this matrix.
+     * @return Path of the backing file.
+     */
+    public Path getFile(){
+        return file;
+    }
+
+    /**
+     * Gets the distance between two vertices.
+     * @param from Index of start vertex.
+     * @param to Index of end vertex.
+     * @return A weight of edge connecting two given vertices.
+     */
+    @Override
+    public double getDistance(int from, int to) {
+        long i = index(from, to);
+        return segments[(int)(i >>> SEGMENT_SHIFT)].getDouble((int)(i & SEGMENT_MASK) << 3);
+    }
+
+    /**
+     * Sets the distance between given vertices.
+     * @param from Index of start vertex.
+     * @param to Index of end vertex.
+     * @param dist Given distance.
+     */
+    @Override
+    public void setDistance(int from, int to, double dist){
+        long i = index(from, to);
+        segments[(int)(i >>> SEGMENT_SHIFT)].putDouble((int)(i & SEGMENT_MASK) << 3, dist);
+    }
+
+    /**
+     * Drops references to the mapped segments and removes the backing file if it is temporary. Java offers no public
+     * way to unmap a buffer, so the mapping itself is released by the garbage collector once the segments are
+     * unreachable; the file is removed right away where the platform allows deleting mapped files (otherwise when
+     * the JVM exits). The matrix must not be used after it is closed.
+     */
+    @Override
+    public void close() {
+        segments = null;
+        if(temporary){
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                file.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Gets the position of the distance in the backing file (in number of values).
+     * @param from Index of start vertex.
+     * @param to Index of end vertex.
+     * @return Position of the value.
+     */
+    protected long index(int from, int to){
+        return (long)from*getDimensions()+to;
+    }
+
+    /**
+     * Gets the number of values stored for the given dimensions.
+     * @param dimensions Number of vertices.
+     * @return Number of stored values.
+     */
+    protected long getSize(int dimensions){
+        return (long)dimensions*dimensions;
+    }
+
+    /**
+     * Creates a temporary file for the matrix.
+     * @param directory Directory for the file.
+     * @return Path of the created file.
+     */
+    protected static Path createTemporaryFile(Path directory){
+        try {
+            Path file = Files.createTempFile(directory, "distances", ".bin");
+            file.toFile().deleteOnExit();
+            return file;
+        } catch (IOException e) {
+            throw new DistanceMatrixException("Unable to create distance matrix file", e);
+        }
+    }
+
+    private static MappedByteBuffer[] map(Path file, long size){
+        long bytes = size << 3;
+        long segmentBytes = 1L << (SEGMENT_SHIFT+3);
+        int count = (int)((bytes + segmentBytes - 1) / segmentBytes);
+        MappedByteBuffer[] segments = new MappedByteBuffer[Math.max(count, 1)];
+        try(RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")){
+            if(raf.length() < bytes)
+                raf.setLength(bytes);
+            FileChannel channel = raf.getChannel();
+            for(int i=0; i<segments.length; i++){
+                long position = i*segmentBytes;
+                long length = Math.min(segmentBytes, bytes - position);
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.max(length, 0));
+                segments[i].order(ByteOrder.nativeOrder());
+            }
+        } catch (IOException e) {
+            throw new DistanceMatrixException("Unable to map distance matrix file "+file, e);
+        }
+        return segments;
+    }
+}
@@ -0,0 +1,40 @@
+package compression.model.vrp;
+
+import java.nio.file.Path;
+
+/**
+ * A memory-mapped distance matrix that not distinguish direction of edge. Only the lower triangle (with diagonal) is
+ * stored, packed row by row.
+ */
+public class MappedSymmetricalDistanceMatrix extends MappedDistanceMatrix {
+
+    /**
+     * Initializes a new instance of mapped symmetrical distance matrix backed by the given file.
+     * @param dimensions Number of vertices.
+     * @param file Backing file. It is created or resized if needed.
+     * @param temporary Whether the backing file should be removed when the matrix is closed.
+     */
+    public MappedSymmetricalDistanceMatrix(Integer dimensions, Path file, boolean temporary) {
+        super(dimensions, file, temporary);
+    }
+
+    /**
+     * Initializes a new instance of mapped symmetrical distance matrix backed by a temporary file in the given directory.
+     * @param dimensions Number of vertices.
+     * @param directory Directory for the backing file.
+     * @return Mapped distance matrix.
+     */
+    public static MappedSymmetricalDistanceMatrix createTemporary(Integer dimensions, Path directory){
+        return new MappedSymmetricalDistanceMatrix(dimensions, createTemporaryFile(directory), true);
+    }
+
+    @Override
+    protected long index(int from, int to){
+        return from >= to ? (long)from*(from+1)/2 + to : (long)to*(to+1)/2 + from;
+    }
+
+    @Override
+    protected long getSize(int dimensions){
+        return (long)dimensions*(dimensions+1)/2;
+    }
+}
@@ -1,7 +1,8 @@
 package compression.model.vrp;
 
 /**
- * A distance matrix that not distinguish direction of edge (for non-directed graphs).
+ * A distance matrix that not distinguish direction of edge (for non-directed graphs). Only the lower triangle
+ * (with diagonal) is stored, packed row by row.
  */
 public class SymmetricalDistanceMatrix extends DistanceMatrix{
 
@@ -10,19 +11,18 @@ public class SymmetricalDistanceMatrix extends DistanceMatrix{
      * @param dimensions Number of vertices.
      */
     public SymmetricalDistanceMatrix(Integer dimensions) {
-        super(dimensions);
+        super(dimensions, allocate((long)dimensions*(dimensions+1)/2));
     }
 
     /**
-     * Sets the distance between given vertices (in both directions).
-     * @param fromId Id of start vertex.
-     * @param toId Id of end vertex.
-     * @param dist Given distance.
+     * Gets the distance between two vertices.
+     * @param from Index of start vertex.
+     * @param to Index of end vertex.
+     * @return A weight of edge connecting two given vertices.
      */
     @Override
-    public void setDistance(Long fromId, Long toId, Double dist){
-        distances[fromId.intValue()-1][toId.intValue()-1] = dist;
-        distances[toId.intValue()-1][fromId.intValue()-1] = dist;
+    public double getDistance(int from, int to) {
+        return distances[index(from, to)];
     }
 
     /**
@@ -32,8 +32,12 @@ public class SymmetricalDistanceMatrix extends DistanceMatrix{
      * @param dist Given distance.
      */
     @Override
-    public void setDistance(Integer from, Integer to, Double dist){
-        distances[from][to] = dist;
-        distances[to][from] = dist;
+    public void setDistance(int from, int to, double dist){
+        distances[index(from, to)] = dist;
+    }
+
+    private static int index(int from, int to){
+        // the array size is checked on allocation, so every index fits into int
+        return from >= to ? (int)((long)from*(from+1)/2 + to) : (int)((long)to*(to+1)/2 + from);
     }
 }
@@ -87,9 +87,10 @@ public class ChartPlotter implements IChartPlotter {
         boundingBox = boundingBox.scale(options.getXScalingFactor(), options.getYScalingFactor());
         NumberAxis yAxis = new NumberAxis(options.getYAxisLabel());
         NumberAxis xAxis = new NumberAxis(options.getXAxisLabel());
-        if(options.getXScalingFactor() != null)
+        // runs stopped in the first iteration have no data, axes are left to auto range then
+        if(options.getXScalingFactor() != null && boundingBox.getXmin() < boundingBox.getXmax())
             xAxis.setRange(boundingBox.getXmin(), boundingBox.getXmax());
-        if(options.getYScalingFactor() != null)
+        if(options.getYScalingFactor() != null && boundingBox.getYmin() < boundingBox.getYmax())
             yAxis.setRange(boundingBox.getYmin(), boundingBox.getYmax());
         XYPlot plot = new XYPlot(data, xAxis, yAxis, new XYLineAndShapeRenderer(true, false));
         return new JFreeChart(options.getTitle(), JFreeChart.DEFAULT_TITLE_FONT, plot, true);
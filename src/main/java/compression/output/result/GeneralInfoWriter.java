@@ -30,7 +30,7 @@ public class GeneralInfoWriter implements IGeneralInfoWriter {
             writer.println("OptimalSolution: "+first.getBestKnownSolution());
             writer.println("ProblemSize: "+first.getOriginalSize());
             writer.println("UseCompression: " + (first.getProblemType() == ProblemType.FULL ? 0 : 1));
-            writer.println("DecompressionMode: "+(first.getDecompressionMethod() == DecompressionMethod.SIMPLE ? 0 : 1));
+            writer.println("DecompressionMode: "+first.getDecompressionMethod().ordinal());
             writer.println("UsedVehicles: "+first.getUsedVehicles());
 
             writer.println("CompressedProblemSize: "+(first.getProblemType() == ProblemType.FULL ? 0 : first.getCompressedSize()));
@@ -44,11 +44,12 @@ public class GeneralInfoWriter implements IGeneralInfoWriter {
             writer.println("SimpleDecompressionSolutionMin: "+info.simpleDecompressionSolutionCost.getMinValue());
             writer.println("SimpleDecompressionSolutionMax: "+info.simpleDecompressionSolutionCost.getMaxValue());
 
-            if(first.getDecompressionMethod() == DecompressionMethod.GREEDY) {
-                writer.println("GreedyDecompressionSolutionAvg: " + info.greedyDecompressionSolutionCost.getAverage());
-                writer.println("GreedyDecompressionSolutionSD: " + info.greedyDecompressionSolutionCost.getStandardDeviation());
-                writer.println("GreedyDecompressionSolutionMin: " + info.greedyDecompressionSolutionCost.getMinValue());
-                writer.println("GreedyDecompressionSolutionMax: " + info.greedyDecompressionSolutionCost.getMaxValue());
+            if(first.getDecompressionMethod() != DecompressionMethod.SIMPLE) {
+                String label = first.getDecompressionMethod() == DecompressionMethod.OPTIMAL ? "OptimalDecompressionSolution" : "GreedyDecompressionSolution";
+                writer.println(label + "Avg: " + info.greedyDecompressionSolutionCost.getAverage());
+                writer.println(label + "SD: " + info.greedyDecompressionSolutionCost.getStandardDeviation());
+                writer.println(label + "Min: " + info.greedyDecompressionSolutionCost.getMinValue());
+                writer.println(label + "Max: " + info.greedyDecompressionSolutionCost.getMaxValue());
             } else {
                 writer.println("NULL");
                 writer.println("NULL");
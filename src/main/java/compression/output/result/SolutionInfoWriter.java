@@ -32,6 +32,10 @@ public class SolutionInfoWriter implements ISolutionInfoWriter {
                 writer.println(solutionInfo.getCompressedSize());
                 writer.println(solutionInfo.getCompressionTime());
             }
+            writer.println(solutionInfo.getIterations());
+            writer.println(solutionInfo.getTerminationReason());
+            writer.println(solutionInfo.getImprovement());
+            writer.println(solutionInfo.getImprovementTime());
         } catch (IOException e) {
             System.out.println("Unable to write solution info to a file: "+e);
         }
@@ -4,7 +4,8 @@ import compression.model.graph.Edge;
 import compression.model.vrp.helpers.LocationVertex;
 import compression.model.graph.RoutedGraph;
 import compression.model.vrp.*;
-import compression.services.distance.DistanceService;
+import compression.services.distance.DistanceMatrixFactory;
+import compression.services.distance.IDistanceMatrixFactory;
 import org.jgrapht.graph.SimpleDirectedWeightedGraph;
 
 /**
@@ -12,6 +13,23 @@ import org.jgrapht.graph.SimpleDirectedWeightedGraph;
  */
 public class ProblemToGraphConverter implements IProblemToGraphConverter<LocationVertex>{
 
+    private final IDistanceMatrixFactory distanceMatrixFactory;
+
+    /**
+     * Initializes a new instance of ProblemToGraphConverter that stores distance matrices on the heap.
+     */
+    public ProblemToGraphConverter(){
+        this(new DistanceMatrixFactory());
+    }
+
+    /**
+     * Initializes a new instance of ProblemToGraphConverter.
+     * @param distanceMatrixFactory Factory used to create generated distance matrices.
+     */
+    public ProblemToGraphConverter(IDistanceMatrixFactory distanceMatrixFactory){
+        this.distanceMatrixFactory = distanceMatrixFactory;
+    }
+
     /**
      * Converts VRP problem to graph.
      * @param problem VRP problem.
@@ -31,19 +49,7 @@ public class ProblemToGraphConverter implements IProblemToGraphConverter<Locatio
     }
 
     private void generateDistanceMatrix(VrpProblem problem){
-        DistanceService s = new DistanceService();
-        DistanceMatrix m = new SymmetricalDistanceMatrix(problem.getDimensions());
-        for(Client c1 : problem.getClients()){
-            for(Client c2 : problem.getClients()){
-                if(c1.getId() != c2.getId()){
-                    m.setDistance(c1.getId(), c2.getId(), s.getEuclideanDistance(c1.getLocation(), c2.getLocation()));
-                }
-                else
-                    m.setDistance(c1.getId(), c2.getId(), 0.0);
-            }
-            m.setDistance(c1.getId(), problem.getDepot().getId(), s.getEuclideanDistance(c1.getLocation(), problem.getDepot().getLocation()));
-        }
-        problem.setDistanceMatrix(m);
+        problem.setDistanceMatrix(distanceMatrixFactory.createEuclidean(problem));
     }
 
     private RoutedGraph<LocationVertex, Edge> convertExplicit(VrpProblem problem){
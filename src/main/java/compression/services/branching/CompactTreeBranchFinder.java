@@ -0,0 +1,69 @@
+package compression.services.branching;
+
+import compression.model.graph.TreeBranchRanges;
+
+/**
+ * Implementation of ICompactTreeBranchFinder interface. A branch starts in the root or in a vertex with more than one
+ * child and follows single children until it reaches a leaf or another such vertex. Branches are found in linear time
+ * with an explicit stack, so deep trees are supported, and they are written to one shared buffer.
+ */
+public class CompactTreeBranchFinder implements ICompactTreeBranchFinder {
+
+    /**
+     * Extracts branches from spanning arborescence.
+     * @param parents Index of parent vertex for every vertex (-1 for the root).
+     * @param root Index of the root vertex.
+     * @return Branches as ranges of vertex indices.
+     */
+    @Override
+    public TreeBranchRanges findBranches(int[] parents, int root) {
+        int n = parents.length;
+        int[] childOffsets = new int[n+1];
+        for(int v=0; v<n; v++){
+            if(v != root)
+                childOffsets[parents[v]+1]++;
+        }
+        for(int v=0; v<n; v++){
+            childOffsets[v+1] += childOffsets[v];
+        }
+        int[] children = new int[n];
+        int[] stack = new int[n];
+        for(int v=0; v<n; v++){
+            if(v != root){
+                int p = parents[v];
+                children[childOffsets[p] + stack[p]++] = v;
+            }
+        }
+        int[] vertices = new int[2*n];
+        int[] offsets = new int[n+1];
+        int branches = 0;
+        int length = 0;
+        int top = 0;
+        if(childOffsets[root+1] - childOffsets[root] == 1){
+            stack[top++] = root;
+        } else {
+            for(int i=childOffsets[root+1]-1; i>=childOffsets[root]; i--){
+                stack[top++] = children[i];
+            }
+            if(top == 0){
+                vertices[length++] = root;
+                offsets[++branches] = length;
+            }
+        }
+        while(top > 0){
+            int current = stack[--top];
+            if(current != root)
+                vertices[length++] = parents[current];
+            vertices[length++] = current;
+            while(childOffsets[current+1] - childOffsets[current] == 1){
+                current = children[childOffsets[current]];
+                vertices[length++] = current;
+            }
+            offsets[++branches] = length;
+            for(int i=childOffsets[current+1]-1; i>=childOffsets[current]; i--){
+                stack[top++] = children[i];
+            }
+        }
+        return new TreeBranchRanges(vertices, offsets, branches);
+    }
+}
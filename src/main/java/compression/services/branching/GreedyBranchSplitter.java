@@ -0,0 +1,50 @@
+package compression.services.branching;
+
+import compression.model.graph.TreeBranch;
+import compression.model.vrp.DistanceMatrix;
+import compression.model.vrp.helpers.LocationVertex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation of IBranchSplitter interface that cuts the branch whenever the next vertex does not fit the capacity.
+ */
+public class GreedyBranchSplitter implements IBranchSplitter {
+
+    /**
+     * Splits the branch into parts that fit vehicle capacity.
+     * @param branch Tree branch.
+     * @param maxCapacity Maximal vehicle capacity.
+     * @param distanceMatrix Distance matrix of the problem.
+     * @param finalBranches List the parts are added to.
+     */
+    @Override
+    public void splitBranch(TreeBranch<LocationVertex> branch, Double maxCapacity, DistanceMatrix distanceMatrix,
+                            List<TreeBranch<LocationVertex>> finalBranches){
+        Double capacity = 0.0;
+        List<LocationVertex> current = new ArrayList<>();
+        LocationVertex prev = null;
+        for(LocationVertex v : branch.getVertices()){
+            if(v.getDemand()+capacity <= maxCapacity){
+                current.add(v);
+                if(prev != null)
+                    capacity += v.getDemand();
+            } else{
+                TreeBranch<LocationVertex> b = new TreeBranch<>(current.get(0), current.get(current.size()-1), current);
+                finalBranches.add(b);
+                current = new ArrayList<>();
+                if(prev==null)
+                    throw new RuntimeException();
+                current.add(prev);
+                current.add(v);
+                capacity = v.getDemand();
+            }
+            prev = v;
+        }
+        if(current.size()>0){
+            TreeBranch<LocationVertex> b = new TreeBranch<>(current.get(0), current.get(current.size()-1), current);
+            finalBranches.add(b);
+        }
+    }
+}
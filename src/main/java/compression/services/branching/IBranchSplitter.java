@@ -0,0 +1,23 @@
+package compression.services.branching;
+
+import compression.model.graph.TreeBranch;
+import compression.model.vrp.DistanceMatrix;
+import compression.model.vrp.helpers.LocationVertex;
+
+import java.util.List;
+
+/**
+ * Defines a method for splitting tree branches whose demand exceeds vehicle capacity. Every part starts with the last
+ * vertex of the previous part (or with the start vertex of the branch), which is not counted into its demand.
+ */
+public interface IBranchSplitter {
+    /**
+     * Splits the branch into parts that fit vehicle capacity.
+     * @param branch Tree branch.
+     * @param maxCapacity Maximal vehicle capacity.
+     * @param distanceMatrix Distance matrix of the problem.
+     * @param finalBranches List the parts are added to.
+     */
+    void splitBranch(TreeBranch<LocationVertex> branch, Double maxCapacity, DistanceMatrix distanceMatrix,
+                     List<TreeBranch<LocationVertex>> finalBranches);
+}
@@ -0,0 +1,16 @@
+package compression.services.branching;
+
+import compression.model.graph.TreeBranchRanges;
+
+/**
+ * Defines a method for extracting tree branches from spanning arborescence given by parent array.
+ */
+public interface ICompactTreeBranchFinder {
+    /**
+     * Extracts branches from spanning arborescence.
+     * @param parents Index of parent vertex for every vertex (-1 for the root).
+     * @param root Index of the root vertex.
+     * @return Branches as ranges of vertex indices.
+     */
+    TreeBranchRanges findBranches(int[] parents, int root);
+}
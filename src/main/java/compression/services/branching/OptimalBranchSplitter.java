@@ -0,0 +1,75 @@
+package compression.services.branching;
+
+import compression.model.graph.TreeBranch;
+import compression.model.vrp.DistanceMatrix;
+import compression.model.vrp.helpers.LocationVertex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation of IBranchSplitter interface that splits the branch into the minimal number of parts and, among such
+ * splits, into the parts with the minimal sum of internal distances (that is, the cut edges are as long as possible).
+ * Dynamic programming over prefixes of the branch keeps the best predecessors of the sliding capacity window in
+ * a monotone queue, so a branch of L vertices is split in O(L) time. A vertex whose demand alone exceeds the capacity
+ * forms its own part.
+ */
+public class OptimalBranchSplitter implements IBranchSplitter {
+
+    /**
+     * Splits the branch into parts that fit vehicle capacity.
+     * @param branch Tree branch.
+     * @param maxCapacity Maximal vehicle capacity.
+     * @param distanceMatrix Distance matrix of the problem.
+     * @param finalBranches List the parts are added to.
+     */
+    @Override
+    public void splitBranch(TreeBranch<LocationVertex> branch, Double maxCapacity, DistanceMatrix distanceMatrix,
+                            List<TreeBranch<LocationVertex>> finalBranches){
+        List<LocationVertex> vertices = branch.getVertices();
+        int length = vertices.size()-1;
+        if(length <= 0){
+            finalBranches.add(new TreeBranch<>(vertices.get(0), vertices.get(vertices.size()-1), new ArrayList<>(vertices)));
+            return;
+        }
+        double[] demands = new double[length+1];
+        for(int i=1; i<=length; i++){
+            demands[i] = demands[i-1] + vertices.get(i).getDemand();
+        }
+        int[] parts = new int[length+1];
+        double[] cuts = new double[length+1];
+        int[] previous = new int[length+1];
+        int[] queue = new int[length+1];
+        int head = 0, tail = 0;
+        int low = 0;
+        for(int i=1; i<=length; i++){
+            int j = i-1;
+            while(tail > head && !isBetter(parts, cuts, queue[tail-1], j))
+                tail--;
+            queue[tail++] = j;
+            while(low < i-1 && demands[i] - demands[low] > maxCapacity)
+                low++;
+            while(queue[head] < low)
+                head++;
+            int best = queue[head];
+            double cut = i < length ? distanceMatrix.getDistance(vertices.get(i).getId(), vertices.get(i+1).getId()) : 0.0;
+            parts[i] = parts[best] + 1;
+            cuts[i] = cuts[best] - cut;
+            previous[i] = best;
+        }
+        int[] ends = new int[parts[length]];
+        for(int i=length, k=ends.length-1; i>0; i=previous[i], k--){
+            ends[k] = i;
+        }
+        int start = 0;
+        for(int end : ends){
+            List<LocationVertex> part = new ArrayList<>(vertices.subList(start, end+1));
+            finalBranches.add(new TreeBranch<>(part.get(0), part.get(part.size()-1), part));
+            start = end;
+        }
+    }
+
+    private boolean isBetter(int[] parts, double[] cuts, int first, int second){
+        return parts[first] < parts[second] || parts[first] == parts[second] && cuts[first] < cuts[second];
+    }
+}
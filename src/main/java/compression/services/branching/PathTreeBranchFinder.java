@@ -0,0 +1,88 @@
+package compression.services.branching;
+
+import compression.model.graph.TreeBranchRanges;
+
+import java.util.Arrays;
+
+/**
+ * Implementation of ICompactTreeBranchFinder interface that splits the tree into vertex-disjoint paths. Every vertex
+ * except the root continues its branch to the child with the largest subtree, other children start new branches, so
+ * the number of branches equals the number of leaves. Unlike CompactTreeBranchFinder the branches pass through
+ * vertices with more than one child, which allows to aggregate trees without vertices of a single child.
+ */
+public class PathTreeBranchFinder implements ICompactTreeBranchFinder {
+
+    /**
+     * Extracts branches from spanning arborescence.
+     * @param parents Index of parent vertex for every vertex (-1 for the root).
+     * @param root Index of the root vertex.
+     * @return Branches as ranges of vertex indices.
+     */
+    @Override
+    public TreeBranchRanges findBranches(int[] parents, int root) {
+        int n = parents.length;
+        int[] childOffsets = new int[n+1];
+        for(int v=0; v<n; v++){
+            if(v != root)
+                childOffsets[parents[v]+1]++;
+        }
+        for(int v=0; v<n; v++){
+            childOffsets[v+1] += childOffsets[v];
+        }
+        int[] children = new int[n];
+        int[] stack = new int[n];
+        for(int v=0; v<n; v++){
+            if(v != root){
+                int p = parents[v];
+                children[childOffsets[p] + stack[p]++] = v;
+            }
+        }
+        int[] order = new int[n];
+        int count = 0;
+        order[count++] = root;
+        for(int i=0; i<count; i++){
+            for(int c=childOffsets[order[i]]; c<childOffsets[order[i]+1]; c++){
+                order[count++] = children[c];
+            }
+        }
+        int[] subtree = new int[n];
+        int[] heavy = new int[n];
+        Arrays.fill(heavy, -1);
+        for(int i=count-1; i>=0; i--){
+            int v = order[i];
+            subtree[v]++;
+            if(v != root){
+                int p = parents[v];
+                subtree[p] += subtree[v];
+                if(p != root && (heavy[p] < 0 || subtree[v] > subtree[heavy[p]]))
+                    heavy[p] = v;
+            }
+        }
+        int[] vertices = new int[2*n];
+        int[] offsets = new int[n+1];
+        int branches = 0;
+        int length = 0;
+        int top = 0;
+        for(int i=childOffsets[root+1]-1; i>=childOffsets[root]; i--){
+            stack[top++] = children[i];
+        }
+        if(top == 0){
+            vertices[length++] = root;
+            offsets[++branches] = length;
+        }
+        while(top > 0){
+            int current = stack[--top];
+            vertices[length++] = parents[current];
+            while(current >= 0){
+                vertices[length++] = current;
+                for(int i=childOffsets[current+1]-1; i>=childOffsets[current]; i--){
+                    if(children[i] != heavy[current])
+                        stack[top++] = children[i];
+                }
+                current = heavy[current];
+            }
+            offsets[++branches] = length;
+        }
+        return new TreeBranchRanges(vertices, offsets, branches);
+    }
+}
@@ -3,30 +3,33 @@ package compression.services.branching;
 import compression.model.graph.Edge;
 import compression.model.graph.IMinimumSpanningArborescence;
 import compression.model.graph.TreeBranch;
-import compression.model.structures.FibonacciHeap;
-import lombok.AllArgsConstructor;
-import lombok.Getter;
-import lombok.RequiredArgsConstructor;
+import compression.model.graph.TreeBranchRanges;
 
 import java.util.*;
 
 /**
- * Implementation of ITreeBranchFinder interface.
+ * Implementation of ITreeBranchFinder interface. Vertices of the arborescence are indexed and branches are found on
+ * the parent array by ICompactTreeBranchFinder, so no recursion over the tree is needed.
  * @param <V> Vertex type.
  */
 public class TreeBranchFinder<V>
         implements ITreeBranchFinder<V> {
 
-    private static class TreeNode<V>{
-        @Getter
-        private final V value;
-        @Getter
-        private final List<Edge> edges;
+    private final ICompactTreeBranchFinder compactTreeBranchFinder;
 
-        public TreeNode(V value){
-            this.value = value;
-            this.edges = new ArrayList<>();
-        }
+    /**
+     * Initializes a new instance of TreeBranchFinder.
+     */
+    public TreeBranchFinder(){
+        this(new CompactTreeBranchFinder());
+    }
+
+    /**
+     * Initializes a new instance of TreeBranchFinder.
+     * @param compactTreeBranchFinder Finder of branches on parent array.
+     */
+    public TreeBranchFinder(ICompactTreeBranchFinder compactTreeBranchFinder){
+        this.compactTreeBranchFinder = compactTreeBranchFinder;
     }
 
     /**
@@ -36,51 +39,30 @@ public class TreeBranchFinder<V>
      */
     @Override
     public List<TreeBranch<V>> findBranches(IMinimumSpanningArborescence<V,Edge> arborescence) {
-        TreeNode<V> root = new TreeNode(arborescence.getRoot());
-        Map<V, TreeNode<V>> nodeMap = new HashMap<>();
-        nodeMap.put(arborescence.getRoot(), root);
-        for(Edge e : arborescence.getEdges()){
-            TreeNode<V> n = new TreeNode<>(e.getTarget());
-            nodeMap.put(e.getTarget(), n);
-        }
-        for(Edge e : arborescence.getEdges()){
-            TreeNode<V> n = nodeMap.get(e.getSource());
-            n.edges.add(e);
+        Set<Edge> edges = arborescence.getEdges();
+        List<V> vertices = new ArrayList<>(edges.size()+1);
+        Map<V, Integer> indices = new HashMap<>();
+        vertices.add(arborescence.getRoot());
+        indices.put(arborescence.getRoot(), 0);
+        for(Edge e : edges){
+            indices.put(e.getTarget(), vertices.size());
+            vertices.add(e.getTarget());
         }
-        Map<V, Boolean> visited = new HashMap<>();
-        for(Map.Entry<V, TreeNode<V>> e : nodeMap.entrySet()){
-            visited.put(e.getKey(), false);
+        int[] parents = new int[vertices.size()];
+        parents[0] = -1;
+        for(Edge e : edges){
+            parents[indices.get(e.getTarget())] = indices.get(e.getSource());
         }
-        List<List<V>> allBranches = new ArrayList<>();
-        List<V> currentBranch = new ArrayList<>();
-        findBranches(nodeMap, root.value, visited, currentBranch, allBranches);
-        List<TreeBranch<V>> treeBranches = new ArrayList<>();
-        for(List<V> l : allBranches){
-            treeBranches.add(new TreeBranch(l.get(0), l.get(l.size()-1), l));
-        }
-        return treeBranches;
-    }
-
-    private void findBranches(Map<V, TreeNode<V>> tree, V current, Map<V, Boolean> visited,
-                      List<V> currentBranch, List<List<V>> allBranches){
-        visited.put(current, true);
-        currentBranch.add(current);
-        TreeNode<V> node = tree.get(current);
-        if(node.edges.size() == 0) {
-            allBranches.add(currentBranch);
-            return;
-        }
-        if(node.edges.size()==1){
-            findBranches(tree, node.edges.get(0).getTarget(), visited, currentBranch, allBranches);
-        }
-        else {
-            if(currentBranch.size()>1)
-                allBranches.add(currentBranch);
-            for(Edge edge : node.edges){
-                List<V> branch = new ArrayList<>();
-                branch.add(current);
-                findBranches(tree, edge.getTarget(), visited, branch, allBranches);
+        TreeBranchRanges ranges = compactTreeBranchFinder.findBranches(parents, 0);
+        int[] buffer = ranges.getVertices();
+        List<TreeBranch<V>> treeBranches = new ArrayList<>(ranges.getBranchCount());
+        for(int b=0; b<ranges.getBranchCount(); b++){
+            List<V> branch = new ArrayList<>(ranges.getLength(b));
+            for(int i=ranges.getStart(b); i<ranges.getEnd(b); i++){
+                branch.add(vertices.get(buffer[i]));
             }
+            treeBranches.add(new TreeBranch<>(branch.get(0), branch.get(branch.size()-1), branch));
         }
+        return treeBranches;
     }
 }
@@ -0,0 +1,24 @@
+package compression.services.candidates;
+
+import compression.model.graph.CandidateGraph;
+
+/**
+ * Defines methods for filling candidate graphs with the cheapest edges of a complete graph.
+ */
+public interface ICandidateProvider {
+    /**
+     * Adds edges from the nearest vertices to every vertex of the graph and updates bounds of missing edges.
+     * @param graph Candidate graph.
+     * @param neighbours Number of incoming edges added for every vertex.
+     */
+    void addNearest(CandidateGraph graph, int neighbours);
+
+    /**
+     * Adds all missing edges entering the vertex that are lighter than the given weight and updates the bound of
+     * missing edges.
+     * @param graph Candidate graph.
+     * @param target Target vertex.
+     * @param weight Weight up to which all incoming edges should be present.
+     */
+    void addLighterThan(CandidateGraph graph, int target, double weight);
+}
@@ -0,0 +1,109 @@
+package compression.services.candidates;
+
+import compression.model.graph.CandidateGraph;
+import compression.model.vrp.DistanceMatrix;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Implementation of ICandidateProvider interface that scans rows of a distance matrix. Works for any (also asymmetric)
+ * matrix in O(n^2) time, but keeps only O(n*k) edges.
+ */
+@RequiredArgsConstructor
+public class MatrixCandidateProvider implements ICandidateProvider {
+
+    private final DistanceMatrix distanceMatrix;
+
+    /**
+     * Adds edges from the nearest vertices to every vertex of the graph and updates bounds of missing edges.
+     * @param graph Candidate graph.
+     * @param neighbours Number of incoming edges added for every vertex.
+     */
+    @Override
+    public void addNearest(CandidateGraph graph, int neighbours) {
+        int n = graph.getVertexCount();
+        int k = Math.min(neighbours, n-1);
+        if(k <= 0){
+            markComplete(graph);
+            return;
+        }
+        int[] sources = new int[n*k];
+        double[] weights = new double[n*k];
+        int[] counts = new int[n];
+        for(int u=0; u<n; u++){
+            for(int v=0; v<n; v++){
+                if(u != v)
+                    offer(sources, weights, v*k, counts, v, k, u, distanceMatrix.getDistance(u, v));
+            }
+        }
+        for(int v=0; v<n; v++){
+            for(int i=0; i<k; i++){
+                graph.addEdge(sources[v*k+i], v, weights[v*k+i]);
+            }
+            graph.setMissingWeightBound(v, k == n-1 ? Double.POSITIVE_INFINITY : weights[v*k]);
+        }
+    }
+
+    /**
+     * Adds all missing edges entering the vertex that are lighter than the given weight and updates the bound of
+     * missing edges.
+     * @param graph Candidate graph.
+     * @param target Target vertex.
+     * @param weight Weight up to which all incoming edges should be present.
+     */
+    @Override
+    public void addLighterThan(CandidateGraph graph, int target, double weight) {
+        double bound = graph.getMissingWeightBound(target);
+        if(weight <= bound)
+            return;
+        for(int u=0; u<graph.getVertexCount(); u++){
+            if(u == target)
+                continue;
+            double w = distanceMatrix.getDistance(u, target);
+            if(w >= bound && w < weight)
+                graph.addEdge(u, target, w);
+        }
+        graph.setMissingWeightBound(target, weight);
+    }
+
+    private void markComplete(CandidateGraph graph){
+        for(int v=0; v<graph.getVertexCount(); v++){
+            graph.setMissingWeightBound(v, Double.POSITIVE_INFINITY);
+        }
+    }
+
+    private static void offer(int[] sources, double[] weights, int offset, int[] counts, int target, int k,
+                              int source, double weight){
+        int count = counts[target];
+        int i;
+        if(count < k){
+            i = count;
+            counts[target] = count+1;
+            while(i > 0){
+                int parent = (i-1) >>> 1;
+                if(weights[offset+parent] >= weight)
+                    break;
+                sources[offset+i] = sources[offset+parent];
+                weights[offset+i] = weights[offset+parent];
+                i = parent;
+            }
+        } else {
+            if(weight >= weights[offset])
+                return;
+            i = 0;
+            while(true){
+                int child = 2*i+1;
+                if(child >= k)
+                    break;
+                if(child+1 < k && weights[offset+child+1] > weights[offset+child])
+                    child++;
+                if(weights[offset+child] <= weight)
+                    break;
+                sources[offset+i] = sources[offset+child];
+                weights[offset+i] = weights[offset+child];
+                i = child;
+            }
+        }
+        sources[offset+i] = source;
+        weights[offset+i] = weight;
+    }
+}
@@ -0,0 +1,63 @@
+package compression.services.candidates;
+
+import compression.model.graph.CandidateGraph;
+import compression.model.structures.ISpatialIndex;
+import compression.model.vrp.DistanceMatrix;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Implementation of ICandidateProvider interface for problems with Euclidean metric. Nearest vertices are found with
+ * a spatial index over locations, so the candidate graph is built in about O(n*k*log n) time. Edge weights are still
+ * taken from the distance matrix.
+ */
+@RequiredArgsConstructor
+public class SpatialCandidateProvider implements ICandidateProvider {
+
+    private final ISpatialIndex spatialIndex;
+    private final DistanceMatrix distanceMatrix;
+
+    /**
+     * Adds edges from the nearest vertices to every vertex of the graph and updates bounds of missing edges.
+     * @param graph Candidate graph.
+     * @param neighbours Number of incoming edges added for every vertex.
+     */
+    @Override
+    public void addNearest(CandidateGraph graph, int neighbours) {
+        int n = graph.getVertexCount();
+        int k = Math.min(neighbours, n-1);
+        int[] found = new int[Math.max(k, 1)];
+        double[] distances = new double[Math.max(k, 1)];
+        for(int v=0; v<n; v++){
+            int count = spatialIndex.nearest(spatialIndex.getX(v), spatialIndex.getY(v), k, v, found, distances);
+            double bound = 0.0;
+            for(int i=0; i<count; i++){
+                double w = distanceMatrix.getDistance(found[i], v);
+                graph.addEdge(found[i], v, w);
+                bound = Math.max(bound, w);
+            }
+            graph.setMissingWeightBound(v, k == n-1 ? Double.POSITIVE_INFINITY : bound);
+        }
+    }
+
+    /**
+     * Adds all missing edges entering the vertex that are lighter than the given weight and updates the bound of
+     * missing edges.
+     * @param graph Candidate graph.
+     * @param target Target vertex.
+     * @param weight Weight up to which all incoming edges should be present.
+     */
+    @Override
+    public void addLighterThan(CandidateGraph graph, int target, double weight) {
+        double bound = graph.getMissingWeightBound(target);
+        if(weight <= bound)
+            return;
+        spatialIndex.forEachWithin(spatialIndex.getX(target), spatialIndex.getY(target), weight, u -> {
+            if(u == target)
+                return;
+            double w = distanceMatrix.getDistance(u, target);
+            if(w >= bound && w < weight)
+                graph.addEdge(u, target, w);
+        });
+        graph.setMissingWeightBound(target, weight);
+    }
+}
@@ -0,0 +1,135 @@
+package compression.services.compression;
+
+import compression.model.graph.TreeBranch;
+import compression.model.vrp.Vehicle;
+import compression.model.vrp.VrpProblem;
+import compression.model.vrp.helpers.AggregatedService;
+import compression.model.vrp.helpers.LocationVertex;
+import compression.services.branching.GreedyBranchSplitter;
+import compression.services.branching.IBranchSplitter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Serves common methods for compression services: splitting of tree branches by vehicle capacity and aggregation of
+ * branches into services. Every branch is split and aggregated independently of the others, so when a pool is set
+ * both stages run on it. Results are merged in the order of the sorted branches and the ids of services are given by
+ * their positions, so the parallel mode returns the same services as the sequential one.
+ */
+public abstract class BaseCompressionService implements ICompressionService {
+    private static final int BRANCHES_PER_TASK = 64;
+
+    /**
+     * Strategy used to split branches that exceed vehicle capacity.
+     */
+    @Setter
+    private IBranchSplitter branchSplitter = new GreedyBranchSplitter();
+
+    /**
+     * Pool on which branches are split and aggregated, branches are processed sequentially when it is null.
+     */
+    @Setter
+    private ForkJoinPool pool;
+
+    /**
+     * Sorts the branches and splits those that exceed vehicle capacity.
+     * @param problem Original VRP problem.
+     * @param branches Branches of the spanning arborescence.
+     * @return Branches that fit vehicle capacity.
+     */
+    protected List<TreeBranch<LocationVertex>> splitBranches(VrpProblem problem, List<TreeBranch<LocationVertex>> branches){
+        branches.sort((o1, o2) -> (int)(o1.getVertices().get(1).getId()-o2.getVertices().get(1).getId()));
+        Double maxCapacity = getMexCapavity(problem);
+        if(pool == null){
+            List<TreeBranch<LocationVertex>> finalBranches = new ArrayList<>();
+            for (TreeBranch<LocationVertex> branch : branches) {
+                branchSplitter.splitBranch(branch, maxCapacity, problem.getDistanceMatrix(), finalBranches);
+            }
+            return finalBranches;
+        }
+        List<List<TreeBranch<LocationVertex>>> parts = new ArrayList<>(Collections.nCopies(branches.size(), null));
+        pool.invoke(new RangeTask(0, branches.size(), i -> {
+            List<TreeBranch<LocationVertex>> part = new ArrayList<>();
+            branchSplitter.splitBranch(branches.get(i), maxCapacity, problem.getDistanceMatrix(), part);
+            parts.set(i, part);
+        }));
+        List<TreeBranch<LocationVertex>> finalBranches = new ArrayList<>();
+        for(List<TreeBranch<LocationVertex>> part : parts){
+            finalBranches.addAll(part);
+        }
+        return finalBranches;
+    }
+
+    /**
+     * Converts branches to aggregated services.
+     * @param problem Original VRP problem.
+     * @param finalBranches Branches that fit vehicle capacity.
+     * @param time Compression time in seconds.
+     * @return Compression phase result.
+     */
+    protected CompressionResult aggregate(VrpProblem problem, List<TreeBranch<LocationVertex>> finalBranches, Double time){
+        List<AggregatedService> list = new ArrayList<>(Collections.nCopies(finalBranches.size(), null));
+        if(pool == null){
+            for(int i=0; i<finalBranches.size(); i++){
+                list.set(i, aggregate(problem, finalBranches.get(i), 2L+i));
+            }
+        } else {
+            pool.invoke(new RangeTask(0, finalBranches.size(), i -> list.set(i, aggregate(problem, finalBranches.get(i), 2L+i))));
+        }
+        return new CompressionResult(list, time);
+    }
+
+    private AggregatedService aggregate(VrpProblem problem, TreeBranch<LocationVertex> v, Long id){
+        Double dist = 0.0;
+        v.getVertices().remove(0);
+        LocationVertex prev = v.getVertices().get(0);
+        Double cost = prev.getDemand();
+        Double backwardDist = 0.0;
+        for(LocationVertex vv : v.getVertices()){
+            if(vv==prev) continue;
+            cost += vv.getDemand();
+            dist += problem.getDistanceMatrix().getDistance(prev.getId(), vv.getId());
+            backwardDist += problem.getDistanceMatrix().getDistance(vv.getId(), prev.getId());
+            prev = vv;
+        }
+        return new AggregatedService(v.getVertices(), v.getVertices().get(0), v.getEndVertex(), cost, id, dist, backwardDist);
+    }
+
+    private Double getMexCapavity(VrpProblem problem){
+        Double maxCapacity = 0.0;
+        for(Vehicle vehicle : problem.getVehicles()){
+            if(maxCapacity < vehicle.getCapacity())
+                maxCapacity = vehicle.getCapacity().doubleValue();
+        }
+        return maxCapacity;
+    }
+
+    /**
+     * Task that processes a range of branch indices, large ranges are halved.
+     */
+    @RequiredArgsConstructor
+    private static class RangeTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final IntConsumer action;
+
+        @Override
+        protected void compute() {
+            if(to - from > BRANCHES_PER_TASK){
+                int middle = (from + to) >>> 1;
+                invokeAll(new RangeTask(from, middle, action), new RangeTask(middle, to, action));
+                return;
+            }
+            for(int i=from; i<to; i++){
+                action.accept(i);
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package compression.services.compression;
+
+import compression.model.graph.CandidateGraph;
+import compression.model.graph.CompactArborescence;
+import compression.model.vrp.DistanceMatrix;
+import compression.model.vrp.EuclideanDistanceMatrix;
+import compression.model.vrp.VrpProblem;
+import compression.model.vrp.VrpProblemMetric;
+import compression.services.branching.ICompactTreeBranchFinder;
+import compression.services.candidates.ICandidateProvider;
+import compression.services.candidates.MatrixCandidateProvider;
+import compression.services.candidates.SpatialCandidateProvider;
+import compression.services.distance.IDistanceMatrixFactory;
+import compression.services.spatial.ISpatialIndexFactory;
+import compression.spanning.ICertifyingMinimumSpanningArborescenceFinder;
+
+/**
+ * Implementation of ICompressionService interface that finds the arborescence on a sparse candidate graph. The graph
+ * contains k cheapest incoming edges of every vertex and all depot edges. Potentials of the found arborescence are
+ * then checked against the cheapest missing edge of every vertex; edges are added only for vertices that violate the
+ * optimality condition, so the result is the same as on the complete graph. Candidates of Euclidean problems (also
+ * those already converted to explicit metric with a lazy Euclidean matrix) are found by a spatial index.
+ */
+public class CandidateCompressionService extends CompactCompressionService {
+
+    private static final double EPSILON = 1e-9;
+
+    private final ICertifyingMinimumSpanningArborescenceFinder minimumSpanningArborescenceFinder;
+    private final ISpatialIndexFactory spatialIndexFactory;
+    /**
+     * Number of cheapest incoming edges kept for every vertex.
+     */
+    protected final int neighbours;
+
+    /**
+     * Initializes a new instance of CandidateCompressionService.
+     * @param distanceMatrixFactory Factory used to create generated distance matrices.
+     * @param minimumSpanningArborescenceFinder Finder of minimum spanning arborescence.
+     * @param treeBranchFinder Finder of tree branches.
+     * @param spatialIndexFactory Factory of spatial indices used to find candidates on Euclidean problems.
+     * @param neighbours Number of cheapest incoming edges kept for every vertex.
+     */
+    public CandidateCompressionService(IDistanceMatrixFactory distanceMatrixFactory,
+                                       ICertifyingMinimumSpanningArborescenceFinder minimumSpanningArborescenceFinder,
+                                       ICompactTreeBranchFinder treeBranchFinder, ISpatialIndexFactory spatialIndexFactory,
+                                       int neighbours){
+        super(distanceMatrixFactory, minimumSpanningArborescenceFinder, treeBranchFinder);
+        if(neighbours < 1)
+            throw new IllegalArgumentException("Number of neighbours must be positive");
+        this.minimumSpanningArborescenceFinder = minimumSpanningArborescenceFinder;
+        this.spatialIndexFactory = spatialIndexFactory;
+        this.neighbours = neighbours;
+    }
+
+    /**
+     * Finds minimum spanning arborescence of the complete graph given by distance matrix of the problem using
+     * a candidate graph.
+     * @param problem VRP problem with distance matrix.
+     * @param root Index of the root vertex.
+     * @return Index of parent vertex for every vertex (-1 for the root).
+     */
+    @Override
+    protected int[] findParents(VrpProblem problem, int root){
+        ICandidateProvider provider = createCandidateProvider(problem);
+        CandidateGraph graph = createCandidateGraph(problem, provider, root);
+        return toParents(graph, findCertifiedArborescence(graph, provider, root).getInEdges());
+    }
+
+    /**
+     * Creates provider of candidate edges, nearest vertices of Euclidean problems are found by a spatial index.
+     * @param problem VRP problem with distance matrix.
+     * @return Candidate provider.
+     */
+    protected ICandidateProvider createCandidateProvider(VrpProblem problem){
+        DistanceMatrix matrix = problem.getDistanceMatrix();
+        boolean euclidean = problem.getProblemMetric() == VrpProblemMetric.Euclidean || EuclideanDistanceMatrix.isEuclidean(matrix);
+        return euclidean
+                ? new SpatialCandidateProvider(spatialIndexFactory.create(problem), matrix)
+                : new MatrixCandidateProvider(matrix);
+    }
+
+    /**
+     * Creates candidate graph with the cheapest incoming edges of every vertex and all depot edges.
+     * @param problem VRP problem with distance matrix.
+     * @param provider Candidate provider.
+     * @param root Index of the root vertex.
+     * @return Candidate graph.
+     */
+    protected CandidateGraph createCandidateGraph(VrpProblem problem, ICandidateProvider provider, int root){
+        DistanceMatrix matrix = problem.getDistanceMatrix();
+        int n = matrix.getDimensions();
+        CandidateGraph graph = new CandidateGraph(n, n*(neighbours+2));
+        provider.addNearest(graph, neighbours);
+        addRootEdges(graph, matrix, root);
+        return graph;
+    }
+
+    /**
+     * Adds all edges entering and leaving the root vertex to the candidate graph.
+     * @param graph Candidate graph.
+     * @param matrix Distance matrix.
+     * @param root Index of the root vertex.
+     */
+    protected static void addRootEdges(CandidateGraph graph, DistanceMatrix matrix, int root){
+        for(int v=0; v<graph.getVertexCount(); v++){
+            if(v != root){
+                graph.addEdge(root, v, matrix.getDistance(root, v));
+                graph.addEdge(v, root, matrix.getDistance(v, root));
+            }
+        }
+    }
+
+    /**
+     * Finds minimum spanning arborescence of the candidate graph and adds missing edges until its potentials prove
+     * it is optimal on the complete graph.
+     * @param graph Candidate graph, edges needed for the proof are added to it.
+     * @param provider Candidate provider.
+     * @param root Index of the root vertex.
+     * @return Arborescence with potentials of vertices.
+     */
+    protected CompactArborescence findCertifiedArborescence(CandidateGraph graph, ICandidateProvider provider, int root){
+        int n = graph.getVertexCount();
+        while(true){
+            CompactArborescence arborescence = minimumSpanningArborescenceFinder.getCertifiedSpanningArborescence(graph, root);
+            double[] potentials = arborescence.getPotentials();
+            boolean optimal = true;
+            for(int v=0; v<n; v++){
+                if(v != root && potentials[v] > graph.getMissingWeightBound(v) + EPSILON*Math.max(1.0, potentials[v])){
+                    provider.addLighterThan(graph, v, potentials[v]);
+                    optimal = false;
+                }
+            }
+            if(optimal)
+                return arborescence;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package compression.services.compression;
+
+import com.graphhopper.jsprit.core.util.StopWatch;
+import compression.model.graph.CompleteGraph;
+import compression.model.graph.ICompactGraph;
+import compression.model.graph.TreeBranch;
+import compression.model.graph.TreeBranchRanges;
+import compression.model.vrp.Client;
+import compression.model.vrp.VrpProblem;
+import compression.model.vrp.helpers.LocationVertex;
+import compression.services.branching.ICompactTreeBranchFinder;
+import compression.services.distance.IDistanceMatrixFactory;
+import compression.spanning.ICompactMinimumSpanningArborescenceFinder;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation of ICompressionService interface that works on the distance matrix as an implicit complete graph.
+ * Vertices are identified by their indices, so no graph objects are created before the branches are known.
+ */
+@RequiredArgsConstructor
+public class CompactCompressionService extends BaseCompressionService implements ICompressionService {
+
+    private final IDistanceMatrixFactory distanceMatrixFactory;
+    private final ICompactMinimumSpanningArborescenceFinder minimumSpanningArborescenceFinder;
+    private final ICompactTreeBranchFinder treeBranchFinder;
+
+    /**
+     * Compresses the VRP problem.
+     * @param problem Original VRP problem.
+     * @return Compression phase result.
+     */
+    @Override
+    public CompressionResult getAggregatedClients(VrpProblem problem) {
+        StopWatch watch = new StopWatch();
+        prepareDistanceMatrix(problem);
+        watch.reset();
+        watch.start();
+        int root = 0;
+        int[] parents = findParents(problem, root);
+        List<TreeBranch<LocationVertex>> finalBranches = findFinalBranches(problem, parents, root);
+        watch.stop();
+        Double time = watch.getCurrTimeInSeconds();
+        return aggregate(problem, finalBranches, time);
+    }
+
+    /**
+     * Creates distance matrix of problems with Euclidean metric.
+     * @param problem VRP problem.
+     */
+    protected void prepareDistanceMatrix(VrpProblem problem){
+        switch (problem.getProblemMetric()){
+            case Euclidean:
+                problem.setDistanceMatrix(distanceMatrixFactory.createEuclidean(problem));
+                break;
+            case Explicit:
+                break;
+            default:
+                throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * Extracts branches of the spanning arborescence and splits those that exceed vehicle capacity.
+     * @param problem VRP problem.
+     * @param parents Index of parent vertex for every vertex (-1 for the root).
+     * @param root Index of the root vertex.
+     * @return Branches that fit vehicle capacity.
+     */
+    protected List<TreeBranch<LocationVertex>> findFinalBranches(VrpProblem problem, int[] parents, int root){
+        LocationVertex[] vertices = createVertices(problem);
+        TreeBranchRanges ranges = treeBranchFinder.findBranches(parents, root);
+        int[] buffer = ranges.getVertices();
+        List<TreeBranch<LocationVertex>> branches = new ArrayList<>(ranges.getBranchCount());
+        for(int b=0; b<ranges.getBranchCount(); b++){
+            List<LocationVertex> branchVertices = new ArrayList<>(ranges.getLength(b));
+            for(int i=ranges.getStart(b); i<ranges.getEnd(b); i++){
+                branchVertices.add(vertices[buffer[i]]);
+            }
+            branches.add(new TreeBranch<>(branchVertices.get(0), branchVertices.get(branchVertices.size()-1), branchVertices));
+        }
+        return splitBranches(problem, branches);
+    }
+
+    /**
+     * Finds minimum spanning arborescence of the complete graph given by distance matrix of the problem.
+     * @param problem VRP problem with distance matrix.
+     * @param root Index of the root vertex.
+     * @return Index of parent vertex for every vertex (-1 for the root).
+     */
+    protected int[] findParents(VrpProblem problem, int root){
+        ICompactGraph graph = new CompleteGraph(problem.getDistanceMatrix());
+        return toParents(graph, minimumSpanningArborescenceFinder.getSpanningArborescence(graph, root));
+    }
+
+    /**
+     * Converts arborescence given by incoming edges to parent array.
+     * @param graph Graph.
+     * @param in Index of the arborescence edge entering every vertex (-1 for the root).
+     * @return Index of parent vertex for every vertex (-1 for the root).
+     */
+    protected static int[] toParents(ICompactGraph graph, int[] in){
+        int[] parents = new int[in.length];
+        for(int v=0; v<in.length; v++){
+            parents[v] = in[v] < 0 ? -1 : graph.getEdgeSource(in[v]);
+        }
+        return parents;
+    }
+
+    private LocationVertex[] createVertices(VrpProblem problem){
+        LocationVertex[] vertices = new LocationVertex[problem.getDimensions()];
+        vertices[0] = new LocationVertex(problem.getDepot().getId(), problem.getDepot().getLocation(), 0.0);
+        for(Client c : problem.getClients()){
+            vertices[c.getId().intValue()-1] = new LocationVertex(c.getId(), c.getLocation(), c.getAmount());
+        }
+        return vertices;
+    }
+}
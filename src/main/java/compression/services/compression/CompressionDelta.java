@@ -0,0 +1,30 @@
+package compression.services.compression;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Describes changes of clients between two versions of a problem. Vertices that are neither deleted nor inserted keep
+ * their relative order, so the i-th surviving vertex of the previous problem is the i-th surviving vertex of the
+ * updated problem. Distances between surviving vertices must not change.
+ */
+@AllArgsConstructor
+public class CompressionDelta {
+    /**
+     * Ids of clients of the updated problem that were not in the previous problem.
+     */
+    @Getter
+    private List<Long> insertedClients;
+    /**
+     * Ids of clients of the previous problem that are not in the updated problem.
+     */
+    @Getter
+    private List<Long> deletedClients;
+    /**
+     * Ids of clients of the updated problem whose demand has changed.
+     */
+    @Getter
+    private List<Long> reweightedClients;
+}
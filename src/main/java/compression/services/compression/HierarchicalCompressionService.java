@@ -0,0 +1,159 @@
+package compression.services.compression;
+
+import compression.model.vrp.*;
+import compression.model.vrp.helpers.AggregatedService;
+import compression.model.vrp.helpers.LocationVertex;
+import compression.services.distance.IDistanceMatrixFactory;
+import compression.services.resolving.ServiceOrientationHelper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of ICompressionService interface that compresses the problem in several levels. Aggregated services
+ * of the first level become clients of a new VRP problem that is compressed again by the level service, until the
+ * requested compression ratio is reached or vehicle capacity prevents any further aggregation. Distances between
+ * services of a level connect their closest ends, because re-using the directed input-output distances would only
+ * rebuild the previous tree. The level service should not require vertices of a single child (see PathTreeBranchFinder),
+ * since the tree of services rarely has them. Services of every level are unwound through the compression maps of previous levels
+ * (member directions are chosen to make the chain shortest), so the result refers to vertices of the original problem
+ * and can be decompressed as a single-level result.
+ */
+public class HierarchicalCompressionService implements ICompressionService {
+
+    private final ICompressionService compressionService;
+    private final ICompressionService levelCompressionService;
+    private final IDistanceMatrixFactory distanceMatrixFactory;
+    private final double targetRatio;
+
+    /**
+     * Initializes a new instance of HierarchicalCompressionService.
+     * @param compressionService Service used to compress the original problem.
+     * @param levelCompressionService Service used to compress problems of aggregated services.
+     * @param distanceMatrixFactory Factory used to create distance matrices of compressed levels.
+     * @param targetRatio Requested ratio between the number of aggregated services and the number of clients.
+     */
+    public HierarchicalCompressionService(ICompressionService compressionService,
+                                          ICompressionService levelCompressionService,
+                                          IDistanceMatrixFactory distanceMatrixFactory, double targetRatio){
+        if(!(targetRatio > 0.0 && targetRatio <= 1.0))
+            throw new IllegalArgumentException("Compression ratio must be in (0, 1]");
+        this.compressionService = compressionService;
+        this.levelCompressionService = levelCompressionService;
+        this.distanceMatrixFactory = distanceMatrixFactory;
+        this.targetRatio = targetRatio;
+    }
+
+    /**
+     * Compresses the VRP problem.
+     * @param problem Original VRP problem.
+     * @return Compression phase result.
+     */
+    @Override
+    public CompressionResult getAggregatedClients(VrpProblem problem) {
+        CompressionResult result = compressionService.getAggregatedClients(problem);
+        List<AggregatedService> services = result.getAggregatedServices();
+        double time = result.getTime();
+        int target = (int)Math.floor(targetRatio * problem.getClients().size());
+        while(services.size() > Math.max(target, 1)){
+            VrpProblem level = createLevelProblem(problem, services);
+            CompressionResult levelResult;
+            try {
+                levelResult = levelCompressionService.getAggregatedClients(level);
+            } finally {
+                DistanceMatrix.release(level.getDistanceMatrix());
+            }
+            time += levelResult.getTime();
+            if(levelResult.getAggregatedServices().size() >= services.size())
+                break;
+            services = unwind(problem.getDistanceMatrix(), levelResult.getAggregatedServices(), services);
+        }
+        return new CompressionResult(services, time);
+    }
+
+    private VrpProblem createLevelProblem(VrpProblem problem, List<AggregatedService> services){
+        Depot depot = problem.getDepot();
+        DistanceMatrix distances = problem.getDistanceMatrix();
+        DistanceMatrix matrix = distanceMatrixFactory.create(services.size()+1);
+        List<Client> clients = new ArrayList<>(services.size());
+        for(AggregatedService from : services){
+            clients.add(new Client(from.getId(), from.getInternalCost(), 0.0, from.getInputVertex().getLocation()));
+            for(AggregatedService to : services){
+                if(from != to)
+                    matrix.setDistance(from.getId(), to.getId(), getConnectionDistance(distances, from, to) + getInternalDistance(to));
+            }
+            Long depotId = depot.getId();
+            Double fromDepot = Math.min(distances.getDistance(depotId, from.getInputVertex().getId()),
+                    distances.getDistance(depotId, from.getOutputVertex().getId())) + getInternalDistance(from);
+            matrix.setDistance(depotId, from.getId(), fromDepot);
+            Double toDepot = Math.min(distances.getDistance(from.getOutputVertex().getId(), depotId),
+                    distances.getDistance(from.getInputVertex().getId(), depotId));
+            matrix.setDistance(from.getId(), depotId, toDepot);
+        }
+        return new VrpProblem(problem.getProblemName(), problem.getBestKnownSolution(), services.size()+1,
+                VrpProblemMetric.Explicit, clients, problem.getVehicles(), depot, matrix);
+    }
+
+    /**
+     * Gets the distance between the closest ends of two services, either of them may be traversed backwards.
+     */
+    private double getConnectionDistance(DistanceMatrix distances, AggregatedService from, AggregatedService to){
+        double best = Double.POSITIVE_INFINITY;
+        for(int f=0; f<2; f++){
+            for(int t=0; t<2; t++){
+                best = Math.min(best, distances.getDistance(getEnd(from, f == 1), getStart(to, t == 1)));
+            }
+        }
+        return best;
+    }
+
+    private double getInternalDistance(AggregatedService service){
+        return Math.min(service.getInternalDistance(), service.getInternalBackwardDistance());
+    }
+
+    private Long getStart(AggregatedService service, boolean reversed){
+        return reversed ? service.getOutputVertex().getId() : service.getInputVertex().getId();
+    }
+
+    private Long getEnd(AggregatedService service, boolean reversed){
+        return reversed ? service.getInputVertex().getId() : service.getOutputVertex().getId();
+    }
+
+    private List<AggregatedService> unwind(DistanceMatrix distances, List<AggregatedService> levelServices,
+                                           List<AggregatedService> previousServices){
+        Map<Long, AggregatedService> compressionMap = new HashMap<>();
+        for(AggregatedService s : previousServices){
+            compressionMap.put(s.getId(), s);
+        }
+        List<AggregatedService> services = new ArrayList<>(levelServices.size());
+        for(AggregatedService levelService : levelServices){
+            List<AggregatedService> members = new ArrayList<>(levelService.getVertices().size());
+            Double cost = 0.0;
+            for(LocationVertex v : levelService.getVertices()){
+                AggregatedService member = compressionMap.get(v.getId());
+                members.add(member);
+                cost += member.getInternalCost();
+            }
+            boolean[] reversed = ServiceOrientationHelper.orient(members, null, distances);
+            List<LocationVertex> vertices = new ArrayList<>();
+            for(int i=0; i<members.size(); i++){
+                List<LocationVertex> memberVertices = new ArrayList<>(members.get(i).getVertices());
+                if(reversed[i])
+                    Collections.reverse(memberVertices);
+                vertices.addAll(memberVertices);
+            }
+            Double dist = 0.0;
+            Double backwardDist = 0.0;
+            for(int i=1; i<vertices.size(); i++){
+                dist += distances.getDistance(vertices.get(i-1).getId(), vertices.get(i).getId());
+                backwardDist += distances.getDistance(vertices.get(i).getId(), vertices.get(i-1).getId());
+            }
+            services.add(new AggregatedService(vertices, vertices.get(0), vertices.get(vertices.size()-1), cost,
+                    levelService.getId(), dist, backwardDist));
+        }
+        return services;
+    }
+}
@@ -0,0 +1,26 @@
+package compression.services.compression;
+
+import compression.model.vrp.VrpProblem;
+
+/**
+ * Defines methods for compressing VRP problems that change by a few clients at a time.
+ */
+public interface IIncrementalCompressionService extends ICompressionService {
+    /**
+     * Compresses the VRP problem from scratch.
+     * @param problem Original VRP problem.
+     * @return Compression phase result that can be updated.
+     */
+    IncrementalCompressionResult compress(VrpProblem problem);
+
+    /**
+     * Compresses the updated VRP problem by repairing the result of the previous problem. The arborescence has the same
+     * weight as the one found by compressing the updated problem from scratch, but it may be another arborescence of
+     * that weight when distances tie, so aggregated services may differ.
+     * @param previous Compression result of the previous problem.
+     * @param problem Updated VRP problem.
+     * @param delta Changes of clients between the previous and the updated problem.
+     * @return Compression phase result that can be updated.
+     */
+    IncrementalCompressionResult update(IncrementalCompressionResult previous, VrpProblem problem, CompressionDelta delta);
+}
@@ -0,0 +1,35 @@
+package compression.services.compression;
+
+import compression.model.graph.CandidateGraph;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Defines a compression phase result that can be updated after the clients change. Besides the aggregated services
+ * it keeps the spanning arborescence, the potentials that prove its optimality and the candidate graph it was found on.
+ */
+@AllArgsConstructor
+public class IncrementalCompressionResult {
+    @Getter
+    private CompressionResult compressionResult;
+    /**
+     * Index of parent vertex for every vertex (-1 for the root).
+     */
+    @Getter
+    private int[] parents;
+    /**
+     * Potentials of vertices, see CompactArborescence.
+     */
+    @Getter
+    private double[] potentials;
+    /**
+     * Candidate graph that contains every edge lighter than the missing weight bound of its target.
+     */
+    @Getter
+    private CandidateGraph candidateGraph;
+    /**
+     * Whether the arborescence was repaired (false when it was computed from scratch).
+     */
+    @Getter
+    private Boolean repaired;
+}
@@ -0,0 +1,278 @@
+package compression.services.compression;
+
+import com.graphhopper.jsprit.core.util.StopWatch;
+import compression.model.graph.CandidateGraph;
+import compression.model.graph.CompactArborescence;
+import compression.model.graph.TreeBranch;
+import compression.model.vrp.DistanceMatrix;
+import compression.model.vrp.VrpProblem;
+import compression.model.vrp.helpers.LocationVertex;
+import compression.services.branching.ICompactTreeBranchFinder;
+import compression.services.candidates.ICandidateProvider;
+import compression.services.distance.IDistanceMatrixFactory;
+import compression.services.spatial.ISpatialIndexFactory;
+import compression.spanning.ICertifyingMinimumSpanningArborescenceFinder;
+import lombok.Setter;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Implementation of IIncrementalCompressionService interface that repairs the minimum spanning arborescence of the
+ * previous problem instead of finding a new one. Potentials of the arborescence prove the repair is optimal:
+ * <ul>
+ *     <li>re-weighted clients do not change the arborescence, only the splitting of branches,</li>
+ *     <li>deleting a client without children (or a whole subtree) keeps the rest of the arborescence optimal,</li>
+ *     <li>an inserted client is connected by its cheapest incoming edge, which is optimal when no edge leaving it is
+ *     lighter than the potential of its target.</li>
+ * </ul>
+ * The candidate graph of the previous problem is kept up to date as well: edges of deleted clients are dropped and
+ * edges of inserted clients are added wherever they are lighter than the missing weight bound of their target. When
+ * any change can not be proved by the potentials (a deleted client with surviving children or an inserted client that
+ * could become a parent), the arborescence is found again on the updated candidate graph instead of the complete one.
+ * Branches are always rebuilt from the arborescence, which takes linear time. The arborescence is always of minimum
+ * weight, but when distances tie it may differ from the one found from scratch, and so may the aggregated services.
+ * When updates are verified, every update is compared with compression from scratch (meant for debugging).
+ */
+public class IncrementalCompressionService extends CandidateCompressionService implements IIncrementalCompressionService {
+
+    private static final double EPSILON = 1e-9;
+    private static final int ROOT = 0;
+
+    /**
+     * Whether every update is checked against an arborescence found from scratch, which removes the speed-up.
+     */
+    @Setter
+    private boolean verifyUpdates;
+
+    /**
+     * Initializes a new instance of IncrementalCompressionService.
+     * @param distanceMatrixFactory Factory used to create generated distance matrices.
+     * @param minimumSpanningArborescenceFinder Finder of minimum spanning arborescence with potentials.
+     * @param treeBranchFinder Finder of tree branches.
+     * @param spatialIndexFactory Factory of spatial indices used to find candidates on Euclidean problems.
+     * @param neighbours Number of cheapest incoming edges kept for every vertex.
+     */
+    public IncrementalCompressionService(IDistanceMatrixFactory distanceMatrixFactory,
+                                         ICertifyingMinimumSpanningArborescenceFinder minimumSpanningArborescenceFinder,
+                                         ICompactTreeBranchFinder treeBranchFinder, ISpatialIndexFactory spatialIndexFactory,
+                                         int neighbours){
+        super(distanceMatrixFactory, minimumSpanningArborescenceFinder, treeBranchFinder, spatialIndexFactory, neighbours);
+    }
+
+    /**
+     * Compresses the VRP problem from scratch.
+     * @param problem Original VRP problem.
+     * @return Compression phase result that can be updated.
+     */
+    @Override
+    public IncrementalCompressionResult compress(VrpProblem problem) {
+        StopWatch watch = new StopWatch();
+        prepareDistanceMatrix(problem);
+        watch.reset();
+        watch.start();
+        return recompute(problem, watch);
+    }
+
+    /**
+     * Compresses the updated VRP problem by repairing the result of the previous problem. The arborescence has the same
+     * weight as the one found by compressing the updated problem from scratch, but it may be another arborescence of
+     * that weight when distances tie, so aggregated services may differ.
+     * @param previous Compression result of the previous problem.
+     * @param problem Updated VRP problem.
+     * @param delta Changes of clients between the previous and the updated problem.
+     * @return Compression phase result that can be updated.
+     */
+    @Override
+    public IncrementalCompressionResult update(IncrementalCompressionResult previous, VrpProblem problem, CompressionDelta delta) {
+        StopWatch watch = new StopWatch();
+        prepareDistanceMatrix(problem);
+        watch.reset();
+        watch.start();
+        int previousDimensions = previous.getParents().length;
+        int dimensions = problem.getDimensions();
+        boolean[] deleted = toMask(delta.getDeletedClients(), previousDimensions);
+        boolean[] inserted = toMask(delta.getInsertedClients(), dimensions);
+        toMask(delta.getReweightedClients(), dimensions);
+        if(previousDimensions - delta.getDeletedClients().size() + delta.getInsertedClients().size() != dimensions)
+            throw new IllegalArgumentException("Delta does not match dimensions of the problems");
+        int[] indices = new int[previousDimensions];
+        for(int i=0, j=0; i<previousDimensions; i++){
+            if(deleted[i]){
+                indices[i] = -1;
+                continue;
+            }
+            while(inserted[j]) j++;
+            indices[i] = j++;
+        }
+        if(indices[ROOT] != ROOT)
+            throw new IllegalArgumentException("Depot can not be changed");
+        CandidateGraph graph = updateCandidateGraph(previous.getCandidateGraph(), indices, problem.getDistanceMatrix(), inserted);
+        int[] parents = new int[dimensions];
+        double[] potentials = new double[dimensions];
+        IncrementalCompressionResult result = repair(previous, indices, problem.getDistanceMatrix(), inserted, parents, potentials)
+                ? finish(problem, parents, potentials, graph, true, watch)
+                : recompute(problem, graph, createCandidateProvider(problem), watch);
+        if(verifyUpdates)
+            verify(problem, result);
+        return result;
+    }
+
+    /**
+     * Checks that the arborescence of the updated problem has the weight of the arborescence found from scratch.
+     * @throws IllegalStateException When the weights differ.
+     */
+    private void verify(VrpProblem problem, IncrementalCompressionResult result){
+        StopWatch watch = new StopWatch();
+        watch.start();
+        IncrementalCompressionResult expected = recompute(problem, watch);
+        double weight = getWeight(result.getParents(), problem.getDistanceMatrix());
+        double expectedWeight = getWeight(expected.getParents(), problem.getDistanceMatrix());
+        if(Math.abs(weight - expectedWeight) > EPSILON*Math.max(1.0, expectedWeight))
+            throw new IllegalStateException("Updated arborescence weight "+weight+" differs from weight "+expectedWeight+
+                    " found from scratch (repaired: "+result.getRepaired()+")");
+    }
+
+    private static double getWeight(int[] parents, DistanceMatrix matrix){
+        double weight = 0.0;
+        for(int v=0; v<parents.length; v++){
+            if(parents[v] >= 0)
+                weight += matrix.getDistance(parents[v], v);
+        }
+        return weight;
+    }
+
+    private IncrementalCompressionResult recompute(VrpProblem problem, StopWatch watch){
+        ICandidateProvider provider = createCandidateProvider(problem);
+        return recompute(problem, createCandidateGraph(problem, provider, ROOT), provider, watch);
+    }
+
+    private IncrementalCompressionResult recompute(VrpProblem problem, CandidateGraph graph, ICandidateProvider provider, StopWatch watch){
+        CompactArborescence arborescence = findCertifiedArborescence(graph, provider, ROOT);
+        int[] parents = toParents(graph, arborescence.getInEdges());
+        return finish(problem, parents, arborescence.getPotentials(), graph, false, watch);
+    }
+
+    /**
+     * Maps the candidate graph of the previous problem to the updated problem. Edges of deleted clients are dropped,
+     * inserted clients get their cheapest incoming edges and edges to other vertices that are lighter than the missing
+     * weight bound of the target, so the bounds of surviving vertices stay valid.
+     * @return Candidate graph of the updated problem.
+     */
+    private CandidateGraph updateCandidateGraph(CandidateGraph previous, int[] indices, DistanceMatrix matrix, boolean[] inserted){
+        int n = matrix.getDimensions();
+        CandidateGraph graph = new CandidateGraph(n, previous.getEdgeCount() + n*2);
+        for(int e=0; e<previous.getEdgeCount(); e++){
+            int source = indices[previous.getEdgeSource(e)];
+            int target = indices[previous.getEdgeTarget(e)];
+            if(source >= 0 && target >= 0)
+                graph.addEdge(source, target, previous.getEdgeWeight(e));
+        }
+        for(int i=0; i<indices.length; i++){
+            if(indices[i] >= 0)
+                graph.setMissingWeightBound(indices[i], previous.getMissingWeightBound(i));
+        }
+        int k = Math.min(neighbours, n-1);
+        int[] sources = new int[k];
+        double[] weights = new double[k];
+        for(int x=0; x<n; x++){
+            if(!inserted[x])
+                continue;
+            int count = 0;
+            for(int u=0; u<n; u++){
+                if(u == x)
+                    continue;
+                if(!inserted[u]){
+                    double back = matrix.getDistance(x, u);
+                    if(back < graph.getMissingWeightBound(u))
+                        graph.addEdge(x, u, back);
+                }
+                double w = matrix.getDistance(u, x);
+                if(count == k && w >= weights[k-1])
+                    continue;
+                int i = count < k ? count++ : k-1;
+                while(i > 0 && weights[i-1] > w){
+                    weights[i] = weights[i-1];
+                    sources[i] = sources[i-1];
+                    i--;
+                }
+                weights[i] = w;
+                sources[i] = u;
+            }
+            for(int i=0; i<count; i++){
+                graph.addEdge(sources[i], x, weights[i]);
+            }
+            graph.setMissingWeightBound(x, count == n-1 ? Double.POSITIVE_INFINITY : weights[count-1]);
+            graph.addEdge(ROOT, x, matrix.getDistance(ROOT, x));
+            graph.addEdge(x, ROOT, matrix.getDistance(x, ROOT));
+        }
+        return graph;
+    }
+
+    /**
+     * Maps the previous arborescence to the updated problem and connects inserted clients.
+     * @return Whether the repaired arborescence is proved to be optimal.
+     */
+    private boolean repair(IncrementalCompressionResult previous, int[] indices, DistanceMatrix matrix, boolean[] inserted,
+                           int[] parents, double[] potentials){
+        int[] previousParents = previous.getParents();
+        double[] previousPotentials = previous.getPotentials();
+        for(int i=0; i<indices.length; i++){
+            if(indices[i] < 0)
+                continue;
+            int parent = previousParents[i];
+            if(parent >= 0 && indices[parent] < 0)
+                return false;
+            parents[indices[i]] = parent < 0 ? -1 : indices[parent];
+            potentials[indices[i]] = previousPotentials[i];
+        }
+        boolean[] present = new boolean[parents.length];
+        for(int v=0; v<parents.length; v++){
+            present[v] = !inserted[v];
+        }
+        for(int x=0; x<parents.length; x++){
+            if(!inserted[x])
+                continue;
+            int best = -1;
+            double bestWeight = Double.POSITIVE_INFINITY;
+            for(int u=0; u<parents.length; u++){
+                if(!present[u])
+                    continue;
+                double w = matrix.getDistance(u, x);
+                if(w < bestWeight){
+                    bestWeight = w;
+                    best = u;
+                }
+                if(u != ROOT && matrix.getDistance(x, u) < potentials[u] - EPSILON*Math.max(1.0, potentials[u]))
+                    return false;
+            }
+            parents[x] = best;
+            potentials[x] = bestWeight;
+            present[x] = true;
+        }
+        return true;
+    }
+
+    private IncrementalCompressionResult finish(VrpProblem problem, int[] parents, double[] potentials, CandidateGraph graph,
+                                                boolean repaired, StopWatch watch){
+        List<TreeBranch<LocationVertex>> finalBranches = findFinalBranches(problem, parents, ROOT);
+        watch.stop();
+        CompressionResult result = aggregate(problem, finalBranches, watch.getCurrTimeInSeconds());
+        return new IncrementalCompressionResult(result, parents, potentials, graph, repaired);
+    }
+
+    private static boolean[] toMask(List<Long> ids, int dimensions){
+        boolean[] mask = new boolean[dimensions];
+        Set<Long> unique = new HashSet<>(ids);
+        if(unique.size() != ids.size())
+            throw new IllegalArgumentException("Client ids of a delta must be unique");
+        for(Long id : ids){
+            int index = id.intValue()-1;
+            if(index <= ROOT || index >= dimensions)
+                throw new IllegalArgumentException("Unknown client "+id);
+            mask[index] = true;
+        }
+        return mask;
+    }
+}
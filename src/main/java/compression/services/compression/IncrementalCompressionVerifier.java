@@ -0,0 +1,123 @@
+package compression.services.compression;
+
+import compression.model.vrp.Client;
+import compression.model.vrp.DistanceMatrix;
+import compression.model.vrp.VrpProblem;
+import compression.model.vrp.VrpProblemMetric;
+import compression.services.distance.IDistanceMatrixFactory;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Checks incremental compression on random changes of a problem. A part of the clients is left out at first, then
+ * every delta inserts some of the left out clients, deletes and re-weights some of the present ones, and the update
+ * is verified against compression from scratch (see IncrementalCompressionService.setVerifyUpdates).
+ */
+@RequiredArgsConstructor
+public class IncrementalCompressionVerifier {
+    private static final double LEFT_OUT_RATIO = 0.1;
+    private static final double CHANGED_RATIO = 0.02;
+
+    private final IncrementalCompressionService compressionService;
+    private final IDistanceMatrixFactory distanceMatrixFactory;
+
+    /**
+     * Applies the given number of random deltas to the problem and verifies every update.
+     * @param problem VRP problem whose clients are changed.
+     * @param deltas Number of deltas.
+     * @param random Random generator.
+     * @return Number of updates that were repaired (the others were computed again on the candidate graph).
+     * @throws IllegalStateException When an update does not have the weight of compression from scratch.
+     */
+    public int verify(VrpProblem problem, int deltas, Random random){
+        compressionService.setVerifyUpdates(true);
+        List<Client> clients = problem.getClients();
+        int changes = Math.max(1, (int)(CHANGED_RATIO * clients.size()));
+        boolean[] present = new boolean[clients.size()];
+        for(int i=0; i<present.length; i++){
+            present[i] = random.nextDouble() >= LEFT_OUT_RATIO;
+        }
+        Map<Long, Double> amounts = new HashMap<>();
+        VrpProblem current = createProblem(problem, present, amounts);
+        IncrementalCompressionResult result = compressionService.compress(current);
+        int repaired = 0;
+        for(int d=0; d<deltas; d++){
+            boolean[] updated = present.clone();
+            Map<Long, Double> updatedAmounts = new HashMap<>(amounts);
+            boolean[] reweighted = new boolean[present.length];
+            for(int c=0; c<changes; c++){
+                updated[random.nextInt(present.length)] = false;
+                updated[random.nextInt(present.length)] = true;
+                int i = random.nextInt(present.length);
+                if(updated[i] && present[i] && !reweighted[i]){
+                    reweighted[i] = true;
+                    // lowering the demand keeps every client within vehicle capacity
+                    double amount = Math.max(1.0, Math.floor(random.nextDouble() * clients.get(i).getAmount()));
+                    updatedAmounts.put(clients.get(i).getId(), amount);
+                }
+            }
+            List<Long> inserted = new ArrayList<>();
+            List<Long> deleted = new ArrayList<>();
+            List<Long> reweightedIds = new ArrayList<>();
+            long previousId = 2;
+            long updatedId = 2;
+            for(int i=0; i<present.length; i++){
+                if(present[i] && !updated[i])
+                    deleted.add(previousId);
+                if(updated[i] && !present[i])
+                    inserted.add(updatedId);
+                if(updated[i] && present[i] && reweighted[i])
+                    reweightedIds.add(updatedId);
+                if(present[i])
+                    previousId++;
+                if(updated[i])
+                    updatedId++;
+            }
+            VrpProblem next = createProblem(problem, updated, updatedAmounts);
+            result = compressionService.update(result, next, new CompressionDelta(inserted, deleted, reweightedIds));
+            if(result.getRepaired())
+                repaired++;
+            DistanceMatrix.release(current.getDistanceMatrix());
+            current = next;
+            present = updated;
+            amounts = updatedAmounts;
+        }
+        DistanceMatrix.release(current.getDistanceMatrix());
+        return repaired;
+    }
+
+    /**
+     * Creates a problem with the present clients of the original problem, clients get ids in the original order.
+     * Distances of problems that are not Euclidean are copied to an explicit matrix.
+     */
+    private VrpProblem createProblem(VrpProblem problem, boolean[] present, Map<Long, Double> amounts){
+        List<Client> clients = new ArrayList<>();
+        List<Integer> indices = new ArrayList<>();
+        indices.add(problem.getDepot().getId().intValue()-1);
+        long id = 2;
+        for(int i=0; i<present.length; i++){
+            if(!present[i])
+                continue;
+            Client c = problem.getClients().get(i);
+            clients.add(new Client(id++, amounts.getOrDefault(c.getId(), c.getAmount()), c.getTime(), c.getLocation()));
+            indices.add(c.getId().intValue()-1);
+        }
+        if(problem.getProblemMetric() == VrpProblemMetric.Euclidean)
+            return new VrpProblem(problem.getProblemName(), problem.getBestKnownSolution(), clients.size()+1,
+                    VrpProblemMetric.Euclidean, clients, problem.getVehicles(), problem.getDepot(), null);
+        DistanceMatrix original = problem.getDistanceMatrix();
+        DistanceMatrix matrix = distanceMatrixFactory.create(indices.size());
+        for(int i=0; i<indices.size(); i++){
+            for(int j=0; j<indices.size(); j++){
+                matrix.setDistance(i, j, original.getDistance(indices.get(i), indices.get(j)));
+            }
+        }
+        return new VrpProblem(problem.getProblemName(), problem.getBestKnownSolution(), clients.size()+1,
+                VrpProblemMetric.Explicit, clients, problem.getVehicles(), problem.getDepot(), matrix);
+    }
+}
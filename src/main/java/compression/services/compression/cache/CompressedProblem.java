@@ -0,0 +1,22 @@
+package compression.services.compression.cache;
+
+import compression.model.vrp.DistanceMatrix;
+import compression.model.vrp.helpers.AggregatedService;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Defines a cached compression of a problem: aggregated services and distance matrix of the compressed problem.
+ */
+@AllArgsConstructor
+public class CompressedProblem {
+    @Getter
+    private List<AggregatedService> aggregatedServices;
+    /**
+     * Distances between aggregated services, indexed by their ids (the depot has index 0).
+     */
+    @Getter
+    private DistanceMatrix distanceMatrix;
+}
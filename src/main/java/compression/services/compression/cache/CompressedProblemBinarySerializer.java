@@ -0,0 +1,134 @@
+package compression.services.compression.cache;
+
+import compression.model.vrp.Client;
+import compression.model.vrp.DistanceMatrix;
+import compression.model.vrp.VrpProblem;
+import compression.model.vrp.helpers.AggregatedService;
+import compression.model.vrp.helpers.LocationVertex;
+import compression.services.distance.IDistanceMatrixFactory;
+import lombok.RequiredArgsConstructor;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes and reads compact binary form of compressed problem. The file consists of a header (with the key of the
+ * problem), aggregated services given by ids of their clients and raw block of distances of the compressed problem.
+ * Clients are bound to the problem being read, so only their ids are stored.
+ */
+@RequiredArgsConstructor
+public class CompressedProblemBinarySerializer {
+    private static final int MAGIC = 0x434D5052; //CMPR
+    private static final int VERSION = 1;
+
+    private final IDistanceMatrixFactory distanceMatrixFactory;
+
+    /**
+     * Writes the compressed problem to a binary file.
+     * @param compressedProblem Compressed problem.
+     * @param path Binary file path.
+     * @param key Key of the problem.
+     * @throws IOException When writing fails.
+     */
+    public void write(CompressedProblem compressedProblem, Path path, String key) throws IOException {
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path.toFile())))){
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(keyBytes.length);
+            out.write(keyBytes);
+            List<AggregatedService> services = compressedProblem.getAggregatedServices();
+            out.writeInt(services.size());
+            for(AggregatedService s : services){
+                out.writeLong(s.getId());
+                out.writeDouble(s.getInternalCost());
+                out.writeDouble(s.getInternalDistance());
+                out.writeDouble(s.getInternalBackwardDistance());
+                out.writeLong(s.getInputVertex().getId());
+                out.writeLong(s.getOutputVertex().getId());
+                out.writeInt(s.getVertices().size());
+                for(LocationVertex v : s.getVertices()){
+                    out.writeLong(v.getId());
+                }
+            }
+            DistanceMatrix matrix = compressedProblem.getDistanceMatrix();
+            int dimensions = matrix.getDimensions();
+            out.writeInt(dimensions);
+            ByteBuffer row = ByteBuffer.allocate(dimensions*8).order(ByteOrder.nativeOrder());
+            for(int i=0; i<dimensions; i++){
+                row.clear();
+                for(int j=0; j<dimensions; j++){
+                    row.putDouble(matrix.getDistance(i, j));
+                }
+                out.write(row.array(), 0, row.position());
+            }
+        }
+    }
+
+    /**
+     * Reads the compressed problem from a binary file. The file is mapped into memory and read in bulk.
+     * @param path Binary file path.
+     * @param key Key of the problem.
+     * @param problem VRP problem whose clients are aggregated.
+     * @return Compressed problem or null when the file belongs to another key.
+     * @throws IOException When the file is not a valid compressed problem file or reading fails.
+     */
+    public CompressedProblem read(Path path, String key, VrpProblem problem) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if(buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+                throw new IOException("Invalid compressed problem file "+path);
+            byte[] keyBytes = new byte[buffer.getInt()];
+            buffer.get(keyBytes);
+            if(!key.equals(new String(keyBytes, StandardCharsets.UTF_8)))
+                return null;
+            LocationVertex[] vertices = new LocationVertex[problem.getDimensions()];
+            for(Client c : problem.getClients()){
+                vertices[c.getId().intValue()-1] = new LocationVertex(c.getId(), c.getLocation(), c.getAmount());
+            }
+            int serviceCount = buffer.getInt();
+            List<AggregatedService> services = new ArrayList<>(serviceCount);
+            for(int i=0; i<serviceCount; i++){
+                Long id = buffer.getLong();
+                Double internalCost = buffer.getDouble();
+                Double internalDistance = buffer.getDouble();
+                Double internalBackwardDistance = buffer.getDouble();
+                LocationVertex input = vertex(vertices, buffer.getLong(), path);
+                LocationVertex output = vertex(vertices, buffer.getLong(), path);
+                int vertexCount = buffer.getInt();
+                List<LocationVertex> serviceVertices = new ArrayList<>(vertexCount);
+                for(int j=0; j<vertexCount; j++){
+                    serviceVertices.add(vertex(vertices, buffer.getLong(), path));
+                }
+                services.add(new AggregatedService(serviceVertices, input, output, internalCost, id, internalDistance, internalBackwardDistance));
+            }
+            int dimensions = buffer.getInt();
+            if(dimensions != serviceCount+1)
+                throw new IOException("Invalid compressed problem file "+path);
+            DistanceMatrix matrix = distanceMatrixFactory.create(dimensions);
+            DoubleBuffer values = buffer.slice().order(ByteOrder.nativeOrder()).asDoubleBuffer();
+            for(int i=0; i<dimensions; i++){
+                for(int j=0; j<dimensions; j++){
+                    matrix.setDistance(i, j, values.get());
+                }
+            }
+            return new CompressedProblem(services, matrix);
+        }
+    }
+
+    private LocationVertex vertex(LocationVertex[] vertices, long id, Path path) throws IOException {
+        int index = (int)id-1;
+        if(index < 0 || index >= vertices.length || vertices[index] == null)
+            throw new IOException("Unknown client "+id+" in compressed problem file "+path);
+        return vertices[index];
+    }
+}
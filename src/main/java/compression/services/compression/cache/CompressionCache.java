@@ -0,0 +1,138 @@
+package compression.services.compression.cache;
+
+import compression.model.vrp.DistanceMatrix;
+import compression.model.vrp.VrpProblem;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Implementation of ICompressionCache interface with two levels. Recently used compressions are kept in memory, the
+ * least recently used one is dropped when the capacity is exceeded. When a directory is given, every compression is
+ * also written to a binary file named by its key, so it survives between runs of the application. The cache owns
+ * distance matrices of its compressions, they are closed when dropped from memory or when the cache is closed.
+ */
+public class CompressionCache implements ICompressionCache, Closeable {
+    /**
+     * Extension of binary files with compressed problems.
+     */
+    public static final String CACHE_EXTENSION = ".compression";
+    /**
+     * Default number of compressions kept in memory.
+     */
+    public static final int DEFAULT_CAPACITY = 16;
+
+    private final CompressionFingerprint fingerprint;
+    private final Map<String, CompressedProblem> entries;
+    private final Path directory;
+    private final CompressedProblemBinarySerializer serializer;
+
+    /**
+     * Initializes a new instance of CompressionCache that keeps compressions only in memory.
+     * @param fingerprint Fingerprint of problems.
+     * @param capacity Maximal number of compressions kept in memory.
+     */
+    public CompressionCache(CompressionFingerprint fingerprint, int capacity){
+        this(fingerprint, capacity, null, null);
+    }
+
+    /**
+     * Initializes a new instance of CompressionCache.
+     * @param fingerprint Fingerprint of problems.
+     * @param capacity Maximal number of compressions kept in memory.
+     * @param directory Directory of binary files (null keeps compressions only in memory).
+     * @param serializer Serializer of binary files.
+     */
+    public CompressionCache(CompressionFingerprint fingerprint, int capacity, Path directory, CompressedProblemBinarySerializer serializer){
+        if(capacity < 1)
+            throw new IllegalArgumentException("Capacity must be positive");
+        this.fingerprint = fingerprint;
+        this.entries = new LinkedHashMap<String, CompressedProblem>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompressedProblem> eldest) {
+                if(size() <= capacity)
+                    return false;
+                DistanceMatrix.release(eldest.getValue().getDistanceMatrix());
+                return true;
+            }
+        };
+        this.directory = directory;
+        this.serializer = serializer;
+    }
+
+    /**
+     * Creates the key of the problem.
+     * @param problem VRP problem with distance matrix.
+     * @return Fingerprint of the problem and compression settings.
+     */
+    @Override
+    public String createKey(VrpProblem problem) {
+        return fingerprint.compute(problem);
+    }
+
+    /**
+     * Gets cached compression of the problem. Compressions found only on disk are kept in memory from now on.
+     * @param key Key of the problem.
+     * @param problem VRP problem the compression is bound to.
+     * @return Compressed problem or null when it is not cached.
+     */
+    @Override
+    public synchronized CompressedProblem get(String key, VrpProblem problem) {
+        CompressedProblem compressedProblem = entries.get(key);
+        if(compressedProblem != null || directory == null)
+            return compressedProblem;
+        Path path = getPath(key);
+        if(!Files.exists(path))
+            return null;
+        try {
+            compressedProblem = serializer.read(path, key, problem);
+        } catch (Exception ex) {
+            System.out.println("Unable to read cached compression: "+ex);
+            return null;
+        }
+        if(compressedProblem != null)
+            entries.put(key, compressedProblem);
+        return compressedProblem;
+    }
+
+    /**
+     * Stores compression of the problem in memory and in a binary file. The file is written under a temporary name
+     * first, so other processes never read a partially written file.
+     * @param key Key of the problem.
+     * @param compressedProblem Compressed problem.
+     */
+    @Override
+    public synchronized void put(String key, CompressedProblem compressedProblem) {
+        entries.put(key, compressedProblem);
+        if(directory == null)
+            return;
+        try {
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, key, CACHE_EXTENSION);
+            serializer.write(compressedProblem, temporary, key);
+            Files.move(temporary, getPath(key), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            System.out.println("Unable to write cached compression: "+ex);
+        }
+    }
+
+    /**
+     * Drops all compressions kept in memory and closes their distance matrices. Binary files are kept.
+     */
+    @Override
+    public synchronized void close() {
+        for(CompressedProblem compressedProblem : entries.values()){
+            DistanceMatrix.release(compressedProblem.getDistanceMatrix());
+        }
+        entries.clear();
+    }
+
+    private Path getPath(String key){
+        return directory.resolve(key + CACHE_EXTENSION);
+    }
+}
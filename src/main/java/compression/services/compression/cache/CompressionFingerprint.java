@@ -0,0 +1,84 @@
+package compression.services.compression.cache;
+
+import compression.model.vrp.*;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Computes SHA-256 fingerprint of the data that compression depends on: distances, demands, capacities and
+ * compression settings. Distances of lazy Euclidean matrices are given by coordinates, so only coordinates are hashed.
+ */
+@RequiredArgsConstructor
+public class CompressionFingerprint {
+    private static final byte EXPLICIT_DISTANCES = 0;
+    private static final byte EUCLIDEAN_DISTANCES = 1;
+
+    private final String settings;
+
+    /**
+     * Computes fingerprint of the problem.
+     * @param problem VRP problem with distance matrix.
+     * @return Hexadecimal fingerprint.
+     */
+    public String compute(VrpProblem problem){
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        digest.update(settings.getBytes(StandardCharsets.UTF_8));
+        int dimensions = problem.getDimensions();
+        ByteBuffer buffer = ByteBuffer.allocate(Math.max(dimensions*8, 64));
+        buffer.putInt(dimensions).putLong(problem.getDepot().getId());
+        buffer.putInt(problem.getVehicles().size());
+        update(digest, buffer);
+        for(Vehicle v : problem.getVehicles()){
+            buffer.putInt(v.getCapacity());
+            update(digest, buffer);
+        }
+        for(Client c : problem.getClients()){
+            buffer.putLong(c.getId()).putDouble(c.getAmount());
+            update(digest, buffer);
+        }
+        DistanceMatrix matrix = problem.getDistanceMatrix();
+        if(EuclideanDistanceMatrix.isEuclidean(matrix)){
+            buffer.put(EUCLIDEAN_DISTANCES);
+            putLocation(buffer, problem.getDepot().getLocation());
+            update(digest, buffer);
+            for(Client c : problem.getClients()){
+                buffer.putLong(c.getId());
+                putLocation(buffer, c.getLocation());
+                update(digest, buffer);
+            }
+        } else {
+            buffer.put(EXPLICIT_DISTANCES);
+            update(digest, buffer);
+            for(int i=0; i<dimensions; i++){
+                for(int j=0; j<dimensions; j++){
+                    buffer.putDouble(matrix.getDistance(i, j));
+                }
+                update(digest, buffer);
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        for(byte b : digest.digest()){
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    private void putLocation(ByteBuffer buffer, Location location){
+        buffer.putDouble(location.getLatitude()).putDouble(location.getLongitude());
+    }
+
+    private void update(MessageDigest digest, ByteBuffer buffer){
+        buffer.flip();
+        digest.update(buffer);
+        buffer.clear();
+    }
+}
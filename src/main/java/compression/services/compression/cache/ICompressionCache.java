@@ -0,0 +1,30 @@
+package compression.services.compression.cache;
+
+import compression.model.vrp.VrpProblem;
+
+/**
+ * Defines methods for caching compressions of problems under a fingerprint of the problem.
+ */
+public interface ICompressionCache {
+    /**
+     * Creates the key of the problem.
+     * @param problem VRP problem with distance matrix.
+     * @return Fingerprint of the problem and compression settings.
+     */
+    String createKey(VrpProblem problem);
+
+    /**
+     * Gets cached compression of the problem.
+     * @param key Key of the problem.
+     * @param problem VRP problem the compression is bound to.
+     * @return Compressed problem or null when it is not cached.
+     */
+    CompressedProblem get(String key, VrpProblem problem);
+
+    /**
+     * Stores compression of the problem.
+     * @param key Key of the problem.
+     * @param compressedProblem Compressed problem.
+     */
+    void put(String key, CompressedProblem compressedProblem);
+}
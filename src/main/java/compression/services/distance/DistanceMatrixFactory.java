@@ -0,0 +1,43 @@
+package compression.services.distance;
+
+import compression.model.vrp.DistanceMatrix;
+import compression.model.vrp.EuclideanDistanceMatrix;
+import compression.model.vrp.SymmetricalDistanceMatrix;
+import compression.model.vrp.VrpProblem;
+
+/**
+ * Implementation of IDistanceMatrixFactory interface that creates matrices stored on the heap.
+ */
+public class DistanceMatrixFactory implements IDistanceMatrixFactory {
+
+    /**
+     * Creates an empty distance matrix.
+     * @param dimensions Number of vertices.
+     * @return Distance matrix.
+     */
+    @Override
+    public DistanceMatrix create(int dimensions) {
+        return new DistanceMatrix(dimensions);
+    }
+
+    /**
+     * Creates an empty symmetrical distance matrix.
+     * @param dimensions Number of vertices.
+     * @return Symmetrical distance matrix.
+     */
+    @Override
+    public DistanceMatrix createSymmetrical(int dimensions) {
+        return new SymmetricalDistanceMatrix(dimensions);
+    }
+
+    /**
+     * Creates a distance matrix with Euclidean distances between depot and clients of the given problem. All distances
+     * are computed up front.
+     * @param problem VRP problem.
+     * @return Euclidean distance matrix.
+     */
+    @Override
+    public DistanceMatrix createEuclidean(VrpProblem problem) {
+        return EuclideanDistanceMatrix.fromProblem(problem).copyTo(createSymmetrical(problem.getDimensions()));
+    }
+}
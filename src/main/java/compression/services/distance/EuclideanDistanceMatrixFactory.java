@@ -0,0 +1,47 @@
+package compression.services.distance;
+
+import compression.model.vrp.DistanceMatrix;
+import compression.model.vrp.EuclideanDistanceMatrix;
+import compression.model.vrp.VrpProblem;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Implementation of IDistanceMatrixFactory interface that computes Euclidean distances on demand instead of storing
+ * them. Other matrices are created by the given factory.
+ */
+@RequiredArgsConstructor
+public class EuclideanDistanceMatrixFactory implements IDistanceMatrixFactory {
+
+    private final IDistanceMatrixFactory factory;
+
+    /**
+     * Creates an empty distance matrix.
+     * @param dimensions Number of vertices.
+     * @return Distance matrix.
+     */
+    @Override
+    public DistanceMatrix create(int dimensions) {
+        return factory.create(dimensions);
+    }
+
+    /**
+     * Creates an empty symmetrical distance matrix.
+     * @param dimensions Number of vertices.
+     * @return Symmetrical distance matrix.
+     */
+    @Override
+    public DistanceMatrix createSymmetrical(int dimensions) {
+        return factory.createSymmetrical(dimensions);
+    }
+
+    /**
+     * Creates a distance matrix with Euclidean distances between depot and clients of the given problem. Distances are
+     * computed on demand from coordinates.
+     * @param problem VRP problem.
+     * @return Euclidean distance matrix.
+     */
+    @Override
+    public DistanceMatrix createEuclidean(VrpProblem problem) {
+        return EuclideanDistanceMatrix.fromProblem(problem);
+    }
+}
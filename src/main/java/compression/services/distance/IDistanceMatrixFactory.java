@@ -0,0 +1,30 @@
+package compression.services.distance;
+
+import compression.model.vrp.DistanceMatrix;
+import compression.model.vrp.VrpProblem;
+
+/**
+ * Defines methods for creating distance matrices. This allows to choose matrix storage independently of code that fills it.
+ */
+public interface IDistanceMatrixFactory {
+    /**
+     * Creates an empty distance matrix.
+     * @param dimensions Number of vertices.
+     * @return Distance matrix.
+     */
+    DistanceMatrix create(int dimensions);
+
+    /**
+     * Creates an empty symmetrical distance matrix.
+     * @param dimensions Number of vertices.
+     * @return Symmetrical distance matrix.
+     */
+    DistanceMatrix createSymmetrical(int dimensions);
+
+    /**
+     * Creates a distance matrix with Euclidean distances between depot and clients of the given problem.
+     * @param problem VRP problem.
+     * @return Euclidean distance matrix.
+     */
+    DistanceMatrix createEuclidean(VrpProblem problem);
+}
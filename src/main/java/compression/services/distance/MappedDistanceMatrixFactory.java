@@ -0,0 +1,57 @@
+package compression.services.distance;
+
+import compression.model.vrp.DistanceMatrix;
+import compression.model.vrp.EuclideanDistanceMatrix;
+import compression.model.vrp.MappedDistanceMatrix;
+import compression.model.vrp.MappedSymmetricalDistanceMatrix;
+import compression.model.vrp.VrpProblem;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.file.Path;
+
+/**
+ * Implementation of IDistanceMatrixFactory interface that creates memory-mapped (off-heap) matrices in the given
+ * directory. Matrices smaller than the threshold are kept on the heap.
+ */
+@RequiredArgsConstructor
+public class MappedDistanceMatrixFactory implements IDistanceMatrixFactory {
+
+    private final IDistanceMatrixFactory heapFactory = new DistanceMatrixFactory();
+    private final Path directory;
+    private final int threshold;
+
+    /**
+     * Creates an empty distance matrix.
+     * @param dimensions Number of vertices.
+     * @return Distance matrix.
+     */
+    @Override
+    public DistanceMatrix create(int dimensions) {
+        if(dimensions < threshold)
+            return heapFactory.create(dimensions);
+        return MappedDistanceMatrix.createTemporary(dimensions, directory);
+    }
+
+    /**
+     * Creates an empty symmetrical distance matrix.
+     * @param dimensions Number of vertices.
+     * @return Symmetrical distance matrix.
+     */
+    @Override
+    public DistanceMatrix createSymmetrical(int dimensions) {
+        if(dimensions < threshold)
+            return heapFactory.createSymmetrical(dimensions);
+        return MappedSymmetricalDistanceMatrix.createTemporary(dimensions, directory);
+    }
+
+    /**
+     * Creates a distance matrix with Euclidean distances between depot and clients of the given problem. All distances
+     * are computed up front.
+     * @param problem VRP problem.
+     * @return Euclidean distance matrix.
+     */
+    @Override
+    public DistanceMatrix createEuclidean(VrpProblem problem) {
+        return EuclideanDistanceMatrix.fromProblem(problem).copyTo(createSymmetrical(problem.getDimensions()));
+    }
+}
@@ -0,0 +1,29 @@
+package compression.services.improvement;
+
+import compression.services.resolving.ResolvedSolution;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Implementation of ISolutionImprover interface that applies several improvers one after another.
+ */
+@RequiredArgsConstructor
+public class CompositeSolutionImprover implements ISolutionImprover {
+
+    private final List<ISolutionImprover> improvers;
+
+    /**
+     * Improves the solution. The given solution is not modified.
+     * @param solution Resolved solution of the original problem.
+     * @return Improved solution with exactly recomputed cost.
+     */
+    @Override
+    public ResolvedSolution improve(ResolvedSolution solution) {
+        ResolvedSolution result = solution;
+        for(ISolutionImprover improver : improvers){
+            result = improver.improve(result);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,15 @@
+package compression.services.improvement;
+
+import compression.services.resolving.ResolvedSolution;
+
+/**
+ * Defines methods for improving decompressed solutions of the original problem.
+ */
+public interface ISolutionImprover {
+    /**
+     * Improves the solution. The given solution is not modified.
+     * @param solution Resolved solution of the original problem.
+     * @return Improved solution with exactly recomputed cost.
+     */
+    ResolvedSolution improve(ResolvedSolution solution);
+}
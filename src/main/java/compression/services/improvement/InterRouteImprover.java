@@ -0,0 +1,417 @@
+package compression.services.improvement;
+
+import compression.model.graph.CandidateGraph;
+import compression.model.vrp.Client;
+import compression.model.vrp.DistanceMatrix;
+import compression.model.vrp.EuclideanDistanceMatrix;
+import compression.model.vrp.Vehicle;
+import compression.model.vrp.VrpProblem;
+import compression.model.vrp.VrpProblemMetric;
+import compression.services.candidates.ICandidateProvider;
+import compression.services.candidates.MatrixCandidateProvider;
+import compression.services.candidates.SpatialCandidateProvider;
+import compression.services.resolving.ResolvedSolution;
+import compression.services.resolving.VrpSolutionRoute;
+import compression.services.resolving.VrpSolutionRouteNode;
+import compression.services.spatial.ISpatialIndexFactory;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Implementation of ISolutionImprover interface that moves clients between routes by relocate, swap and 2-opt* (tail
+ * exchange) moves, so clients that compression bound to a wrong branch can change their vehicle. Moves are only tried
+ * towards the nearest clients (granular neighbour lists of a candidate graph) and never exceed vehicle capacity. Route
+ * loads are updated by every applied move. Every round collects pairs of routes that have neighbouring clients and
+ * improves a matching of them in parallel, since pairs without a common route cannot conflict.
+ */
+public class InterRouteImprover implements ISolutionImprover {
+
+    private static final double EPSILON = 1e-9;
+
+    private final ForkJoinPool pool;
+    private final ISpatialIndexFactory spatialIndexFactory;
+    private final double timeLimit;
+    private final int neighbours;
+
+    /**
+     * Initializes a new instance of InterRouteImprover that uses 10 nearest clients of every client.
+     * @param pool Pool that improves pairs of routes in parallel.
+     * @param spatialIndexFactory Factory of spatial indices used to find neighbours on Euclidean problems.
+     * @param timeLimit Time budget in seconds.
+     */
+    public InterRouteImprover(ForkJoinPool pool, ISpatialIndexFactory spatialIndexFactory, double timeLimit){
+        this(pool, spatialIndexFactory, timeLimit, 10);
+    }
+
+    /**
+     * Initializes a new instance of InterRouteImprover.
+     * @param pool Pool that improves pairs of routes in parallel.
+     * @param spatialIndexFactory Factory of spatial indices used to find neighbours on Euclidean problems.
+     * @param timeLimit Time budget in seconds.
+     * @param neighbours Number of nearest clients that moves are tried towards.
+     */
+    public InterRouteImprover(ForkJoinPool pool, ISpatialIndexFactory spatialIndexFactory, double timeLimit, int neighbours){
+        if(!(timeLimit > 0.0))
+            throw new IllegalArgumentException("Time limit must be positive");
+        if(neighbours < 1)
+            throw new IllegalArgumentException("Number of neighbours must be positive");
+        this.pool = pool;
+        this.spatialIndexFactory = spatialIndexFactory;
+        this.timeLimit = timeLimit;
+        this.neighbours = neighbours;
+    }
+
+    /**
+     * Improves the solution. The given solution is not modified.
+     * @param solution Resolved solution of the original problem.
+     * @return Improved solution with exactly recomputed cost.
+     */
+    @Override
+    public ResolvedSolution improve(ResolvedSolution solution) {
+        long deadline = System.nanoTime() + (long)(timeLimit*1e9);
+        Search search = new Search(solution, deadline);
+        while(System.nanoTime() < deadline){
+            List<long[]> pairs = search.findRoutePairs();
+            if(pairs.isEmpty() || !improvePairs(search, pairs, deadline))
+                break;
+        }
+        return search.toSolution();
+    }
+
+    /**
+     * Improves all given pairs of routes, a matching of the remaining pairs at a time.
+     * @return Whether any pair was improved.
+     */
+    private boolean improvePairs(Search search, List<long[]> pairs, long deadline){
+        AtomicBoolean improved = new AtomicBoolean(false);
+        boolean[] used = new boolean[search.routes.size()];
+        List<long[]> remaining = pairs;
+        while(!remaining.isEmpty() && System.nanoTime() < deadline){
+            List<long[]> matching = new ArrayList<>();
+            List<long[]> next = new ArrayList<>();
+            for(long[] pair : remaining){
+                int first = (int) pair[0];
+                int second = (int) pair[1];
+                if(used[first] || used[second]){
+                    next.add(pair);
+                } else {
+                    used[first] = true;
+                    used[second] = true;
+                    matching.add(pair);
+                }
+            }
+            pool.invoke(new PairTask(0, matching.size(), matching, search, improved));
+            for(long[] pair : matching){
+                used[(int) pair[0]] = false;
+                used[(int) pair[1]] = false;
+            }
+            remaining = next;
+        }
+        return improved.get();
+    }
+
+    /**
+     * Route stored as an array of matrix indices starting and ending with the depot.
+     */
+    private static final class Route {
+        private final String vehicleId;
+        private final double capacity;
+        private int[] tour;
+        // loads[p] - demand of clients up to position p
+        private double[] loads;
+        private double load;
+
+        Route(String vehicleId, double capacity, int[] tour){
+            this.vehicleId = vehicleId;
+            this.capacity = capacity;
+            this.tour = tour;
+        }
+
+        int last(){
+            return tour.length-1;
+        }
+    }
+
+    /**
+     * State of the search shared by all pairs of routes. Every pair task writes positions and route indices only of
+     * clients of its own two routes. Clients of other routes may be read concurrently, but they can only move between
+     * routes of another pair, so they are never mistaken for clients of this pair.
+     */
+    private final class Search {
+        private final VrpProblem problem;
+        private final DistanceMatrix matrix;
+        private final long deadline;
+        private final List<Route> routes = new ArrayList<>();
+        private final int[] routeOf;
+        private final int[] positions;
+        private final double[] demands;
+        private final VrpSolutionRouteNode[] nodes;
+        // neighbourOffsets[v]..neighbourOffsets[v+1] - range of nearest clients of client v in neighbourList
+        private final int[] neighbourOffsets;
+        private final int[] neighbourList;
+
+        Search(ResolvedSolution solution, long deadline){
+            this.problem = solution.getOriginalProblem();
+            this.matrix = problem.getDistanceMatrix();
+            this.deadline = deadline;
+            int n = matrix.getDimensions();
+            int depot = problem.getDepot().getId().intValue()-1;
+            routeOf = new int[n];
+            positions = new int[n];
+            demands = new double[n];
+            nodes = new VrpSolutionRouteNode[n];
+            for(Client c : problem.getClients()){
+                demands[c.getId().intValue()-1] = c.getAmount();
+            }
+            Map<String, Double> capacities = new HashMap<>();
+            for(Vehicle v : problem.getVehicles()){
+                capacities.put(v.getId().toString(), v.getCapacity().doubleValue());
+            }
+            for(VrpSolutionRoute route : solution.getRoutes()){
+                List<VrpSolutionRouteNode> routeNodes = route.getNodes();
+                int[] tour = new int[routeNodes.size()+2];
+                tour[0] = depot;
+                tour[tour.length-1] = depot;
+                for(int i=0; i<routeNodes.size(); i++){
+                    int v = routeNodes.get(i).getNodeId().intValue()-1;
+                    nodes[v] = routeNodes.get(i);
+                    tour[i+1] = v;
+                }
+                Double capacity = capacities.get(route.getVehicleId());
+                Route r = new Route(route.getVehicleId(), capacity == null ? Double.POSITIVE_INFINITY : capacity, tour);
+                update(r, routes.size());
+                r.load = r.loads[r.last()];
+                routes.add(r);
+            }
+            CandidateGraph graph = new CandidateGraph(n, n*neighbours);
+            createCandidateProvider().addNearest(graph, neighbours);
+            neighbourOffsets = new int[n+1];
+            neighbourList = new int[graph.getEdgeCount()];
+            for(int e=0; e<graph.getEdgeCount(); e++){
+                neighbourOffsets[graph.getEdgeTarget(e)+1]++;
+            }
+            for(int v=0; v<n; v++){
+                neighbourOffsets[v+1] += neighbourOffsets[v];
+            }
+            int[] next = new int[n];
+            for(int e=0; e<graph.getEdgeCount(); e++){
+                int v = graph.getEdgeTarget(e);
+                neighbourList[neighbourOffsets[v] + next[v]++] = graph.getEdgeSource(e);
+            }
+        }
+
+        private ICandidateProvider createCandidateProvider(){
+            boolean euclidean = problem.getProblemMetric() == VrpProblemMetric.Euclidean || EuclideanDistanceMatrix.isEuclidean(matrix);
+            return euclidean
+                    ? new SpatialCandidateProvider(spatialIndexFactory.create(problem), matrix)
+                    : new MatrixCandidateProvider(matrix);
+        }
+
+        /**
+         * Finds pairs of routes that have neighbouring clients, pairs with more neighbouring clients come first.
+         * @return Pairs of route indices.
+         */
+        List<long[]> findRoutePairs(){
+            Map<Long, long[]> pairs = new HashMap<>();
+            for(int r=0; r<routes.size(); r++){
+                int[] tour = routes.get(r).tour;
+                for(int p=1; p<tour.length-1; p++){
+                    int v = tour[p];
+                    for(int i=neighbourOffsets[v]; i<neighbourOffsets[v+1]; i++){
+                        int u = neighbourList[i];
+                        if(nodes[u] == null)
+                            continue;
+                        int other = routeOf[u];
+                        if(other == r)
+                            continue;
+                        int first = Math.min(r, other);
+                        int second = Math.max(r, other);
+                        long key = (long) first * routes.size() + second;
+                        pairs.computeIfAbsent(key, k -> new long[]{first, second, 0})[2]++;
+                    }
+                }
+            }
+            List<long[]> result = new ArrayList<>(pairs.values());
+            result.sort((a, b) -> a[2] != b[2] ? Long.compare(b[2], a[2]) : Long.compare(a[0]*routes.size()+a[1], b[0]*routes.size()+b[1]));
+            return result;
+        }
+
+        /**
+         * Applies improving moves between two routes until there is none.
+         * @return Whether any move was applied.
+         */
+        boolean improvePair(int first, int second){
+            boolean improved = false;
+            boolean moved = true;
+            while(moved && System.nanoTime() < deadline){
+                moved = scan(first, second) || scan(second, first);
+                improved |= moved;
+            }
+            return improved;
+        }
+
+        private boolean scan(int from, int to){
+            Route x = routes.get(from);
+            for(int i=1; i<x.last(); i++){
+                int v = x.tour[i];
+                for(int n=neighbourOffsets[v]; n<neighbourOffsets[v+1]; n++){
+                    int u = neighbourList[n];
+                    if(nodes[u] == null || routeOf[u] != to)
+                        continue;
+                    Route y = routes.get(to);
+                    int q = positions[u];
+                    if(relocate(x, from, i, y, to, q) || relocate(x, from, i, y, to, q-1)
+                            || swap(x, from, i, y, to, q) || tailExchange(x, from, i, y, to, q))
+                        return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Moves the client at position i of route x between positions j and j+1 of route y.
+         */
+        private boolean relocate(Route x, int xi, int i, Route y, int yi, int j){
+            int v = x.tour[i];
+            if(y.load + demands[v] > y.capacity)
+                return false;
+            double delta = d(x.tour[i-1], x.tour[i+1]) - d(x.tour[i-1], v) - d(v, x.tour[i+1])
+                    + d(y.tour[j], v) + d(v, y.tour[j+1]) - d(y.tour[j], y.tour[j+1]);
+            if(delta > -EPSILON)
+                return false;
+            int[] xt = new int[x.tour.length-1];
+            System.arraycopy(x.tour, 0, xt, 0, i);
+            System.arraycopy(x.tour, i+1, xt, i, x.tour.length-i-1);
+            int[] yt = new int[y.tour.length+1];
+            System.arraycopy(y.tour, 0, yt, 0, j+1);
+            yt[j+1] = v;
+            System.arraycopy(y.tour, j+1, yt, j+2, y.tour.length-j-1);
+            x.load -= demands[v];
+            y.load += demands[v];
+            apply(x, xi, xt, y, yi, yt);
+            return true;
+        }
+
+        /**
+         * Exchanges the client at position i of route x with the client at position j of route y.
+         */
+        private boolean swap(Route x, int xi, int i, Route y, int yi, int j){
+            int v = x.tour[i];
+            int u = y.tour[j];
+            double change = demands[u] - demands[v];
+            if(x.load + change > x.capacity || y.load - change > y.capacity)
+                return false;
+            double delta = d(x.tour[i-1], u) + d(u, x.tour[i+1]) - d(x.tour[i-1], v) - d(v, x.tour[i+1])
+                    + d(y.tour[j-1], v) + d(v, y.tour[j+1]) - d(y.tour[j-1], u) - d(u, y.tour[j+1]);
+            if(delta > -EPSILON)
+                return false;
+            int[] xt = x.tour.clone();
+            int[] yt = y.tour.clone();
+            xt[i] = u;
+            yt[j] = v;
+            x.load += change;
+            y.load -= change;
+            apply(x, xi, xt, y, yi, yt);
+            return true;
+        }
+
+        /**
+         * Connects the client at position i of route x to the client at position j of route y and exchanges the
+         * rest of the routes (2-opt*).
+         */
+        private boolean tailExchange(Route x, int xi, int i, Route y, int yi, int j){
+            double xLoad = x.loads[i] + (y.load - y.loads[j-1]);
+            double yLoad = y.loads[j-1] + (x.load - x.loads[i]);
+            if(xLoad > x.capacity || yLoad > y.capacity)
+                return false;
+            double delta = d(x.tour[i], y.tour[j]) + d(y.tour[j-1], x.tour[i+1])
+                    - d(x.tour[i], x.tour[i+1]) - d(y.tour[j-1], y.tour[j]);
+            if(delta > -EPSILON)
+                return false;
+            int xTail = x.tour.length-i-1;
+            int yTail = y.tour.length-j;
+            int[] xt = new int[i+1+yTail];
+            System.arraycopy(x.tour, 0, xt, 0, i+1);
+            System.arraycopy(y.tour, j, xt, i+1, yTail);
+            int[] yt = new int[j+xTail];
+            System.arraycopy(y.tour, 0, yt, 0, j);
+            System.arraycopy(x.tour, i+1, yt, j, xTail);
+            x.load = xLoad;
+            y.load = yLoad;
+            apply(x, xi, xt, y, yi, yt);
+            return true;
+        }
+
+        private void apply(Route x, int xi, int[] xt, Route y, int yi, int[] yt){
+            x.tour = xt;
+            y.tour = yt;
+            update(x, xi);
+            update(y, yi);
+        }
+
+        private void update(Route route, int index){
+            int[] tour = route.tour;
+            route.loads = new double[tour.length];
+            for(int p=1; p<tour.length; p++){
+                route.loads[p] = route.loads[p-1] + demands[tour[p]];
+                if(p < tour.length-1){
+                    routeOf[tour[p]] = index;
+                    positions[tour[p]] = p;
+                }
+            }
+        }
+
+        private double d(int from, int to){
+            return from == to ? 0.0 : matrix.getDistance(from, to);
+        }
+
+        ResolvedSolution toSolution(){
+            List<VrpSolutionRoute> result = new ArrayList<>(routes.size());
+            Double cost = 0.0;
+            for(Route route : routes){
+                if(route.last() == 1)
+                    continue;
+                List<VrpSolutionRouteNode> routeNodes = new ArrayList<>(route.last()-1);
+                for(int p=1; p<=route.last(); p++){
+                    cost += d(route.tour[p-1], route.tour[p]);
+                    if(p < route.last())
+                        routeNodes.add(nodes[route.tour[p]]);
+                }
+                result.add(new VrpSolutionRoute(route.vehicleId, routeNodes));
+            }
+            return new ResolvedSolution(problem, cost, result);
+        }
+    }
+
+    /**
+     * Task that improves a range of route pairs of a matching, ranges of more than one pair are halved.
+     */
+    @RequiredArgsConstructor
+    private static class PairTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final List<long[]> pairs;
+        private final Search search;
+        private final AtomicBoolean improved;
+
+        @Override
+        protected void compute() {
+            if(to - from > 1){
+                int middle = (from + to) >>> 1;
+                invokeAll(new PairTask(from, middle, pairs, search, improved), new PairTask(middle, to, pairs, search, improved));
+                return;
+            }
+            for(int i=from; i<to; i++){
+                if(search.improvePair((int) pairs.get(i)[0], (int) pairs.get(i)[1]))
+                    improved.set(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package compression.services.improvement;
+
+import compression.model.vrp.DistanceMatrix;
+import compression.model.vrp.VrpProblem;
+import compression.services.resolving.ResolvedSolution;
+import compression.services.resolving.VrpSolutionRoute;
+import compression.services.resolving.VrpSolutionRouteNode;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Implementation of ISolutionImprover interface that improves every route on its own by 2-opt and Or-opt moves (a
+ * segment of up to three clients moved elsewhere in the route, possibly reversed). Moves are only tried towards the
+ * nearest clients of the same route. Prefix sums of forward and backward distances along the route give the cost of
+ * every move in O(1) time, also for asymmetric distances. Routes are improved in parallel until no improving move is
+ * left or the time budget runs out.
+ */
+public class IntraRouteImprover implements ISolutionImprover {
+
+    private static final double EPSILON = 1e-9;
+    private static final int MAX_SEGMENT_LENGTH = 3;
+
+    private final ForkJoinPool pool;
+    private final double timeLimit;
+    private final int neighbours;
+
+    /**
+     * Initializes a new instance of IntraRouteImprover that uses 10 nearest clients of every client.
+     * @param pool Pool that improves routes in parallel.
+     * @param timeLimit Time budget in seconds.
+     */
+    public IntraRouteImprover(ForkJoinPool pool, double timeLimit){
+        this(pool, timeLimit, 10);
+    }
+
+    /**
+     * Initializes a new instance of IntraRouteImprover.
+     * @param pool Pool that improves routes in parallel.
+     * @param timeLimit Time budget in seconds.
+     * @param neighbours Number of nearest clients of the same route that moves are tried towards.
+     */
+    public IntraRouteImprover(ForkJoinPool pool, double timeLimit, int neighbours){
+        if(!(timeLimit > 0.0))
+            throw new IllegalArgumentException("Time limit must be positive");
+        if(neighbours < 1)
+            throw new IllegalArgumentException("Number of neighbours must be positive");
+        this.pool = pool;
+        this.timeLimit = timeLimit;
+        this.neighbours = neighbours;
+    }
+
+    /**
+     * Improves the solution. The given solution is not modified.
+     * @param solution Resolved solution of the original problem.
+     * @return Improved solution with exactly recomputed cost.
+     */
+    @Override
+    public ResolvedSolution improve(ResolvedSolution solution) {
+        VrpProblem problem = solution.getOriginalProblem();
+        DistanceMatrix matrix = problem.getDistanceMatrix();
+        int depot = problem.getDepot().getId().intValue()-1;
+        long deadline = System.nanoTime() + (long)(timeLimit*1e9);
+        List<VrpSolutionRoute> routes = solution.getRoutes();
+        List<VrpSolutionRoute> improvedRoutes = new ArrayList<>(Collections.nCopies(routes.size(), null));
+        double[] costs = new double[routes.size()];
+        int[] positions = new int[matrix.getDimensions()];
+        int[] indexes = new int[matrix.getDimensions()];
+        pool.invoke(new RouteTask(0, routes.size(), r -> {
+            RouteSearch search = new RouteSearch(routes.get(r), matrix, depot, positions, indexes, deadline);
+            search.run();
+            improvedRoutes.set(r, search.toRoute());
+            costs[r] = search.getCost();
+        }));
+        Double cost = 0.0;
+        for(double c : costs){
+            cost += c;
+        }
+        return new ResolvedSolution(problem, cost, improvedRoutes);
+    }
+
+    /**
+     * Local search on a single route. The route is stored as an array of matrix indices starting and ending with the
+     * depot. Positions of clients (and their indices in the original route) are kept in arrays shared by all routes,
+     * every route writes only its own clients.
+     */
+    private final class RouteSearch {
+        private final VrpSolutionRoute route;
+        private final DistanceMatrix matrix;
+        private final int[] positions;
+        private final int[] indexes;
+        private final long deadline;
+        private final int[] tour;
+        private final int[] buffer;
+        private final int last;
+        // forward[p] (backward[p]) - length of the route prefix up to position p traversed forward (backward)
+        private final double[] forward;
+        private final double[] backward;
+        // nearest[c*k..] - original indices of the nearest clients of the client at original index c of the route
+        private final int[] nearest;
+        private final int k;
+        private final VrpSolutionRouteNode[] nodes;
+        private final int[] clients;
+
+        RouteSearch(VrpSolutionRoute route, DistanceMatrix matrix, int depot, int[] positions, int[] indexes, long deadline){
+            this.route = route;
+            this.matrix = matrix;
+            this.positions = positions;
+            this.indexes = indexes;
+            this.deadline = deadline;
+            List<VrpSolutionRouteNode> routeNodes = route.getNodes();
+            int size = routeNodes.size();
+            this.last = size+1;
+            this.tour = new int[size+2];
+            this.buffer = new int[size+2];
+            this.forward = new double[size+2];
+            this.backward = new double[size+2];
+            this.nodes = routeNodes.toArray(new VrpSolutionRouteNode[size]);
+            this.clients = new int[size];
+            tour[0] = depot;
+            tour[last] = depot;
+            for(int i=0; i<size; i++){
+                clients[i] = routeNodes.get(i).getNodeId().intValue()-1;
+                indexes[clients[i]] = i;
+                tour[i+1] = clients[i];
+            }
+            this.k = Math.min(neighbours, Math.max(size-1, 0));
+            this.nearest = new int[size*k];
+            findNearest();
+            update();
+        }
+
+        void run(){
+            boolean improved = true;
+            while(improved){
+                improved = false;
+                for(int p=0; p<last; p++){
+                    if(System.nanoTime() > deadline)
+                        return;
+                    if(tryTwoOpt(p) || tryOrOpt(p))
+                        improved = true;
+                }
+            }
+        }
+
+        double getCost(){
+            return forward[last];
+        }
+
+        VrpSolutionRoute toRoute(){
+            List<VrpSolutionRouteNode> result = new ArrayList<>(last-1);
+            int[] order = new int[last-1];
+            for(int i=0; i<clients.length; i++){
+                order[positions[clients[i]]-1] = i;
+            }
+            for(int i : order){
+                result.add(nodes[i]);
+            }
+            return new VrpSolutionRoute(route.getVehicleId(), result);
+        }
+
+        /**
+         * Finds the nearest clients of every client among the clients of the route.
+         */
+        private void findNearest(){
+            int size = clients.length;
+            if(k == 0)
+                return;
+            double[] keys = new double[k];
+            for(int c=0; c<size; c++){
+                int count = 0;
+                for(int o=0; o<size; o++){
+                    if(o == c)
+                        continue;
+                    double key = Math.min(matrix.getDistance(clients[c], clients[o]), matrix.getDistance(clients[o], clients[c]));
+                    if(count == k && key >= keys[k-1])
+                        continue;
+                    int i = count < k ? count++ : k-1;
+                    while(i > 0 && keys[i-1] > key){
+                        keys[i] = keys[i-1];
+                        nearest[c*k+i] = nearest[c*k+i-1];
+                        i--;
+                    }
+                    keys[i] = key;
+                    nearest[c*k+i] = o;
+                }
+            }
+        }
+
+        /**
+         * Tries 2-opt moves that connect the vertex at position p with one of its nearest clients.
+         */
+        private boolean tryTwoOpt(int p){
+            int a = tour[p];
+            int start = p == 0 ? 0 : indexes[a]*k;
+            int count = p == 0 ? 0 : k;
+            for(int i=start; i<start+count; i++){
+                int q = positions[clients[nearest[i]]];
+                if(q > p+1){
+                    if(applyTwoOpt(p, q))
+                        return true;
+                } else if(q < p-1){
+                    if(applyTwoOpt(q-1, p-1))
+                        return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Reverses the route between positions i+1 and j when it makes the route shorter.
+         */
+        private boolean applyTwoOpt(int i, int j){
+            double delta = d(tour[i], tour[j]) + d(tour[i+1], tour[j+1]) - d(tour[i], tour[i+1]) - d(tour[j], tour[j+1])
+                    + (backward[j] - backward[i+1]) - (forward[j] - forward[i+1]);
+            if(delta > -EPSILON)
+                return false;
+            for(int l=i+1, r=j; l<r; l++, r--){
+                int t = tour[l];
+                tour[l] = tour[r];
+                tour[r] = t;
+            }
+            update();
+            return true;
+        }
+
+        /**
+         * Tries to move segments starting at position s next to the nearest clients of the first client.
+         */
+        private boolean tryOrOpt(int s){
+            if(s == 0)
+                return false;
+            int start = indexes[tour[s]]*k;
+            for(int e=s; e<Math.min(s+MAX_SEGMENT_LENGTH, last); e++){
+                for(int i=start; i<start+k; i++){
+                    int q = positions[clients[nearest[i]]];
+                    if(applyOrOpt(s, e, q) || applyOrOpt(s, e, q-1))
+                        return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Moves the segment between positions s and e between positions x and x+1 (forward or backward) when it makes
+         * the route shorter.
+         */
+        private boolean applyOrOpt(int s, int e, int x){
+            if(x >= s-1 && x <= e)
+                return false;
+            int u = tour[x];
+            int w = tour[x+1];
+            double removed = d(tour[s-1], tour[s]) + d(tour[e], tour[e+1]) - d(tour[s-1], tour[e+1]);
+            double added = d(u, tour[s]) + d(tour[e], w) - d(u, w);
+            double addedReversed = d(u, tour[e]) + d(tour[s], w) - d(u, w)
+                    + (backward[e] - backward[s]) - (forward[e] - forward[s]);
+            boolean reversed = addedReversed < added;
+            if(Math.min(added, addedReversed) - removed > -EPSILON)
+                return false;
+            int n = 0;
+            for(int p=0; p<=last; p++){
+                if(p >= s && p <= e)
+                    continue;
+                buffer[n++] = tour[p];
+                if(p == x){
+                    for(int l=0; l<=e-s; l++){
+                        buffer[n++] = tour[reversed ? e-l : s+l];
+                    }
+                }
+            }
+            System.arraycopy(buffer, 0, tour, 0, last+1);
+            update();
+            return true;
+        }
+
+        private void update(){
+            for(int p=1; p<=last; p++){
+                forward[p] = forward[p-1] + d(tour[p-1], tour[p]);
+                backward[p] = backward[p-1] + d(tour[p], tour[p-1]);
+                if(p < last)
+                    positions[tour[p]] = p;
+            }
+        }
+
+        private double d(int from, int to){
+            return from == to ? 0.0 : matrix.getDistance(from, to);
+        }
+    }
+
+    /**
+     * Task that improves a range of routes, ranges of more than one route are halved.
+     */
+    @RequiredArgsConstructor
+    private static class RouteTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final IntConsumer action;
+
+        @Override
+        protected void compute() {
+            if(to - from > 1){
+                int middle = (from + to) >>> 1;
+                invokeAll(new RouteTask(from, middle, action), new RouteTask(middle, to, action));
+                return;
+            }
+            for(int i=from; i<to; i++){
+                action.accept(i);
+            }
+        }
+    }
+}
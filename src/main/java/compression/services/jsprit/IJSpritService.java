@@ -1,8 +1,15 @@
 package compression.services.jsprit;
 
 import compression.model.jsprit.DecompressionMethod;
+import compression.model.jsprit.PortfolioRun;
+import compression.model.jsprit.PortfolioSolution;
+import compression.model.jsprit.TerminationSettings;
 import compression.model.jsprit.VrpProblemSolution;
 import compression.model.vrp.VrpProblem;
+import compression.services.compression.cache.ICompressionCache;
+import compression.services.improvement.ISolutionImprover;
+
+import java.util.List;
 
 /**
  * An interface for solving VRP problems with JSprit library.
@@ -18,6 +25,26 @@ public interface IJSpritService {
      * @param seed Random seed.
      */
     void setRandomSeed(Long seed);
+    /**
+     * Sets termination policies for JSprit runs.
+     * @param terminationSettings Termination settings (null runs all iterations).
+     */
+    void setTerminationSettings(TerminationSettings terminationSettings);
+    /**
+     * Sets improver applied to decompressed solutions of compressed problems.
+     * @param solutionImprover Solution improver (null keeps decompressed solutions as they are).
+     */
+    void setSolutionImprover(ISolutionImprover solutionImprover);
+    /**
+     * Sets cache of compressions used by compressed problem conversions.
+     * @param compressionCache Compression cache (null compresses every problem).
+     */
+    void setCompressionCache(ICompressionCache compressionCache);
+    /**
+     * Sets maximal number of JSprit runs of a portfolio that run at once.
+     * @param portfolioThreads Number of threads (0 uses all cores).
+     */
+    void setPortfolioThreads(int portfolioThreads);
     /**
      * Solves full VRP problem - no compression algorithm used.
      * @param problem Original problem
@@ -84,4 +111,30 @@ public interface IJSpritService {
      * @return VRP problem solution.
      */
     VrpProblemSolution compressAndSolve(VrpProblem problem, String dataFolderPath, String solutionRoutePath, DecompressionMethod decompressionMethod);
+    /**
+     * Solves full VRP problem by several independently seeded JSprit runs at once - no compression algorithm used.
+     * @param problem Original problem
+     * @param runs Seeds and output paths of the runs.
+     * @return Solutions of all runs and the best of them.
+     */
+    PortfolioSolution solvePortfolio(VrpProblem problem, List<PortfolioRun> runs);
+    /**
+     * Compresses VRP problem once, solves it by several independently seeded JSprit runs at once and then decompresses
+     * the result of every run.
+     * @param problem Original problem
+     * @param runs Seeds and output paths of the runs.
+     * @param decompressionMethod Decompression method.
+     * @return Solutions of all runs and the best of them.
+     */
+    PortfolioSolution compressAndSolvePortfolio(VrpProblem problem, List<PortfolioRun> runs, DecompressionMethod decompressionMethod);
+    /**
+     * Compresses VRP problem, solves it by JSprit, decompresses the result greedily and then uses the decompressed
+     * routes as the initial solution of a short JSprit search on the full problem.
+     * @param problem Original problem
+     * @param dataFolderPath Folder for algorithm data files of the full problem search.
+     * @param solutionRoutePath Path for solution file.
+     * @param refinementIterations Number of iterations of the full problem search.
+     * @return VRP problem solution.
+     */
+    VrpProblemSolution compressAndRefine(VrpProblem problem, String dataFolderPath, String solutionRoutePath, int refinementIterations);
 }
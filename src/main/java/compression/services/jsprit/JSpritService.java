@@ -8,23 +8,37 @@ import com.graphhopper.jsprit.core.reporting.SolutionPrinter;
 import com.graphhopper.jsprit.core.util.Solutions;
 import com.graphhopper.jsprit.core.util.StopWatch;
 import compression.model.jsprit.DecompressionMethod;
+import compression.model.jsprit.PortfolioRun;
+import compression.model.jsprit.PortfolioSolution;
 import compression.model.jsprit.ProblemType;
 import compression.model.jsprit.SolutionInfo;
+import compression.model.jsprit.TerminationSettings;
 import compression.model.jsprit.VrpProblemSolution;
+import compression.model.vrp.DistanceMatrix;
 import compression.model.vrp.VrpProblem;
 import compression.output.datalogger.CsvDataLogger;
 import compression.output.datalogger.IDataLogger;
 import compression.output.result.IRouteWriter;
 import compression.output.result.RouteWriter;
 import compression.services.compression.ICompressionService;
+import compression.services.compression.cache.ICompressionCache;
+import compression.services.distance.IDistanceMatrixFactory;
 import compression.services.distance.IDistanceService;
+import compression.services.improvement.ISolutionImprover;
 import compression.services.jsprit.conversion.*;
 import compression.services.jsprit.extensions.DataCollectorIterationEndListener;
+import compression.services.jsprit.termination.TerminationMonitor;
+import compression.services.jsprit.termination.TimeLimitTerminationPolicy;
 import compression.services.resolving.*;
 import lombok.RequiredArgsConstructor;
 import com.graphhopper.jsprit.io.problem.VrpXMLWriter;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 
 /**
  * An implementation of IJSpritService interface.
@@ -36,46 +50,68 @@ public class JSpritService implements IJSpritService {
         public IVrpProblemToJSpritConverter getConverter(VrpProblem problem) {
             switch (problem.getProblemMetric()){
                 case Euclidean:
-                    return new EuclideanMetricVrpProblemToJSpritConverter(distanceService);
+                    return new EuclideanMetricVrpProblemToJSpritConverter(distanceService, distanceMatrixFactory);
                 case Explicit:
-                    return new ExplicitMetricVrpProblemToJSpritConverter(distanceService);
+                    return new ExplicitMetricVrpProblemToJSpritConverter(distanceService, distanceMatrixFactory);
                 case Map:
-                    return new MapMetricVrpProblemToJspritConverter(distanceService);
+                    return new MapMetricVrpProblemToJspritConverter(distanceService, distanceMatrixFactory);
                 default:
                     throw new ProblemConversionException("Unsupported or unknown problem metrics");
             }
         }
 
         public IVrpProblemToJSpritConverter getCompressedConverter(VrpProblem problem){
+            ExplicitMetricCompressionVrpProblemToJSpritConverter converter;
             switch (problem.getProblemMetric()){
                 case Euclidean:
-                    return new EuclideanMetricCompressionVrpToJSpritConverter(compressionService, distanceService);
+                    converter = new EuclideanMetricCompressionVrpToJSpritConverter(compressionService, distanceService, distanceMatrixFactory);
+                    break;
                 case Explicit:
-                    return new ExplicitMetricCompressionVrpProblemToJSpritConverter(compressionService, distanceService);
+                    converter = new ExplicitMetricCompressionVrpProblemToJSpritConverter(compressionService, distanceService, distanceMatrixFactory);
+                    break;
                 case Map:
-                    return new MapMetricCompressionVrpProblemToJspritConverter(compressionService, distanceService);
+                    converter = new MapMetricCompressionVrpProblemToJspritConverter(compressionService, distanceService, distanceMatrixFactory);
+                    break;
                 default:
                     throw new ProblemConversionException("Unsupported or unknown problem metrics");
             }
+            converter.setCompressionCache(compressionCache);
+            return converter;
         }
     }
     private final class SolutionRouteResolverFactory{
         private final ISolutionRouteResolver fullSolutionRouteResolver = new FullSolutionRouteResolver();
         private final ISolutionRouteResolver compressedSolutionRouteResolver = new SimpleCompressedSolutionRouteResolver();
         private final ISolutionRouteResolver greedySolutionRouteResolver = new GreedyCompressionSolutionRouteResolver();
+        private final ISolutionRouteResolver optimalSolutionRouteResolver = new OptimalOrientationSolutionRouteResolver();
 
         public ISolutionRouteResolver get(boolean useCompression, DecompressionMethod decompressionMethod){
-            return useCompression ? (decompressionMethod == DecompressionMethod.SIMPLE ? compressedSolutionRouteResolver : greedySolutionRouteResolver) : fullSolutionRouteResolver;
+            if(!useCompression)
+                return fullSolutionRouteResolver;
+            switch (decompressionMethod){
+                case GREEDY:
+                    return greedySolutionRouteResolver;
+                case OPTIMAL:
+                    return optimalSolutionRouteResolver;
+                default:
+                    return compressedSolutionRouteResolver;
+            }
         }
     }
 
     private final ICompressionService compressionService;
     private final IDistanceService distanceService;
+    private final IDistanceMatrixFactory distanceMatrixFactory;
     private final JSpritConvertersFactory factory = new JSpritConvertersFactory();
     private final IRouteWriter solutionRouteWriter = new RouteWriter();
     private final SolutionRouteResolverFactory solutionRoureResolverFactory = new SolutionRouteResolverFactory();
+    private final InitialSolutionConverter initialSolutionConverter = new InitialSolutionConverter();
     private int maxNumberOfIterations = 2000;
     private Long seed = null;
+    private int portfolioThreads = 0;
+    private TerminationSettings terminationSettings = null;
+    private ISolutionImprover solutionImprover = null;
+    private ICompressionCache compressionCache = null;
     /**
      * Sets number of iterations for JSprit.
      * @param maxNumberOfIterations Number of iterations.
@@ -92,6 +128,38 @@ public class JSpritService implements IJSpritService {
     public void setRandomSeed(Long seed){
         this.seed = seed;
     }
+    /**
+     * Sets termination policies for JSprit runs.
+     * @param terminationSettings Termination settings (null runs all iterations).
+     */
+    @Override
+    public void setTerminationSettings(TerminationSettings terminationSettings){
+        this.terminationSettings = terminationSettings;
+    }
+    /**
+     * Sets improver applied to decompressed solutions of compressed problems.
+     * @param solutionImprover Solution improver (null keeps decompressed solutions as they are).
+     */
+    @Override
+    public void setSolutionImprover(ISolutionImprover solutionImprover){
+        this.solutionImprover = solutionImprover;
+    }
+    /**
+     * Sets cache of compressions used by compressed problem conversions.
+     * @param compressionCache Compression cache (null compresses every problem).
+     */
+    @Override
+    public void setCompressionCache(ICompressionCache compressionCache){
+        this.compressionCache = compressionCache;
+    }
+    /**
+     * Sets maximal number of JSprit runs of a portfolio that run at once.
+     * @param portfolioThreads Number of threads (0 uses all cores).
+     */
+    @Override
+    public void setPortfolioThreads(int portfolioThreads){
+        this.portfolioThreads = portfolioThreads;
+    }
     /**
      * Solves full VRP problem - no compression algorithm used.
      * @param problem Original problem
@@ -122,22 +190,28 @@ public class JSpritService implements IJSpritService {
     public VrpProblemSolution solve(VrpProblem problem, String dataPath, String solutionRoutePath){
         IVrpProblemToJSpritConverter converter = factory.getConverter(problem);
         VehicleRoutingProblem vrp = converter.convertToJsprit(problem).getConvertedProblem();
-        Jsprit.Builder builder = Jsprit.Builder.newInstance(vrp);
-        if(seed != null)
-            builder.setRandom(new Random(seed));
-        VehicleRoutingAlgorithm algorithm = builder.buildAlgorithm();
-        algorithm.setMaxIterations(maxNumberOfIterations);
-        if(dataPath != null){
-            IDataLogger logger = new CsvDataLogger(dataPath);
-            algorithm.addListener(new DataCollectorIterationEndListener(problem, logger));
-        }
+        return solveFull(problem, vrp, seed, dataPath, solutionRoutePath);
+    }
+
+    /**
+     * Solves full VRP problem by several independently seeded JSprit runs at once - no compression algorithm used.
+     * The problem is converted once and shared by all runs.
+     * @param problem Original problem
+     * @param runs Seeds and output paths of the runs.
+     * @return Solutions of all runs and the best of them.
+     */
+    @Override
+    public PortfolioSolution solvePortfolio(VrpProblem problem, List<PortfolioRun> runs){
+        IVrpProblemToJSpritConverter converter = factory.getConverter(problem);
+        VehicleRoutingProblem vrp = converter.convertToJsprit(problem).getConvertedProblem();
+        return runPortfolio(runs, run -> solveFull(problem, vrp, run.getSeed(), run.getDataPath(), run.getSolutionRoutePath()));
+    }
+
+    private VrpProblemSolution solveFull(VrpProblem problem, VehicleRoutingProblem vrp, Long seed, String dataPath, String solutionRoutePath){
         StopWatch watch = new StopWatch();
-        watch.reset();
-        watch.start();
-        Collection<VehicleRoutingProblemSolution> solutions = algorithm.searchSolutions();
-        watch.stop();
+        TerminationMonitor monitor = TerminationMonitor.create(terminationSettings, problem.getBestKnownSolution());
+        VehicleRoutingProblemSolution best = search(problem, vrp, seed, dataPath, watch, monitor, maxNumberOfIterations, null);
         Double jspritTime = watch.getCurrTimeInSeconds();
-        VehicleRoutingProblemSolution best = Solutions.bestOf(solutions);
         ISolutionRouteResolver resolver = solutionRoureResolverFactory.get(false, DecompressionMethod.SIMPLE);
         ResolvedSolution resolvedSolution = resolver.resolveRoutes(problem, best, null);
         if(solutionRoutePath != null){
@@ -151,6 +225,10 @@ public class JSpritService implements IJSpritService {
                 jspritTime,
                 null,
                 best.getRoutes().size(),
+                null,
+                monitor.getIterations(),
+                monitor.getReason(),
+                null,
                 null);
         return new VrpProblemSolution(vrp, best, best.getCost(), info);
     }
@@ -223,25 +301,57 @@ public class JSpritService implements IJSpritService {
     public VrpProblemSolution compressAndSolve(VrpProblem problem, String dataPath, String solutionRoutePath, DecompressionMethod decompressionMethod) {
         IVrpProblemToJSpritConverter converter = factory.getCompressedConverter(problem);
         ConversionResult conversionResult = converter.convertToJsprit(problem);
-        VehicleRoutingProblem vrp = conversionResult.getConvertedProblem();
-        Jsprit.Builder algorithmBuilder = Jsprit.Builder.newInstance(vrp);
-        if(seed != null)
-            algorithmBuilder.setRandom(new Random(seed));
-        VehicleRoutingAlgorithm algorithm = algorithmBuilder.buildAlgorithm();
-        algorithm.setMaxIterations(maxNumberOfIterations);
-        if(dataPath != null){
-            IDataLogger logger = new CsvDataLogger(dataPath);
-            algorithm.addListener(new DataCollectorIterationEndListener(problem, logger));
+        try {
+            return solveCompressed(problem, conversionResult, seed, dataPath, solutionRoutePath, decompressionMethod);
+        } catch (RuntimeException ex) {
+            // the solution carries the temporary matrix to the caller, without it the matrix is released here
+            DistanceMatrix.release(conversionResult.getTemporaryDistanceMatrix());
+            throw ex;
+        }
+    }
+
+    /**
+     * Compresses VRP problem once, solves it by several independently seeded JSprit runs at once and then decompresses
+     * the result of every run. The compressed problem is shared by all runs.
+     * @param problem Original problem
+     * @param runs Seeds and output paths of the runs.
+     * @param decompressionMethod Decompression method.
+     * @return Solutions of all runs and the best of them.
+     */
+    @Override
+    public PortfolioSolution compressAndSolvePortfolio(VrpProblem problem, List<PortfolioRun> runs, DecompressionMethod decompressionMethod){
+        IVrpProblemToJSpritConverter converter = factory.getCompressedConverter(problem);
+        ConversionResult conversionResult = converter.convertToJsprit(problem);
+        try {
+            return runPortfolio(runs, run -> solveCompressed(problem, conversionResult, run.getSeed(), run.getDataPath(),
+                    run.getSolutionRoutePath(), decompressionMethod));
+        } catch (RuntimeException ex) {
+            // the solutions carry the temporary matrix to the caller, without them the matrix is released here
+            DistanceMatrix.release(conversionResult.getTemporaryDistanceMatrix());
+            throw ex;
         }
+    }
+
+    private VrpProblemSolution solveCompressed(VrpProblem problem, ConversionResult conversionResult, Long seed, String dataPath,
+                                               String solutionRoutePath, DecompressionMethod decompressionMethod){
+        VehicleRoutingProblem vrp = conversionResult.getConvertedProblem();
         StopWatch watch = new StopWatch();
-        watch.reset();
-        watch.start();
-        Collection<VehicleRoutingProblemSolution> solutions = algorithm.searchSolutions();
-        watch.stop();
+        TerminationMonitor monitor = TerminationMonitor.create(terminationSettings, problem.getBestKnownSolution());
+        VehicleRoutingProblemSolution best = search(problem, vrp, seed, dataPath, watch, monitor, maxNumberOfIterations, null);
         Double jspritTime = watch.getCurrTimeInSeconds();
-        VehicleRoutingProblemSolution best = Solutions.bestOf(solutions);
         ISolutionRouteResolver resolver = solutionRoureResolverFactory.get(true, decompressionMethod);
         ResolvedSolution resolvedSolution = resolver.resolveRoutes(problem, best, conversionResult.getCompressionMap());
+        Double improvement = null;
+        Double improvementTime = null;
+        if(solutionImprover != null){
+            watch.reset();
+            watch.start();
+            ResolvedSolution improvedSolution = solutionImprover.improve(resolvedSolution);
+            watch.stop();
+            improvementTime = watch.getCurrTimeInSeconds();
+            improvement = resolvedSolution.getCost() - improvedSolution.getCost();
+            resolvedSolution = improvedSolution;
+        }
         SolutionInfo info = new SolutionInfo(problem.getProblemName(),
                 problem.getDimensions(),
                 ProblemType.COMPRESSED,
@@ -250,11 +360,138 @@ public class JSpritService implements IJSpritService {
                 jspritTime,
                 conversionResult.getCompressionResult().getTime(),
                 best.getRoutes().size(),
-                vrp.getNuActivities()+1);
-        VrpProblemSolution solution = new VrpProblemSolution(vrp, best, resolvedSolution.getCost(), info);
+                vrp.getNuActivities()+1,
+                monitor.getIterations(),
+                monitor.getReason(),
+                improvement,
+                improvementTime);
+        VrpProblemSolution solution = new VrpProblemSolution(vrp, best, resolvedSolution.getCost(), info,
+                conversionResult.getTemporaryDistanceMatrix());
         if(solutionRoutePath != null){
             solutionRouteWriter.writeRoute(resolvedSolution, solutionRoutePath);
         }
         return solution;
     }
+
+    /**
+     * Compresses VRP problem, solves it by JSprit, decompresses the result greedily and then uses the decompressed
+     * routes as the initial solution of a short JSprit search on the full problem.
+     * @param problem Original problem
+     * @param dataPath Folder for algorithm data files of the full problem search.
+     * @param solutionRoutePath Path for solution file.
+     * @param refinementIterations Number of iterations of the full problem search.
+     * @return VRP problem solution.
+     */
+    @Override
+    public VrpProblemSolution compressAndRefine(VrpProblem problem, String dataPath, String solutionRoutePath, int refinementIterations){
+        IVrpProblemToJSpritConverter compressedConverter = factory.getCompressedConverter(problem);
+        ConversionResult conversionResult = compressedConverter.convertToJsprit(problem);
+        VehicleRoutingProblem compressedVrp = conversionResult.getConvertedProblem();
+        StopWatch watch = new StopWatch();
+        long start = System.nanoTime();
+        TerminationMonitor compressedMonitor = TerminationMonitor.create(terminationSettings, problem.getBestKnownSolution());
+        ResolvedSolution decompressed;
+        try {
+            VehicleRoutingProblemSolution compressedBest = search(problem, compressedVrp, seed, null, watch, compressedMonitor,
+                    maxNumberOfIterations, null);
+            ISolutionRouteResolver greedyResolver = solutionRoureResolverFactory.get(true, DecompressionMethod.GREEDY);
+            decompressed = greedyResolver.resolveRoutes(problem, compressedBest, conversionResult.getCompressionMap());
+        } finally {
+            DistanceMatrix.release(conversionResult.getTemporaryDistanceMatrix());
+        }
+        Double compressedTime = watch.getCurrTimeInSeconds();
+
+        IVrpProblemToJSpritConverter converter = factory.getConverter(problem);
+        VehicleRoutingProblem vrp = converter.convertToJsprit(problem).getConvertedProblem();
+        VehicleRoutingProblemSolution initialSolution = initialSolutionConverter.convert(vrp, decompressed);
+        // both phases share the time budget, the refinement gets only the time left by the compressed phase
+        TerminationSettings refinementSettings = terminationSettings;
+        int iterations = refinementIterations;
+        boolean timeLeft = true;
+        if(terminationSettings != null && terminationSettings.getTimeLimit() != null){
+            double remaining = terminationSettings.getTimeLimit() - (System.nanoTime() - start)/1e9;
+            refinementSettings = terminationSettings.withTimeLimit(Math.max(remaining, 0.0));
+            if(!(remaining > 0.0)){
+                iterations = 0;
+                timeLeft = false;
+            }
+        }
+        TerminationMonitor monitor = TerminationMonitor.create(refinementSettings, problem.getBestKnownSolution());
+        VehicleRoutingProblemSolution best = search(problem, vrp, seed, dataPath, watch, monitor, iterations, initialSolution);
+        Double jspritTime = compressedTime + watch.getCurrTimeInSeconds();
+        String reason = "Compressed:" + compressedMonitor.getReason()
+                + ";Refinement:" + (timeLeft ? monitor.getReason() : TimeLimitTerminationPolicy.NAME);
+        ISolutionRouteResolver resolver = solutionRoureResolverFactory.get(false, DecompressionMethod.SIMPLE);
+        ResolvedSolution resolvedSolution = resolver.resolveRoutes(problem, best, null);
+        if(solutionRoutePath != null){
+            solutionRouteWriter.writeRoute(resolvedSolution, solutionRoutePath);
+        }
+        SolutionInfo info = new SolutionInfo(problem.getProblemName(),
+                problem.getDimensions(),
+                ProblemType.COMPRESSED,
+                problem.getBestKnownSolution(),
+                best.getCost(),
+                jspritTime,
+                conversionResult.getCompressionResult().getTime(),
+                best.getRoutes().size(),
+                compressedVrp.getNuActivities()+1,
+                compressedMonitor.getIterations() + monitor.getIterations(),
+                reason,
+                null,
+                null);
+        return new VrpProblemSolution(vrp, best, best.getCost(), info);
+    }
+
+    private VehicleRoutingProblemSolution search(VrpProblem problem, VehicleRoutingProblem vrp, Long seed, String dataPath, StopWatch watch,
+                                                 TerminationMonitor monitor, int iterations,
+                                                 VehicleRoutingProblemSolution initialSolution){
+        Jsprit.Builder algorithmBuilder = Jsprit.Builder.newInstance(vrp);
+        if(seed != null)
+            algorithmBuilder.setRandom(new Random(seed));
+        VehicleRoutingAlgorithm algorithm = algorithmBuilder.buildAlgorithm();
+        if(initialSolution != null){
+            // jsprit takes the cost of initial solutions as given, unassigned jobs have to be penalized by its objective
+            initialSolution.setCost(algorithm.getObjectiveFunction().getCosts(initialSolution));
+            algorithm.addInitialSolution(initialSolution);
+        }
+        algorithm.setMaxIterations(iterations);
+        algorithm.addListener(monitor);
+        algorithm.addTerminationCriterion(monitor);
+        if(dataPath != null){
+            IDataLogger logger = new CsvDataLogger(dataPath);
+            algorithm.addListener(new DataCollectorIterationEndListener(problem, logger));
+        }
+        watch.reset();
+        watch.start();
+        Collection<VehicleRoutingProblemSolution> solutions = algorithm.searchSolutions();
+        watch.stop();
+        return Solutions.bestOf(solutions);
+    }
+
+    private PortfolioSolution runPortfolio(List<PortfolioRun> runs, Function<PortfolioRun, VrpProblemSolution> solver){
+        int threads = portfolioThreads > 0 ? portfolioThreads : Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, runs.size())));
+        try {
+            List<Future<VrpProblemSolution>> futures = new ArrayList<>();
+            for(PortfolioRun run : runs){
+                futures.add(executor.submit(() -> solver.apply(run)));
+            }
+            List<VrpProblemSolution> solutions = new ArrayList<>();
+            VrpProblemSolution best = null;
+            for(Future<VrpProblemSolution> future : futures){
+                VrpProblemSolution solution = future.get();
+                solutions.add(solution);
+                if(best == null || solution.getCost() < best.getCost())
+                    best = solution;
+            }
+            return new PortfolioSolution(best, solutions);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Portfolio run was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Portfolio run failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
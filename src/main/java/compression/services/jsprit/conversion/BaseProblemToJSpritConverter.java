@@ -5,8 +5,8 @@ import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.job.Service;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
-import com.graphhopper.jsprit.core.util.VehicleRoutingTransportCostsMatrix;
 import compression.model.vrp.*;
+import compression.services.distance.IDistanceMatrixFactory;
 import compression.services.distance.IDistanceService;
 
 /**
@@ -15,13 +15,19 @@ import compression.services.distance.IDistanceService;
 public abstract class BaseProblemToJSpritConverter {
 
     private final IDistanceService distanceService;
+    /**
+     * Factory used to create distance matrices.
+     */
+    protected final IDistanceMatrixFactory distanceMatrixFactory;
 
     /**
      * Initializes a new instance of BaseProblemToJSpritConverter
      * @param distanceService Distance service.
+     * @param distanceMatrixFactory Distance matrix factory.
      */
-    protected BaseProblemToJSpritConverter(IDistanceService distanceService){
+    protected BaseProblemToJSpritConverter(IDistanceService distanceService, IDistanceMatrixFactory distanceMatrixFactory){
         this.distanceService = distanceService;
+        this.distanceMatrixFactory = distanceMatrixFactory;
     }
 
     /**
@@ -62,55 +68,32 @@ public abstract class BaseProblemToJSpritConverter {
 
     /**
      * Creates distance matrix for Euclidean metrics problems.
-     * @param problem
-     * @return
+     * @param problem VRP problem.
+     * @return Distance matrix.
      */
     protected DistanceMatrix createDistanceMatrix(VrpProblem problem){
-        int dimensions = problem.getDimensions();
-        DistanceMatrix matrix = new DistanceMatrix(dimensions);
-        for(Client c: problem.getClients()){
-            for(Client c1 : problem.getClients()){
-                if(c.getId() != c1.getId()){
-                    matrix.setDistance(c.getId(), c1.getId(), distanceService.getEuclideanDistance(c.getLocation(), c1.getLocation()));
-                }
-            }
-            matrix.setDistance(c.getId(), problem.getDepot().getId(), distanceService.getEuclideanDistance(c.getLocation(), problem.getDepot().getLocation()));
-            matrix.setDistance(problem.getDepot().getId(), c.getId(), distanceService.getEuclideanDistance(problem.getDepot().getLocation(), c.getLocation()));
-        }
-        return matrix;
+        return distanceMatrixFactory.createEuclidean(problem);
     }
 
     /**
-     * Copies values from distance matrix to JSprit distance matrix.
+     * Creates JSprit transport costs that read distance matrix of the problem directly.
      * @param problem VRP problem.
-     * @param matirxCostBuilder JSprit matrix builder.
+     * @return JSprit transport costs.
      */
-    protected void copyDistanceMatrix(VrpProblem problem, VehicleRoutingTransportCostsMatrix.Builder matirxCostBuilder){
+    protected DistanceMatrixTransportCosts createTransportCosts(VrpProblem problem){
         DistanceMatrix matrix = problem.getDistanceMatrix();
         if(matrix == null)
             throw new ProblemConversionException("Distance matrix is obligatory for this converter");
-        for(Client from : problem.getClients()){
-            for(Client to : problem.getClients()){
-                double distance = 0.0;
-                Double d = matrix.getDistance(from.getId(), to.getId());
-                if(d != null){
-                    distance = d;
-                }
-                matirxCostBuilder.addTransportDistance(from.getId().toString(), to.getId().toString(), distance);
-            }
-            double distance = 0.0;
-            Double d = matrix.getDistance(from.getId(), problem.getDepot().getId());
-            if(d != null){
-                distance = d;
-            }
-            matirxCostBuilder.addTransportDistance(from.getId().toString(), problem.getDepot().getId().toString(), distance);
-            double distance1 = 0.0;
-            Double d1 = matrix.getDistance(problem.getDepot().getId(), from.getId());
-            if(d1 != null){
-                distance1 = d1;
-            }
-            matirxCostBuilder.addTransportDistance(problem.getDepot().getId().toString(), from.getId().toString(), distance1);
-        }
+        return new DistanceMatrixTransportCosts(matrix);
+    }
+
+    /**
+     * Creates JSprit location with the given id and the index of its row in distance matrix.
+     * @param id Id of the location (1-based).
+     * @return JSprit location.
+     */
+    protected Location createLocation(Long id){
+        return Location.Builder.newInstance().setId(id.toString()).setIndex(id.intValue()-1).build();
     }
 
     /**
@@ -1,6 +1,7 @@
 package compression.services.jsprit.conversion;
 
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import compression.model.vrp.DistanceMatrix;
 import compression.model.vrp.helpers.AggregatedService;
 import compression.services.compression.CompressionResult;
 import lombok.AllArgsConstructor;
@@ -19,4 +20,10 @@ public class ConversionResult {
     private CompressionResult compressionResult;
     @Getter
     private Map<Long, AggregatedService> compressionMap;
+    /**
+     * Distance matrix created only for the converted problem (null when there is none). It should be closed when the
+     * converted problem is no longer used.
+     */
+    @Getter
+    private DistanceMatrix temporaryDistanceMatrix;
 }
@@ -0,0 +1,81 @@
+package compression.services.jsprit.conversion;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.cost.AbstractForwardVehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.cost.TransportDistance;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import compression.model.vrp.DistanceMatrix;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Transport costs for JSprit that read the distance matrix directly by indices of JSprit locations, so the matrix is
+ * neither copied nor keyed by strings. Every location must have index of its row in the matrix (id - 1). Transport
+ * times are zero, as they were for JSprit matrices built from distances only.
+ */
+@RequiredArgsConstructor
+public class DistanceMatrixTransportCosts extends AbstractForwardVehicleRoutingTransportCosts implements TransportDistance {
+
+    /**
+     * Distance matrix.
+     */
+    @Getter
+    private final DistanceMatrix distanceMatrix;
+
+    /**
+     * Gets transport time between two locations.
+     * @param from Start location.
+     * @param to End location.
+     * @param departureTime Departure time.
+     * @param driver Driver.
+     * @param vehicle Vehicle.
+     * @return Transport time.
+     */
+    @Override
+    public double getTransportTime(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        return 0.0;
+    }
+
+    /**
+     * Gets transport cost between two locations.
+     * @param from Start location.
+     * @param to End location.
+     * @param departureTime Departure time.
+     * @param driver Driver.
+     * @param vehicle Vehicle.
+     * @return Transport cost.
+     */
+    @Override
+    public double getTransportCost(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        double distance = getDistance(from, to);
+        if(vehicle == null)
+            return distance;
+        VehicleTypeImpl.VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
+        return costParams.perDistanceUnit*distance;
+    }
+
+    /**
+     * Gets distance between two locations.
+     * @param from Start location.
+     * @param to End location.
+     * @param departureTime Departure time.
+     * @param vehicle Vehicle.
+     * @return Distance.
+     */
+    @Override
+    public double getDistance(Location from, Location to, double departureTime, Vehicle vehicle) {
+        return getDistance(from, to);
+    }
+
+    private double getDistance(Location from, Location to){
+        int fromIndex = from.getIndex();
+        int toIndex = to.getIndex();
+        if(fromIndex < 0 || toIndex < 0)
+            throw new ProblemConversionException("Location "+(fromIndex < 0 ? from : to).getId()+" does not have an index");
+        if(fromIndex == toIndex)
+            return 0.0;
+        return distanceMatrix.getDistance(fromIndex, toIndex);
+    }
+}
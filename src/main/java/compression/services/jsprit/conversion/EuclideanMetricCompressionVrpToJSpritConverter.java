@@ -2,6 +2,7 @@ package compression.services.jsprit.conversion;
 
 import compression.model.vrp.*;
 import compression.services.compression.ICompressionService;
+import compression.services.distance.IDistanceMatrixFactory;
 import compression.services.distance.IDistanceService;
 
 /**
@@ -15,9 +16,10 @@ public class EuclideanMetricCompressionVrpToJSpritConverter
      * Initializes a new instance of EuclideanMetricCompressionVrpToJSpritConverter.
      * @param compressionService Compression service.
      * @param distanceService Distance service.
+     * @param distanceMatrixFactory Distance matrix factory.
      */
-    public EuclideanMetricCompressionVrpToJSpritConverter(ICompressionService compressionService, IDistanceService distanceService){
-        super(compressionService, distanceService);
+    public EuclideanMetricCompressionVrpToJSpritConverter(ICompressionService compressionService, IDistanceService distanceService, IDistanceMatrixFactory distanceMatrixFactory){
+        super(compressionService, distanceService, distanceMatrixFactory);
     }
 
     /**
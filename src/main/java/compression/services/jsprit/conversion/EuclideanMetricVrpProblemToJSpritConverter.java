@@ -5,6 +5,7 @@ import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.util.VehicleRoutingTransportCostsMatrix;
 import compression.model.vrp.VrpProblem;
 import compression.model.vrp.VrpProblemMetric;
+import compression.services.distance.IDistanceMatrixFactory;
 import compression.services.distance.IDistanceService;
 
 /**
@@ -17,9 +18,10 @@ public class EuclideanMetricVrpProblemToJSpritConverter
     /**
      * Initializes a new instance of EuclideanMetricVrpProblemToJSpritConverter.
      * @param distanceService Distance service.
+     * @param distanceMatrixFactory Distance matrix factory.
      */
-    public EuclideanMetricVrpProblemToJSpritConverter(IDistanceService distanceService) {
-        super(distanceService);
+    public EuclideanMetricVrpProblemToJSpritConverter(IDistanceService distanceService, IDistanceMatrixFactory distanceMatrixFactory) {
+        super(distanceService, distanceMatrixFactory);
     }
 
     /**
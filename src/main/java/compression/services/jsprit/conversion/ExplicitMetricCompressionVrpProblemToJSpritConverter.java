@@ -3,11 +3,14 @@ package compression.services.jsprit.conversion;
 import com.graphhopper.jsprit.core.problem.Location;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.job.Service;
-import com.graphhopper.jsprit.core.util.VehicleRoutingTransportCostsMatrix;
+import com.graphhopper.jsprit.core.util.StopWatch;
 import compression.model.vrp.*;
 import compression.model.vrp.helpers.AggregatedService;
 import compression.services.compression.CompressionResult;
 import compression.services.compression.ICompressionService;
+import compression.services.compression.cache.CompressedProblem;
+import compression.services.compression.cache.ICompressionCache;
+import compression.services.distance.IDistanceMatrixFactory;
 import compression.services.distance.IDistanceService;
 
 import java.util.HashMap;
@@ -22,17 +25,27 @@ public class ExplicitMetricCompressionVrpProblemToJSpritConverter
         implements IVrpProblemToJSpritConverter {
 
     private final ICompressionService compressionService;
+    private ICompressionCache compressionCache = null;
 
     /**
      * Initializes a new instance of ExplicitMetricCompressionVrpProblemToJSpritConverter
      * @param compressionService Compression service.
      * @param distanceService Distance service.
+     * @param distanceMatrixFactory Distance matrix factory.
      */
-    public ExplicitMetricCompressionVrpProblemToJSpritConverter(ICompressionService compressionService, IDistanceService distanceService){
-        super(distanceService);
+    public ExplicitMetricCompressionVrpProblemToJSpritConverter(ICompressionService compressionService, IDistanceService distanceService, IDistanceMatrixFactory distanceMatrixFactory){
+        super(distanceService, distanceMatrixFactory);
         this.compressionService = compressionService;
     }
 
+    /**
+     * Sets cache of compressions. Cached problems skip compression and building of the compressed distance matrix.
+     * @param compressionCache Compression cache (null compresses every problem).
+     */
+    public void setCompressionCache(ICompressionCache compressionCache){
+        this.compressionCache = compressionCache;
+    }
+
     /**
      * Converts location to JSprit location.
      * @param client Client location
@@ -40,7 +53,7 @@ public class ExplicitMetricCompressionVrpProblemToJSpritConverter
      */
     @Override
     protected Location convertLocation(Client client) {
-        return Location.newInstance(client.getId().toString());
+        return createLocation(client.getId());
     }
 
     /**
@@ -56,29 +69,43 @@ public class ExplicitMetricCompressionVrpProblemToJSpritConverter
         if(problem.getDistanceMatrix() == null){
             throw new ProblemConversionException("Distance matrix cannot be null");
         }
-        CompressionResult compressionResult = compressionService.getAggregatedClients(problem);
+        StopWatch watch = new StopWatch();
+        watch.start();
+        String key = compressionCache == null ? null : compressionCache.createKey(problem);
+        CompressedProblem compressedProblem = key == null ? null : compressionCache.get(key, problem);
+        CompressionResult compressionResult;
+        if(compressedProblem != null){
+            watch.stop();
+            compressionResult = new CompressionResult(compressedProblem.getAggregatedServices(), watch.getCurrTimeInSeconds());
+        } else {
+            compressionResult = compressionService.getAggregatedClients(problem);
+            DistanceMatrix compressedMatrix = compressMatrix(compressionResult.getAggregatedServices(), problem.getDepot(), problem.getDistanceMatrix());
+            compressedProblem = new CompressedProblem(compressionResult.getAggregatedServices(), compressedMatrix);
+            if(key != null)
+                compressionCache.put(key, compressedProblem);
+        }
         List<AggregatedService> services = compressionResult.getAggregatedServices();
         VehicleRoutingProblem.Builder problemBuilder = VehicleRoutingProblem.Builder.newInstance();
-        Location depotLocation = Location.newInstance(problem.getDepot().getId().toString());
+        Location depotLocation = createLocation(problem.getDepot().getId());
         addVehicles(problemBuilder, problem, depotLocation);
-        DistanceMatrix matrix = compressMatrix(services, problem.getDepot(), problem.getDistanceMatrix());
-        VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(false);
-        copyDistanceMatrix(matrix, matrixBuilder);
+        DistanceMatrix matrix = compressedProblem.getDistanceMatrix();
         Map<Long, AggregatedService> compressionMap = new HashMap<>();
         for(AggregatedService s : services){
             Service service = Service.Builder.newInstance(s.getId().toString())
-                    .setLocation(Location.newInstance(s.getId().toString()))
+                    .setLocation(createLocation(s.getId()))
                     .addSizeDimension(0, s.getInternalCost().intValue())
                     .build();
             problemBuilder.addJob(service);
             compressionMap.put(s.getId(), s);
         }
-        problemBuilder.setRoutingCost(matrixBuilder.build());
-        return new ConversionResult(problemBuilder.build(), compressionResult, compressionMap);
+        problemBuilder.setRoutingCost(new DistanceMatrixTransportCosts(matrix));
+        // cached matrices are owned by the cache
+        DistanceMatrix temporaryMatrix = key == null ? matrix : null;
+        return new ConversionResult(problemBuilder.build(), compressionResult, compressionMap, temporaryMatrix);
     }
 
     private DistanceMatrix compressMatrix(List<AggregatedService> services, Depot depot, DistanceMatrix distances){
-        DistanceMatrix matrix = new DistanceMatrix(services.size()+1);
+        DistanceMatrix matrix = distanceMatrixFactory.create(services.size()+1);
         for(AggregatedService from : services){
             for(AggregatedService to : services){
                 if(from != to){
@@ -95,14 +122,4 @@ public class ExplicitMetricCompressionVrpProblemToJSpritConverter
         }
         return matrix;
     }
-
-    private void copyDistanceMatrix(DistanceMatrix matrix, VehicleRoutingTransportCostsMatrix.Builder matrixCostBuilder){
-        for(Long from = 1L; from <= matrix.getDimensions(); from++){
-            for(Long to = 1L; to <= matrix.getDimensions(); to++){
-                if(!from.equals(to)) {
-                    matrixCostBuilder.addTransportDistance(from.toString(), to.toString(), matrix.getDistance(from, to));
-                }
-            }
-        }
-    }
 }
@@ -3,8 +3,8 @@ package compression.services.jsprit.conversion;
 import com.graphhopper.jsprit.core.problem.Location;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.util.Coordinate;
-import com.graphhopper.jsprit.core.util.VehicleRoutingTransportCostsMatrix;
 import compression.model.vrp.*;
+import compression.services.distance.IDistanceMatrixFactory;
 import compression.services.distance.IDistanceService;
 
 /**
@@ -17,9 +17,10 @@ public class ExplicitMetricVrpProblemToJSpritConverter
     /**
      * Initializes a new instance of ExplicitMetricVrpProblemToJSpritConverter.
      * @param distanceService Distance service.
+     * @param distanceMatrixFactory Distance matrix factory.
      */
-    public ExplicitMetricVrpProblemToJSpritConverter(IDistanceService distanceService){
-        super(distanceService);
+    public ExplicitMetricVrpProblemToJSpritConverter(IDistanceService distanceService, IDistanceMatrixFactory distanceMatrixFactory){
+        super(distanceService, distanceMatrixFactory);
     }
 
     /**
@@ -33,12 +34,10 @@ public class ExplicitMetricVrpProblemToJSpritConverter
             throw new ProblemConversionException("Metric must be explicit for this converter");
         }
         VehicleRoutingProblem.Builder problemBuilder = VehicleRoutingProblem.Builder.newInstance();
-        addVehicles(problemBuilder, problem, Location.newInstance(problem.getDepot().getId().toString()));
+        addVehicles(problemBuilder, problem, createLocation(problem.getDepot().getId()));
         addClients(problemBuilder, problem);
-        VehicleRoutingTransportCostsMatrix.Builder matrixCostBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(false);
-        copyDistanceMatrix(problem, matrixCostBuilder);
-        problemBuilder.setRoutingCost(matrixCostBuilder.build());
-        return new ConversionResult(problemBuilder.build(), null, null);
+        problemBuilder.setRoutingCost(createTransportCosts(problem));
+        return new ConversionResult(problemBuilder.build(), null, null, null);
     }
 
     /**
@@ -51,6 +50,7 @@ public class ExplicitMetricVrpProblemToJSpritConverter
         Location.Builder b = Location.Builder.newInstance();
         b.setCoordinate(new Coordinate(client.getLocation().getLongitude(), client.getLocation().getLatitude()));
         b.setId(client.getId().toString());
+        b.setIndex(client.getId().intValue()-1);
         return b.build();
     }
 }
@@ -0,0 +1,68 @@
+package compression.services.jsprit.conversion;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import compression.services.resolving.ResolvedSolution;
+import compression.services.resolving.VrpSolutionRoute;
+import compression.services.resolving.VrpSolutionRouteNode;
+
+import java.util.*;
+
+/**
+ * Converts resolved (decompressed) solution to JSprit solution of the full problem, so it can be used as an initial
+ * solution of JSprit algorithm. Nodes of the routes are matched to jobs by ids used by full problem converters
+ * (client id - 1) and vehicles are matched by their ids. Clients missing in the routes become unassigned jobs. The cost
+ * of the result is its transport cost only, it has to be replaced by the objective function of the algorithm (which
+ * penalizes unassigned jobs) before the solution competes with solutions found by JSprit.
+ */
+public class InitialSolutionConverter {
+
+    /**
+     * Converts resolved solution to JSprit solution of the full problem.
+     * @param vrp JSprit full problem.
+     * @param solution Resolved solution.
+     * @return JSprit solution with transport cost.
+     */
+    public VehicleRoutingProblemSolution convert(VehicleRoutingProblem vrp, ResolvedSolution solution){
+        Map<String, Vehicle> vehicles = new HashMap<>();
+        for(Vehicle vehicle : vrp.getVehicles()){
+            vehicles.put(vehicle.getId(), vehicle);
+        }
+        Set<String> assigned = new HashSet<>();
+        List<VehicleRoute> routes = new ArrayList<>(solution.getRoutes().size());
+        double cost = 0.0;
+        for(VrpSolutionRoute route : solution.getRoutes()){
+            if(route.getNodes().isEmpty())
+                continue;
+            Vehicle vehicle = vehicles.get(route.getVehicleId());
+            if(vehicle == null)
+                throw new ProblemConversionException("Unknown vehicle "+route.getVehicleId());
+            VehicleRoute.Builder builder = VehicleRoute.Builder.newInstance(vehicle)
+                    .setJobActivityFactory(vrp.getJobActivityFactory());
+            Location previous = vehicle.getStartLocation();
+            for(VrpSolutionRouteNode node : route.getNodes()){
+                String jobId = Long.toString(node.getNodeId()-1);
+                Job job = vrp.getJobs().get(jobId);
+                if(!(job instanceof Service) || !assigned.add(jobId))
+                    throw new ProblemConversionException("Route node "+node.getNodeId()+" is not a single client of the problem");
+                Service service = (Service) job;
+                builder.addService(service);
+                cost += vrp.getTransportCosts().getTransportCost(previous, service.getLocation(), 0.0, null, vehicle);
+                previous = service.getLocation();
+            }
+            cost += vrp.getTransportCosts().getTransportCost(previous, vehicle.getEndLocation(), 0.0, null, vehicle);
+            routes.add(builder.build());
+        }
+        VehicleRoutingProblemSolution result = new VehicleRoutingProblemSolution(routes, cost);
+        for(Job job : vrp.getJobs().values()){
+            if(!assigned.contains(job.getId()))
+                result.getUnassignedJobs().add(job);
+        }
+        return result;
+    }
+}
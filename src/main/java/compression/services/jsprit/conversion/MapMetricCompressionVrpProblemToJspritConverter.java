@@ -6,6 +6,7 @@ import compression.model.vrp.Client;
 import compression.model.vrp.VrpProblem;
 import compression.model.vrp.VrpProblemMetric;
 import compression.services.compression.ICompressionService;
+import compression.services.distance.IDistanceMatrixFactory;
 import compression.services.distance.IDistanceService;
 
 /**
@@ -17,9 +18,10 @@ public class MapMetricCompressionVrpProblemToJspritConverter extends ExplicitMet
      * Initializes a new instance of MapMetricCompressionVrpProblemToJspritConverter.
      * @param compressionService Compression service.
      * @param distanceService Distance service.
+     * @param distanceMatrixFactory Distance matrix factory.
      */
-    public MapMetricCompressionVrpProblemToJspritConverter(ICompressionService compressionService, IDistanceService distanceService) {
-        super(compressionService, distanceService);
+    public MapMetricCompressionVrpProblemToJspritConverter(ICompressionService compressionService, IDistanceService distanceService, IDistanceMatrixFactory distanceMatrixFactory) {
+        super(compressionService, distanceService, distanceMatrixFactory);
     }
 
     /**
@@ -43,6 +45,7 @@ public class MapMetricCompressionVrpProblemToJspritConverter extends ExplicitMet
         Location.Builder b = Location.Builder.newInstance();
         b.setCoordinate(new Coordinate(client.getLocation().getLongitude(), client.getLocation().getLatitude()));
         b.setId(client.getId().toString());
+        b.setIndex(client.getId().intValue()-1);
         return b.build();
     }
 }
@@ -5,6 +5,7 @@ import com.graphhopper.jsprit.core.util.Coordinate;
 import compression.model.vrp.Client;
 import compression.model.vrp.VrpProblem;
 import compression.model.vrp.VrpProblemMetric;
+import compression.services.distance.IDistanceMatrixFactory;
 import compression.services.distance.IDistanceService;
 
 /**
@@ -15,9 +16,10 @@ public class MapMetricVrpProblemToJspritConverter extends ExplicitMetricVrpProbl
     /**
      * Initializes a new instance of MapMetricVrpProblemToJspritConverter.
      * @param distanceService Distance service.
+     * @param distanceMatrixFactory Distance matrix factory.
      */
-    public MapMetricVrpProblemToJspritConverter(IDistanceService distanceService) {
-        super(distanceService);
+    public MapMetricVrpProblemToJspritConverter(IDistanceService distanceService, IDistanceMatrixFactory distanceMatrixFactory) {
+        super(distanceService, distanceMatrixFactory);
     }
 
     /**
@@ -40,6 +42,7 @@ public class MapMetricVrpProblemToJspritConverter extends ExplicitMetricVrpProbl
         Location.Builder b = Location.Builder.newInstance();
         b.setCoordinate(new Coordinate(client.getLocation().getLongitude(), client.getLocation().getLatitude()));
         b.setId(client.getId().toString());
+        b.setIndex(client.getId().intValue()-1);
         return b.build();
     }
 }
@@ -0,0 +1,20 @@
+package compression.services.jsprit.termination;
+
+/**
+ * Defines a condition under which a JSprit run stops before reaching the maximal number of iterations. Policies may
+ * keep state, so every run needs its own instances.
+ */
+public interface ITerminationPolicy {
+    /**
+     * Checks whether the run should stop.
+     * @param progress Progress of the run after the last iteration.
+     * @return True when the run should stop.
+     */
+    boolean isSatisfied(SearchProgress progress);
+
+    /**
+     * Gets name of the policy used in solution reports.
+     * @return Name of the policy.
+     */
+    String getName();
+}
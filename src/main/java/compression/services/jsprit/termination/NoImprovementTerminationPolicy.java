@@ -0,0 +1,21 @@
+package compression.services.jsprit.termination;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Stops the run when the best solution has not improved for the given number of iterations.
+ */
+@RequiredArgsConstructor
+public class NoImprovementTerminationPolicy implements ITerminationPolicy {
+    private final int iterations;
+
+    @Override
+    public boolean isSatisfied(SearchProgress progress) {
+        return progress.getIteration() - progress.getLastImprovementIteration() >= iterations;
+    }
+
+    @Override
+    public String getName() {
+        return "NoImprovement";
+    }
+}
@@ -0,0 +1,36 @@
+package compression.services.jsprit.termination;
+
+/**
+ * Stops the run when the best solution improved by less than the given fraction over the last window of iterations.
+ */
+public class RelativeImprovementTerminationPolicy implements ITerminationPolicy {
+    private final double epsilon;
+    private final double[] history;
+
+    /**
+     * Initializes a new instance of RelativeImprovementTerminationPolicy.
+     * @param window Number of iterations over which the improvement is measured.
+     * @param epsilon Minimal relative improvement.
+     */
+    public RelativeImprovementTerminationPolicy(int window, double epsilon){
+        if(window < 1)
+            throw new IllegalArgumentException("Improvement window must be positive");
+        this.epsilon = epsilon;
+        this.history = new double[window];
+    }
+
+    @Override
+    public boolean isSatisfied(SearchProgress progress) {
+        int slot = progress.getIteration() % history.length;
+        double previous = history[slot];
+        history[slot] = progress.getBestCost();
+        if(progress.getIteration() <= history.length || Double.isInfinite(previous))
+            return false;
+        return previous - progress.getBestCost() < epsilon * Math.abs(previous);
+    }
+
+    @Override
+    public String getName() {
+        return "RelativeImprovement";
+    }
+}
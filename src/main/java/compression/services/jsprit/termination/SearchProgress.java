@@ -0,0 +1,46 @@
+package compression.services.jsprit.termination;
+
+import lombok.Getter;
+
+/**
+ * Represents progress of a single JSprit run as seen by termination policies.
+ */
+public class SearchProgress {
+    @Getter
+    private int iteration;
+    @Getter
+    private double bestCost = Double.POSITIVE_INFINITY;
+    @Getter
+    private int lastImprovementIteration;
+    private long startTime = System.nanoTime();
+
+    /**
+     * Restarts the progress at the start of the algorithm.
+     */
+    public void start(){
+        iteration = 0;
+        bestCost = Double.POSITIVE_INFINITY;
+        lastImprovementIteration = 0;
+        startTime = System.nanoTime();
+    }
+
+    /**
+     * Records the end of an iteration.
+     * @param cost Cost of the solution discovered in the iteration.
+     */
+    public void update(double cost){
+        iteration++;
+        if(cost < bestCost){
+            bestCost = cost;
+            lastImprovementIteration = iteration;
+        }
+    }
+
+    /**
+     * Gets time elapsed from the start of the algorithm.
+     * @return Elapsed time in seconds.
+     */
+    public double getElapsedTime(){
+        return (System.nanoTime() - startTime) / 1e9;
+    }
+}
@@ -0,0 +1,22 @@
+package compression.services.jsprit.termination;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Stops the run when the best solution is within the given relative gap to the best known solution.
+ */
+@RequiredArgsConstructor
+public class TargetGapTerminationPolicy implements ITerminationPolicy {
+    private final double bestKnownSolution;
+    private final double targetGap;
+
+    @Override
+    public boolean isSatisfied(SearchProgress progress) {
+        return progress.getBestCost() <= bestKnownSolution * (1.0 + targetGap);
+    }
+
+    @Override
+    public String getName() {
+        return "TargetGap";
+    }
+}
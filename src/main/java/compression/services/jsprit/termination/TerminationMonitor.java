@@ -0,0 +1,88 @@
+package compression.services.jsprit.termination;
+
+import com.graphhopper.jsprit.core.algorithm.SearchStrategy;
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.listener.AlgorithmStartsListener;
+import com.graphhopper.jsprit.core.algorithm.termination.PrematureAlgorithmTermination;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import compression.model.jsprit.TerminationSettings;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Tracks progress of a single JSprit run and stops it when any of its termination policies is satisfied. It has to be
+ * registered both as a termination criterion and as a listener of the algorithm.
+ */
+public class TerminationMonitor implements PrematureAlgorithmTermination, AlgorithmStartsListener {
+    /**
+     * Reason reported when the run used all iterations.
+     */
+    public static final String MAX_ITERATIONS = "MaxIterations";
+
+    private final List<ITerminationPolicy> policies;
+    private final SearchProgress progress = new SearchProgress();
+    /**
+     * Name of the policy that stopped the run.
+     */
+    @Getter
+    private String reason = MAX_ITERATIONS;
+
+    /**
+     * Initializes a new instance of TerminationMonitor.
+     * @param policies Termination policies, they are checked in the given order.
+     */
+    public TerminationMonitor(List<ITerminationPolicy> policies){
+        this.policies = policies;
+    }
+
+    /**
+     * Creates a monitor with policies given by the settings.
+     * @param settings Termination settings, may be null.
+     * @param bestKnownSolution Best known solution of the problem (0 or null when unknown).
+     * @return Termination monitor.
+     */
+    public static TerminationMonitor create(TerminationSettings settings, Double bestKnownSolution){
+        List<ITerminationPolicy> policies = new ArrayList<>();
+        if(settings != null){
+            if(settings.getTimeLimit() != null)
+                policies.add(new TimeLimitTerminationPolicy(settings.getTimeLimit()));
+            if(settings.getTargetGap() != null && bestKnownSolution != null && bestKnownSolution > 0.0)
+                policies.add(new TargetGapTerminationPolicy(bestKnownSolution, settings.getTargetGap()));
+            if(settings.getNoImprovementIterations() != null)
+                policies.add(new NoImprovementTerminationPolicy(settings.getNoImprovementIterations()));
+            if(settings.getMinRelativeImprovement() != null)
+                policies.add(new RelativeImprovementTerminationPolicy(settings.getImprovementWindow(), settings.getMinRelativeImprovement()));
+        }
+        return new TerminationMonitor(policies);
+    }
+
+    /**
+     * Gets number of finished iterations.
+     * @return Number of iterations.
+     */
+    public int getIterations(){
+        return progress.getIteration();
+    }
+
+    @Override
+    public void informAlgorithmStarts(VehicleRoutingProblem problem, VehicleRoutingAlgorithm algorithm, Collection<VehicleRoutingProblemSolution> solutions) {
+        progress.start();
+        reason = MAX_ITERATIONS;
+    }
+
+    @Override
+    public boolean isPrematureBreak(SearchStrategy.DiscoveredSolution discoveredSolution) {
+        progress.update(discoveredSolution.getSolution().getCost());
+        for(ITerminationPolicy policy : policies){
+            if(policy.isSatisfied(progress)){
+                reason = policy.getName();
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,26 @@
+package compression.services.jsprit.termination;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Stops the run when its wall-clock time exceeds the given budget. The current iteration is always finished.
+ */
+@RequiredArgsConstructor
+public class TimeLimitTerminationPolicy implements ITerminationPolicy {
+    /**
+     * Name of the policy reported as termination reason.
+     */
+    public static final String NAME = "TimeLimit";
+
+    private final double timeLimit;
+
+    @Override
+    public boolean isSatisfied(SearchProgress progress) {
+        return progress.getElapsedTime() >= timeLimit;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+}
@@ -101,6 +101,7 @@ class RouteSegmentHelper{
         Long newlast = service.getOutputVertex().getId();
         Double cost = currentDistance;
         if(shouldRevert) {
+            vertices = new ArrayList<>(vertices);
             Collections.reverse(vertices);
             newlast = service.getInputVertex().getId();
         }
@@ -0,0 +1,68 @@
+package compression.services.resolving;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import compression.model.vrp.DistanceMatrix;
+import compression.model.vrp.VrpProblem;
+import compression.model.vrp.helpers.AggregatedService;
+import compression.model.vrp.helpers.LocationVertex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Implements decompression that chooses orientation of all aggregated services of a route together by dynamic
+ * programming (see ServiceOrientationHelper), so the route is the shortest possible for the visiting order of the
+ * compressed solution. Runs in time linear in the route length. Services of the compression map are only read, so
+ * routes are decompressed in parallel.
+ */
+public class OptimalOrientationSolutionRouteResolver implements ISolutionRouteResolver {
+
+    /**
+     * Resolves routes of compressed problem solution and decompresses them.
+     * @param originalProblem Original VRP problem.
+     * @param best Compressed problem solution.
+     * @param compressionMap Compression map
+     * @return Resolved original problem solution.
+     */
+    @Override
+    public ResolvedSolution resolveRoutes(VrpProblem originalProblem, VehicleRoutingProblemSolution best, Map<Long, AggregatedService> compressionMap) {
+        List<VehicleRoute> compressedRoutes = new ArrayList<>(best.getRoutes());
+        DistanceMatrix matrix = originalProblem.getDistanceMatrix();
+        Long depotId = originalProblem.getDepot().getId();
+        double[] costs = new double[compressedRoutes.size()];
+        List<VrpSolutionRoute> routes = IntStream.range(0, compressedRoutes.size()).parallel()
+                .mapToObj(r -> convertRoute(compressedRoutes.get(r), compressionMap, depotId, matrix, costs, r))
+                .collect(Collectors.toList());
+        Double cost = 0.0;
+        for(double c : costs){
+            cost += c;
+        }
+        return new ResolvedSolution(originalProblem, cost, routes);
+    }
+
+    private VrpSolutionRoute convertRoute(VehicleRoute route, Map<Long, AggregatedService> compressionMap, Long depotId,
+                                          DistanceMatrix matrix, double[] costs, int index){
+        List<AggregatedService> services = RouteSegmentHelper.convertSolutionRouteToAggregatedServicesList(route, compressionMap);
+        boolean[] reversed = ServiceOrientationHelper.orient(services, depotId, matrix);
+        List<VrpSolutionRouteNode> nodes = new ArrayList<>();
+        double cost = 0.0;
+        Long lastId = depotId;
+        for(int i=0; i<services.size(); i++){
+            List<LocationVertex> vertices = services.get(i).getVertices();
+            int size = vertices.size();
+            for(int j=0; j<size; j++){
+                LocationVertex v = vertices.get(reversed[i] ? size-1-j : j);
+                nodes.add(new VrpSolutionRouteNode(v.getId(), Location.newInstance(v.getLocation().getLongitude(), v.getLocation().getLatitude())));
+                cost += matrix.getDistance(lastId, v.getId());
+                lastId = v.getId();
+            }
+        }
+        costs[index] = cost + matrix.getDistance(lastId, depotId);
+        return new VrpSolutionRoute(route.getVehicle().getId(), nodes);
+    }
+}
@@ -0,0 +1,67 @@
+package compression.services.resolving;
+
+import compression.model.vrp.DistanceMatrix;
+import compression.model.vrp.helpers.AggregatedService;
+
+import java.util.List;
+
+/**
+ * Chooses orientation of aggregated services visited in a given order. Every service is traversed either forward or
+ * backward and the choices are made by dynamic programming over these two states (Viterbi algorithm), so the chain of
+ * services is the shortest possible for the given order. Runs in time linear in the number of services.
+ */
+public final class ServiceOrientationHelper {
+
+    private ServiceOrientationHelper(){
+    }
+
+    /**
+     * Chooses orientation of every service so that the chain of services is the shortest. Forward orientation is kept
+     * when both are equally good.
+     * @param services Services in visiting order.
+     * @param depotId Id of the depot in which the chain starts and ends, null for a chain with open ends.
+     * @param matrix Distance matrix.
+     * @return Whether every service should be traversed backward.
+     */
+    public static boolean[] orient(List<AggregatedService> services, Long depotId, DistanceMatrix matrix){
+        int k = services.size();
+        boolean[] reversed = new boolean[k];
+        if(k == 0)
+            return reversed;
+        // previous[2*i+s] - whether the best chain with service i in state s comes from backward service i-1
+        boolean[] previous = new boolean[2*k];
+        AggregatedService first = services.get(0);
+        double forward = first.getInternalDistance();
+        double backward = first.getInternalBackwardDistance();
+        if(depotId != null){
+            forward = matrix.getDistance(depotId, first.getInputVertex().getId()) + forward;
+            backward = matrix.getDistance(depotId, first.getOutputVertex().getId()) + backward;
+        }
+        for(int i=1; i<k; i++){
+            AggregatedService last = services.get(i-1);
+            AggregatedService current = services.get(i);
+            Long lastForwardEnd = last.getOutputVertex().getId();
+            Long lastBackwardEnd = last.getInputVertex().getId();
+            Long in = current.getInputVertex().getId();
+            Long out = current.getOutputVertex().getId();
+            double forwardFromForward = forward + matrix.getDistance(lastForwardEnd, in);
+            double forwardFromBackward = backward + matrix.getDistance(lastBackwardEnd, in);
+            double backwardFromForward = forward + matrix.getDistance(lastForwardEnd, out);
+            double backwardFromBackward = backward + matrix.getDistance(lastBackwardEnd, out);
+            previous[2*i] = forwardFromBackward < forwardFromForward;
+            previous[2*i+1] = backwardFromBackward < backwardFromForward;
+            forward = Math.min(forwardFromForward, forwardFromBackward) + current.getInternalDistance();
+            backward = Math.min(backwardFromForward, backwardFromBackward) + current.getInternalBackwardDistance();
+        }
+        if(depotId != null){
+            AggregatedService last = services.get(k-1);
+            forward += matrix.getDistance(last.getOutputVertex().getId(), depotId);
+            backward += matrix.getDistance(last.getInputVertex().getId(), depotId);
+        }
+        reversed[k-1] = backward < forward;
+        for(int i=k-1; i>0; i--){
+            reversed[i-1] = previous[2*i + (reversed[i] ? 1 : 0)];
+        }
+        return reversed;
+    }
+}
@@ -0,0 +1,61 @@
+package compression.services.spatial;
+
+import compression.model.structures.ISpatialIndex;
+import compression.model.vrp.Client;
+import compression.model.vrp.Depot;
+import compression.model.vrp.Location;
+import compression.model.vrp.VrpProblem;
+
+import java.util.List;
+
+/**
+ * Serves common methods for spatial index factories: locations are packed into coordinate arrays before the index is
+ * built.
+ */
+public abstract class BaseSpatialIndexFactory implements ISpatialIndexFactory {
+
+    /**
+     * Creates a spatial index over the given locations. Point i of the index is the i-th location.
+     * @param locations Locations.
+     * @return Spatial index.
+     */
+    @Override
+    public ISpatialIndex create(List<Location> locations) {
+        double[] latitudes = new double[locations.size()];
+        double[] longitudes = new double[locations.size()];
+        for(int i=0; i<locations.size(); i++){
+            latitudes[i] = locations.get(i).getLatitude();
+            longitudes[i] = locations.get(i).getLongitude();
+        }
+        return create(latitudes, longitudes);
+    }
+
+    /**
+     * Creates a spatial index over locations of depot and clients of the given problem. Points are indexed the same
+     * way as the distance matrix (by id-1).
+     * @param problem VRP problem.
+     * @return Spatial index.
+     */
+    @Override
+    public ISpatialIndex create(VrpProblem problem) {
+        int dimensions = problem.getDimensions();
+        double[] latitudes = new double[dimensions];
+        double[] longitudes = new double[dimensions];
+        Depot depot = problem.getDepot();
+        latitudes[depot.getId().intValue()-1] = depot.getLocation().getLatitude();
+        longitudes[depot.getId().intValue()-1] = depot.getLocation().getLongitude();
+        for(Client c : problem.getClients()){
+            latitudes[c.getId().intValue()-1] = c.getLocation().getLatitude();
+            longitudes[c.getId().intValue()-1] = c.getLocation().getLongitude();
+        }
+        return create(latitudes, longitudes);
+    }
+
+    /**
+     * Creates a spatial index over packed coordinates.
+     * @param latitudes Latitudes of points.
+     * @param longitudes Longitudes of points.
+     * @return Spatial index.
+     */
+    protected abstract ISpatialIndex create(double[] latitudes, double[] longitudes);
+}
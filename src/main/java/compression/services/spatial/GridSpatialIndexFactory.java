@@ -0,0 +1,21 @@
+package compression.services.spatial;
+
+import compression.model.structures.ISpatialIndex;
+import compression.model.structures.UniformGrid;
+
+/**
+ * Implementation of ISpatialIndexFactory interface that creates uniform grids.
+ */
+public class GridSpatialIndexFactory extends BaseSpatialIndexFactory {
+
+    /**
+     * Creates a uniform grid over packed coordinates.
+     * @param latitudes Latitudes of points.
+     * @param longitudes Longitudes of points.
+     * @return Uniform grid.
+     */
+    @Override
+    protected ISpatialIndex create(double[] latitudes, double[] longitudes) {
+        return new UniformGrid(latitudes, longitudes);
+    }
+}
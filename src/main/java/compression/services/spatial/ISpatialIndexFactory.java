@@ -0,0 +1,27 @@
+package compression.services.spatial;
+
+import compression.model.structures.ISpatialIndex;
+import compression.model.vrp.Location;
+import compression.model.vrp.VrpProblem;
+
+import java.util.List;
+
+/**
+ * Defines methods for creating spatial indices over locations.
+ */
+public interface ISpatialIndexFactory {
+    /**
+     * Creates a spatial index over the given locations. Point i of the index is the i-th location.
+     * @param locations Locations.
+     * @return Spatial index.
+     */
+    ISpatialIndex create(List<Location> locations);
+
+    /**
+     * Creates a spatial index over locations of depot and clients of the given problem. Points are indexed the same
+     * way as the distance matrix (by id-1).
+     * @param problem VRP problem.
+     * @return Spatial index.
+     */
+    ISpatialIndex create(VrpProblem problem);
+}
@@ -0,0 +1,21 @@
+package compression.services.spatial;
+
+import compression.model.structures.ISpatialIndex;
+import compression.model.structures.KdTree;
+
+/**
+ * Implementation of ISpatialIndexFactory interface that creates k-d trees.
+ */
+public class KdTreeSpatialIndexFactory extends BaseSpatialIndexFactory {
+
+    /**
+     * Creates a k-d tree over packed coordinates.
+     * @param latitudes Latitudes of points.
+     * @param longitudes Longitudes of points.
+     * @return K-d tree.
+     */
+    @Override
+    protected ISpatialIndex create(double[] latitudes, double[] longitudes) {
+        return new KdTree(latitudes, longitudes);
+    }
+}
@@ -0,0 +1,224 @@
+package compression.spanning;
+
+import compression.model.graph.CompactArborescence;
+import compression.model.graph.DefaultMinimumSpanningArborescence;
+import compression.model.graph.EdgeArrayGraph;
+import compression.model.graph.ICompactGraph;
+import compression.model.graph.IMinimumSpanningArborescence;
+import compression.model.structures.IntPairingHeap;
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+
+import java.util.*;
+
+/**
+ * Implementation of Tarjan algorithm for finding minimum spanning arborescence that keeps all super-vertex state
+ * in primitive arrays. Runs in O(m log n) time.
+ * @param <V> Vertex type.
+ * @param <E> Edge type.
+ */
+public class ArrayTarjanMinimumArborescenceFinder<V,E>
+    implements IMinimumSpanningArborescenceFinder<V,E>, ICertifyingMinimumSpanningArborescenceFinder {
+
+    /**
+     * Finds a minimum spanning arborescence for the given graph. The graph is converted to edge arrays first.
+     * @param graph Graph.
+     * @param root Root vertex for the arborescence.
+     * @return Minimum spanning arborescence for the given graph.
+     */
+    @Override
+    public IMinimumSpanningArborescence<V, E> getSpanningArborescence(SimpleDirectedWeightedGraph<V, E> graph, V root) {
+        List<V> vertices = new ArrayList<>(graph.vertexSet());
+        Map<V, Integer> indices = new HashMap<>();
+        for(int i=0; i<vertices.size(); i++){
+            indices.put(vertices.get(i), i);
+        }
+        int m = graph.edgeSet().size();
+        List<E> edges = new ArrayList<>(graph.edgeSet());
+        int[] sources = new int[m];
+        int[] targets = new int[m];
+        double[] weights = new double[m];
+        for(int e=0; e<m; e++){
+            sources[e] = indices.get(graph.getEdgeSource(edges.get(e)));
+            targets[e] = indices.get(graph.getEdgeTarget(edges.get(e)));
+            weights[e] = graph.getEdgeWeight(edges.get(e));
+        }
+        int[] in = getSpanningArborescence(new EdgeArrayGraph(vertices.size(), sources, targets, weights), indices.get(root));
+        Set<E> arborescence = new HashSet<>();
+        for(int e : in){
+            if(e >= 0)
+                arborescence.add(edges.get(e));
+        }
+        return new DefaultMinimumSpanningArborescence<>(root, arborescence);
+    }
+
+    /**
+     * Finds a minimum spanning arborescence of the given graph using Tarjan algorithm.
+     * @param graph Graph.
+     * @param root Index of the root vertex.
+     * @return Index of the arborescence edge entering every vertex (-1 for the root).
+     */
+    @Override
+    public int[] getSpanningArborescence(ICompactGraph graph, int root) {
+        return new Contraction(graph).run(root);
+    }
+
+    /**
+     * Finds a minimum spanning arborescence of the given graph using Tarjan algorithm. Dual value of every contracted
+     * set is the reduced weight of the edge chosen to enter it, potentials sum these values over the sets that do not
+     * contain the root.
+     * @param graph Graph.
+     * @param root Index of the root vertex.
+     * @return Arborescence with potentials of vertices.
+     */
+    @Override
+    public CompactArborescence getCertifiedSpanningArborescence(ICompactGraph graph, int root) {
+        Contraction contraction = new Contraction(graph);
+        contraction.contract();
+        double[] potentials = contraction.potentials(root);
+        return new CompactArborescence(contraction.expand(root), potentials);
+    }
+
+    /**
+     * State of a single run of the algorithm. Super-vertices are numbered from n, the current super-vertex of
+     * a vertex is found with path-compressed union-find and the incoming edges of super-vertices are kept in
+     * mergeable pairing heaps with lazily adjusted (reduced) weights.
+     */
+    private static final class Contraction {
+        private static final int NONE = -1;
+
+        private final ICompactGraph graph;
+        private final IntPairingHeap heaps;
+        private final int[] heap;
+        private final int[] in;
+        private final double[] inWeight;
+        private final int[] prev;
+        private final int[] parent;
+        private final int[] set;
+        private final int[] firstChild;
+        private final int[] nextChild;
+        private int vertices;
+        private int[] stack;
+        private int top;
+
+        Contraction(ICompactGraph graph){
+            int n = graph.getVertexCount();
+            int m = graph.getEdgeCount();
+            int size = Math.max(2*n-1, 1);
+            this.graph = graph;
+            heaps = new IntPairingHeap(m);
+            heap = new int[size];
+            in = new int[size];
+            inWeight = new double[size];
+            prev = new int[size];
+            parent = new int[size];
+            set = new int[size];
+            firstChild = new int[size];
+            nextChild = new int[size];
+            Arrays.fill(heap, IntPairingHeap.EMPTY);
+            Arrays.fill(in, NONE);
+            Arrays.fill(prev, NONE);
+            Arrays.fill(parent, NONE);
+            Arrays.fill(firstChild, NONE);
+            Arrays.fill(nextChild, NONE);
+            for(int v=0; v<size; v++){
+                set[v] = v;
+            }
+            vertices = n;
+            for(int e=0; e<m; e++){
+                int target = graph.getEdgeTarget(e);
+                heap[target] = heaps.meld(heap[target], heaps.singleton(e, graph.getEdgeWeight(e)));
+            }
+        }
+
+        int[] run(int root){
+            contract();
+            return expand(root);
+        }
+
+        private void contract(){
+            int a = 0;
+            while(heap[a] != IntPairingHeap.EMPTY){
+                int e = heap[a];
+                double weight = heaps.minKey(e);
+                heap[a] = heaps.deleteMin(e);
+                int u = graph.getEdgeSource(e);
+                int b = find(u);
+                if(a == b)
+                    continue;
+                in[a] = e;
+                inWeight[a] = weight;
+                prev[a] = b;
+                if(in[u] == NONE){
+                    a = b;
+                    continue;
+                }
+                int c = vertices++;
+                while(a != c){
+                    parent[a] = c;
+                    set[a] = c;
+                    nextChild[a] = firstChild[c];
+                    firstChild[c] = a;
+                    heaps.add(heap[a], -inWeight[a]);
+                    heap[c] = heaps.meld(heap[c], heap[a]);
+                    heap[a] = IntPairingHeap.EMPTY;
+                    a = find(prev[a]);
+                }
+            }
+        }
+
+        private double[] potentials(int root){
+            boolean[] containsRoot = new boolean[vertices];
+            for(int s=root; s!=NONE; s=parent[s]){
+                containsRoot[s] = true;
+            }
+            double[] sums = new double[vertices];
+            for(int s=vertices-1; s>=0; s--){
+                double outer = parent[s] == NONE ? 0.0 : sums[parent[s]];
+                sums[s] = containsRoot[s] || in[s] == NONE ? outer : outer + inWeight[s];
+            }
+            return Arrays.copyOf(sums, graph.getVertexCount());
+        }
+
+        private int find(int u){
+            while(set[u] != u){
+                set[u] = set[set[u]];
+                u = set[u];
+            }
+            return u;
+        }
+
+        private void dismantle(int u){
+            while(parent[u] != NONE){
+                for(int v=firstChild[parent[u]]; v!=NONE; v=nextChild[v]){
+                    if(v != u){
+                        parent[v] = NONE;
+                        if(firstChild[v] != NONE)
+                            stack[top++] = v;
+                    }
+                }
+                u = parent[u];
+            }
+        }
+
+        private int[] expand(int root){
+            int n = graph.getVertexCount();
+            stack = new int[vertices];
+            top = 0;
+            dismantle(root);
+            while(top > 0){
+                int c = stack[--top];
+                int e = in[c];
+                int v = graph.getEdgeTarget(e);
+                in[v] = e;
+                dismantle(v);
+            }
+            int[] result = Arrays.copyOf(in, n);
+            result[root] = NONE;
+            for(int v=0; v<n; v++){
+                if(v != root && result[v] == NONE)
+                    throw new IllegalArgumentException("Graph does not have a spanning arborescence");
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package compression.spanning;
+
+import compression.model.graph.CompleteGraph;
+import compression.model.graph.DefaultMinimumSpanningArborescence;
+import compression.model.graph.ICompactGraph;
+import compression.model.graph.IMinimumSpanningArborescence;
+import compression.model.vrp.DistanceMatrix;
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+
+import java.util.*;
+
+/**
+ * Implementation of Chu-Liu/Edmonds algorithm for dense graphs. The graph is kept as a matrix of incoming edge
+ * weights (one row per vertex), every contraction round costs O(n^2) and only row scans over primitive arrays are
+ * used.
+ * @param <V> Vertex type.
+ * @param <E> Edge type.
+ */
+public class DenseEdmondsMinimumArborescenceFinder<V,E>
+    implements IMinimumSpanningArborescenceFinder<V,E>, IDenseMinimumSpanningArborescenceFinder,
+    ICompactMinimumSpanningArborescenceFinder {
+
+    private static final int NONE = -1;
+
+    /**
+     * Finds a minimum spanning arborescence for the given graph. The graph is converted to a dense matrix first.
+     * @param graph Graph.
+     * @param root Root vertex for the arborescence.
+     * @return Minimum spanning arborescence for the given graph.
+     */
+    @Override
+    public IMinimumSpanningArborescence<V, E> getSpanningArborescence(SimpleDirectedWeightedGraph<V, E> graph, V root) {
+        List<V> vertices = new ArrayList<>(graph.vertexSet());
+        Map<V, Integer> indices = new HashMap<>();
+        for(int i=0; i<vertices.size(); i++){
+            indices.put(vertices.get(i), i);
+        }
+        int n = vertices.size();
+        DistanceMatrix matrix = new DistanceMatrix(n);
+        for(int i=0; i<n; i++){
+            for(int j=0; j<n; j++){
+                matrix.setDistance(i, j, Double.POSITIVE_INFINITY);
+            }
+        }
+        for(E e : graph.edgeSet()){
+            matrix.setDistance(indices.get(graph.getEdgeSource(e)), indices.get(graph.getEdgeTarget(e)), graph.getEdgeWeight(e));
+        }
+        int[] parents = getSpanningArborescence(matrix, indices.get(root));
+        Set<E> edges = new HashSet<>();
+        for(int v=0; v<n; v++){
+            if(parents[v] != NONE)
+                edges.add(graph.getEdge(vertices.get(parents[v]), vertices.get(v)));
+        }
+        return new DefaultMinimumSpanningArborescence<>(root, edges);
+    }
+
+    /**
+     * Finds a minimum spanning arborescence of the given graph. Complete graph is processed directly on its distance
+     * matrix, other graphs are converted to a dense matrix first (only the lightest of parallel edges is kept).
+     * @param graph Graph.
+     * @param root Index of the root vertex.
+     * @return Index of the arborescence edge entering every vertex (-1 for the root).
+     */
+    @Override
+    public int[] getSpanningArborescence(ICompactGraph graph, int root) {
+        int n = graph.getVertexCount();
+        int[] in = new int[n];
+        if(graph instanceof CompleteGraph){
+            int[] parents = getSpanningArborescence(((CompleteGraph) graph).getDistanceMatrix(), root);
+            for(int v=0; v<n; v++){
+                int p = parents[v];
+                in[v] = p == NONE ? NONE : p*(n-1) + (v < p ? v : v-1);
+            }
+            return in;
+        }
+        DistanceMatrix matrix = new DistanceMatrix(n);
+        int[] edges = new int[n*n];
+        for(int i=0; i<n; i++){
+            for(int j=0; j<n; j++){
+                matrix.setDistance(i, j, Double.POSITIVE_INFINITY);
+            }
+        }
+        for(int e=0; e<graph.getEdgeCount(); e++){
+            int u = graph.getEdgeSource(e);
+            int v = graph.getEdgeTarget(e);
+            if(graph.getEdgeWeight(e) < matrix.getDistance(u, v)){
+                matrix.setDistance(u, v, graph.getEdgeWeight(e));
+                edges[u*n+v] = e;
+            }
+        }
+        int[] parents = getSpanningArborescence(matrix, root);
+        for(int v=0; v<n; v++){
+            in[v] = parents[v] == NONE ? NONE : edges[parents[v]*n+v];
+        }
+        return in;
+    }
+
+    /**
+     * Finds a minimum spanning arborescence of the complete graph given by the distance matrix.
+     * @param matrix Distance matrix.
+     * @param root Index of the root vertex.
+     * @return Index of parent vertex for every vertex (-1 for the root).
+     */
+    @Override
+    public int[] getSpanningArborescence(DistanceMatrix matrix, int root) {
+        int n = matrix.getDimensions();
+        if((long)n*n > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Graph is too large for dense arborescence finder");
+        double[] weights = new double[n*n];
+        int[] origins = new int[n*n];
+        for(int u=0; u<n; u++){
+            for(int v=0; v<n; v++){
+                weights[v*n+u] = u == v || v == root ? Double.POSITIVE_INFINITY : matrix.getDistance(u, v);
+                origins[v*n+u] = u*n+v;
+            }
+        }
+        List<Round> rounds = new ArrayList<>();
+        int[] nodeOf = new int[n];
+        for(int v=0; v<n; v++){
+            nodeOf[v] = v;
+        }
+        int size = n;
+        int currentRoot = root;
+        double[] nextWeights = null;
+        int[] nextOrigins = null;
+        while(true){
+            Round round = new Round(size, currentRoot, nodeOf.clone());
+            selectIncomingEdges(round, weights, origins);
+            int components = findCycles(round);
+            rounds.add(round);
+            if(components == size)
+                break;
+            if(nextWeights == null){
+                nextWeights = new double[components*components];
+                nextOrigins = new int[components*components];
+            }
+            contract(round, components, weights, origins, nextWeights, nextOrigins);
+            double[] w = weights;
+            weights = nextWeights;
+            nextWeights = w;
+            int[] o = origins;
+            origins = nextOrigins;
+            nextOrigins = o;
+            for(int v=0; v<n; v++){
+                nodeOf[v] = round.component[nodeOf[v]];
+            }
+            currentRoot = round.component[currentRoot];
+            size = components;
+        }
+        return expand(rounds, n);
+    }
+
+    private void selectIncomingEdges(Round round, double[] weights, int[] origins){
+        int size = round.size;
+        for(int v=0; v<size; v++){
+            if(v == round.root)
+                continue;
+            int offset = v*size;
+            int best = NONE;
+            double bestWeight = Double.POSITIVE_INFINITY;
+            for(int u=0; u<size; u++){
+                double w = weights[offset+u];
+                if(w < bestWeight){
+                    bestWeight = w;
+                    best = u;
+                }
+            }
+            if(best == NONE)
+                throw new IllegalArgumentException("Graph does not have a spanning arborescence");
+            round.in[v] = best;
+            round.inWeight[v] = bestWeight;
+            round.inEdge[v] = origins[offset+best];
+        }
+    }
+
+    private int findCycles(Round round){
+        int size = round.size;
+        int[] mark = new int[size];
+        Arrays.fill(mark, NONE);
+        Arrays.fill(round.component, NONE);
+        int components = 0;
+        for(int v=0; v<size; v++){
+            int x = v;
+            while(x != round.root && mark[x] == NONE && round.component[x] == NONE){
+                mark[x] = v;
+                x = round.in[x];
+            }
+            if(x != round.root && mark[x] == v && round.component[x] == NONE){
+                int y = x;
+                do {
+                    round.component[y] = components;
+                    round.cycle[y] = true;
+                    y = round.in[y];
+                } while(y != x);
+                components++;
+            }
+        }
+        for(int v=0; v<size; v++){
+            if(round.component[v] == NONE)
+                round.component[v] = components++;
+        }
+        return components;
+    }
+
+    private void contract(Round round, int components, double[] weights, int[] origins,
+                          double[] nextWeights, int[] nextOrigins){
+        int size = round.size;
+        int[] component = round.component;
+        Arrays.fill(nextWeights, 0, components*components, Double.POSITIVE_INFINITY);
+        for(int v=0; v<size; v++){
+            if(v == round.root)
+                continue;
+            int cv = component[v];
+            int offset = v*size;
+            int nextOffset = cv*components;
+            double shift = round.cycle[v] ? round.inWeight[v] : 0.0;
+            for(int u=0; u<size; u++){
+                int cu = component[u];
+                if(cu == cv)
+                    continue;
+                double w = weights[offset+u] - shift;
+                if(w < nextWeights[nextOffset+cu]){
+                    nextWeights[nextOffset+cu] = w;
+                    nextOrigins[nextOffset+cu] = origins[offset+u];
+                }
+            }
+        }
+    }
+
+    private int[] expand(List<Round> rounds, int n){
+        Round last = rounds.get(rounds.size()-1);
+        int[] chosen = last.inEdge.clone();
+        for(int k=rounds.size()-2; k>=0; k--){
+            Round round = rounds.get(k);
+            int[] current = new int[round.size];
+            for(int v=0; v<round.size; v++){
+                if(v == round.root){
+                    current[v] = NONE;
+                    continue;
+                }
+                int e = chosen[round.component[v]];
+                current[v] = round.nodeOf[e % n] == v ? e : round.inEdge[v];
+            }
+            chosen = current;
+        }
+        int[] parents = new int[n];
+        for(int v=0; v<n; v++){
+            parents[v] = chosen[v] == NONE ? NONE : chosen[v] / n;
+        }
+        return parents;
+    }
+
+    /**
+     * State of a single contraction round.
+     */
+    private static final class Round {
+        final int size;
+        final int root;
+        final int[] nodeOf;
+        final int[] in;
+        final double[] inWeight;
+        final int[] inEdge;
+        final int[] component;
+        final boolean[] cycle;
+
+        Round(int size, int root, int[] nodeOf){
+            this.size = size;
+            this.root = root;
+            this.nodeOf = nodeOf;
+            this.in = new int[size];
+            this.inWeight = new double[size];
+            this.inEdge = new int[size];
+            this.component = new int[size];
+            this.cycle = new boolean[size];
+            Arrays.fill(inEdge, NONE);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package compression.spanning;
+
+import compression.model.graph.CompactArborescence;
+import compression.model.graph.ICompactGraph;
+
+/**
+ * Defines a way to find minimum spanning arborescence of a compact graph together with dual potentials that prove
+ * its optimality.
+ */
+public interface ICertifyingMinimumSpanningArborescenceFinder extends ICompactMinimumSpanningArborescenceFinder {
+    /**
+     * Finds a minimum spanning arborescence of the given graph and potentials of its vertices. Edge weights must be
+     * non-negative.
+     * @param graph Graph.
+     * @param root Index of the root vertex.
+     * @return Arborescence with potentials of vertices.
+     */
+    CompactArborescence getCertifiedSpanningArborescence(ICompactGraph graph, int root);
+}
@@ -0,0 +1,16 @@
+package compression.spanning;
+
+import compression.model.graph.ICompactGraph;
+
+/**
+ * Defines a way to find minimum spanning arborescence of a compact graph.
+ */
+public interface ICompactMinimumSpanningArborescenceFinder {
+    /**
+     * Finds a minimum spanning arborescence of the given graph.
+     * @param graph Graph.
+     * @param root Index of the root vertex.
+     * @return Index of the arborescence edge entering every vertex (-1 for the root).
+     */
+    int[] getSpanningArborescence(ICompactGraph graph, int root);
+}
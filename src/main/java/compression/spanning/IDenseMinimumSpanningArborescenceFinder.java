@@ -0,0 +1,17 @@
+package compression.spanning;
+
+import compression.model.vrp.DistanceMatrix;
+
+/**
+ * Defines a way to find minimum spanning arborescence of a complete graph given by its distance matrix.
+ */
+public interface IDenseMinimumSpanningArborescenceFinder {
+    /**
+     * Finds a minimum spanning arborescence of the complete graph given by the distance matrix. Infinite distances
+     * are treated as missing edges.
+     * @param matrix Distance matrix.
+     * @param root Index of the root vertex.
+     * @return Index of parent vertex for every vertex (-1 for the root).
+     */
+    int[] getSpanningArborescence(DistanceMatrix matrix, int root);
+}